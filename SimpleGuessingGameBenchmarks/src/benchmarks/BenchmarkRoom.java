@@ -0,0 +1,78 @@
+package benchmarks;
+
+import core.Game;
+import core.GameManager;
+import core.GameRound;
+import core.Player;
+
+/**
+ * Room used by the benchmarks: a game with a running round, a {@link GameManager}
+ * for the current player, and guesses that are known to be right or wrong.
+ *
+ * <p>Games only accept {@link Game#MAX_PLAYERS} sign ups, so for bigger rooms the extra
+ * players are added to the round directly. The current player is the last player
+ * of the round, so checks that go through all players visit everybody else first.
+ *
+ * @author user
+ *
+ */
+class BenchmarkRoom {
+
+	final Game game;
+	final GameManager manager;
+	final GameRound round;
+	final Player player;
+
+	final String correctGuess;
+	final String wrongGuess;
+
+
+	/**
+	 * @param numDigits
+	 * @param numPlayers Can be more than {@link Game#MAX_PLAYERS}
+	 * @throws Exception
+	 */
+	BenchmarkRoom(int numDigits, int numPlayers) throws Exception {
+		game = new Game();
+		game.start();
+		game.setNumDigits(numDigits);
+
+		int numSignUps = Math.min(numPlayers, Game.MAX_PLAYERS);
+		for (int i = 0; i < numSignUps; i++) {
+			game.signUpPlayer("Player " + (i + 1));
+		}
+		round = game.startNextRound();
+
+		for (int i = numSignUps; i < numPlayers; i++) {
+			round.addPlayer(new Player("Player " + (i + 1)));
+		}
+
+		player = round.getPlayers().get(round.getPlayers().size() - 1);
+		manager = new GameManager(game);
+		manager.setCurrentPlayer(player);
+
+		// digits of the secret code are unique, so a rotated code never matches
+		correctGuess = round.getSecretCode();
+		wrongGuess = correctGuess.substring(1) + correctGuess.charAt(0);
+	}
+
+	/**
+	 * Everybody except the current player has lost, the round only waits for the current player.
+	 * This is the worst case of the round end check
+	 */
+	void finishOtherPlayers() {
+		for (Player other : round.getPlayers()) {
+			if (other != player) {
+				round.addLoser(other);
+			}
+		}
+	}
+
+	/**
+	 * Takes back the guesses of the current player, so the round never ends
+	 */
+	void resetGuesses() {
+		player.clearAllGuesses();
+		round.getGuesses().clear();
+	}
+}
@@ -0,0 +1,185 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.Logger;
+import java.util.logging.LogRecord;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import core.GameCallbackImpl;
+import core.GameCallback;
+import core.GameCallbackLoggerImpl;
+import core.QueuedGameCallback;
+import server.AsyncLogWriter;
+import server.Outbox;
+import server.ResponseEncoder;
+import server.ServerOptions;
+
+/**
+ * Cost of GameManager.addGuess() for 1 incorrect guess, the way the server calls it.
+ *
+ * <p>callbacks:<ul>
+ * <li>NONE - only the game logic</li>
+ * <li>CLIENT - responses are encoded for the client (like GameCallbackImpl on the server), and flushed
+ * to a stream that throws the bytes away</li>
+ * <li>CLIENT_AND_LOG - also logs the game events through the log writer</li>
+ * <li>CLIENT_AND_QUEUED_LOG - logs the game events on the thread of a QueuedGameCallback, like the server</li>
+ * </ul>
+ *
+ * <p>roundEnd measures the check for the end of the round (GameManager.checkRoundEnded()) with rooms
+ * of different sizes. Everybody else has already lost, the worst case when the check went through
+ * all players. The round now counts the players still playing, so the time should not grow with the room.
+ *
+ * @author user
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class GameManagerBenchmark {
+
+	/**
+	 * Callbacks registered to the game manager
+	 */
+	@State(Scope.Thread)
+	public static class Callbacks {
+
+		@Param({ "NONE", "CLIENT", "CLIENT_AND_LOG", "CLIENT_AND_QUEUED_LOG" })
+		String callbacks;
+
+		@Param({ "OBJECT", "BINARY" })
+		String protocol;
+
+		BenchmarkRoom room;
+		ResponseEncoder encoder;
+		AsyncLogWriter logWriter;
+		QueuedGameCallback queuedLogger;
+
+		@Setup
+		public void setUp() throws Exception {
+			room = new BenchmarkRoom(4, 6);
+
+			if (! callbacks.equals("NONE")) {
+				ServerOptions.Protocol wireProtocol = ServerOptions.Protocol.valueOf(protocol);
+				encoder = wireProtocol.newEncoder(new Outbox(new NullOutputStream()));
+				room.manager.addCallback(new GameCallbackImpl(encoder));
+			}
+
+			if (callbacks.endsWith("LOG")) {
+				logWriter = new AsyncLogWriter(AsyncLogWriter.DEFAULT_CAPACITY, AsyncLogWriter.OverflowPolicy.BLOCK);
+
+				Logger logger = Logger.getAnonymousLogger();
+				logger.setUseParentHandlers(false);
+				logger.addHandler(logWriter.newHandler(new NullHandler()));
+				GameCallback gameLogger = new GameCallbackLoggerImpl(logger);
+
+				if (callbacks.equals("CLIENT_AND_QUEUED_LOG")) {
+					queuedLogger = new QueuedGameCallback(gameLogger, QueuedGameCallback.DEFAULT_CAPACITY, QueuedGameCallback.OverflowPolicy.BLOCK);
+					gameLogger = queuedLogger;
+				}
+				room.manager.addCallback(gameLogger);
+			}
+		}
+
+		@TearDown
+		public void tearDown() {
+			if (queuedLogger != null) {
+				queuedLogger.close();
+			}
+			if (logWriter != null) {
+				logWriter.close();
+			}
+		}
+	}
+
+	/**
+	 * Rooms of different sizes
+	 */
+	@State(Scope.Thread)
+	public static class Rooms {
+
+		@Param({ "3", "6", "64", "1024" })
+		int numPlayers;
+
+		BenchmarkRoom room;
+
+		@Setup
+		public void setUp() throws Exception {
+			room = new BenchmarkRoom(4, numPlayers);
+			room.finishOtherPlayers();
+		}
+	}
+
+
+	@Benchmark
+	public int addGuess(Callbacks state) throws IOException {
+		BenchmarkRoom room = state.room;
+		room.resetGuesses();
+		room.manager.addGuess(room.wrongGuess);
+
+		// end of the event, like GameSession does
+		if (state.encoder != null) {
+			state.encoder.flush();
+		}
+		return room.player.getNumGuesses();
+	}
+
+	@Benchmark
+	public boolean roundEnd(Rooms state) {
+		BenchmarkRoom room = state.room;
+		room.resetGuesses();
+		room.manager.addGuess(room.wrongGuess);
+		return room.round.hasEnded();
+	}
+
+
+	/**
+	 * Throws the bytes away, like a client that reads very fast
+	 */
+	static class NullOutputStream extends OutputStream {
+		@Override
+		public void write(int b) {
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+		}
+	}
+
+	/**
+	 * Throws the records away
+	 */
+	static class NullHandler extends Handler {
+		@Override
+		public void publish(LogRecord record) {
+			if (record.getMessage() == null) {
+				throw new IllegalStateException();
+			}
+		}
+
+		@Override
+		public void flush() {
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+}
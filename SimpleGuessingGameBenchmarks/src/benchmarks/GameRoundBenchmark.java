@@ -0,0 +1,70 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of adding and scoring a guess in a {@link core.GameRound}, without any callbacks.
+ *
+ * @author user
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class GameRoundBenchmark {
+
+	@Param({ "3", "8" })
+	int numDigits;
+
+	BenchmarkRoom room;
+
+
+	@Setup
+	public void setUp() throws Exception {
+		room = new BenchmarkRoom(numDigits, 6);
+	}
+
+
+	/**
+	 * An incorrect guess, the player keeps playing
+	 */
+	@Benchmark
+	public int addGuess() {
+		room.resetGuesses();
+		room.round.addGuess(room.player, room.wrongGuess);
+		return room.player.getNumGuesses();
+	}
+
+	@Benchmark
+	public int getNumCorrectPositions() {
+		return room.round.getNumCorrectPositions(room.wrongGuess);
+	}
+
+	@Benchmark
+	public int getNumIncorrectPositions() {
+		return room.round.getNumIncorrectPositions(room.wrongGuess);
+	}
+
+	/**
+	 * Both counts, the way the callbacks get them
+	 */
+	@Benchmark
+	public int score() {
+		return room.round.score(room.wrongGuess);
+	}
+}
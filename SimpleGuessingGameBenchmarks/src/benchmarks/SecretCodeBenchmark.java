@@ -0,0 +1,69 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import core.Game;
+import core.SecretCodeGenerator;
+import core.SecretCodePool;
+import core.ShuffleCodeGenerator;
+
+/**
+ * Cost of Game.createSecretCode() with each secret code generator.
+ *
+ * <p>The secure pool is drained much faster than it is refilled here,
+ * so its numbers are close to the worst case (codes created on the caller's thread).
+ * Run with -t 4 to see how generators behave when many rooms start rounds at the same time.
+ *
+ * @author user
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SecretCodeBenchmark {
+
+	@Param({ "FAST", "SECURE" })
+	String generator;
+
+	@Param({ "3", "8" })
+	int numDigits;
+
+	Game game;
+	SecretCodeGenerator codeGenerator;
+
+
+	@Setup
+	public void setUp() {
+		codeGenerator = generator.equals("SECURE") ? new SecretCodePool() : new ShuffleCodeGenerator();
+		game = new Game(codeGenerator);
+	}
+
+	@TearDown
+	public void tearDown() {
+		if (codeGenerator instanceof SecretCodePool) {
+			((SecretCodePool) codeGenerator).close();
+		}
+	}
+
+
+	@Benchmark
+	public String createSecretCode() {
+		return game.createSecretCode(numDigits);
+	}
+}
@@ -0,0 +1,152 @@
+package client;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import server.BinaryProtocol;
+import server.Response;
+import server.RoundSummary;
+import server.Score;
+
+/**
+ * Reads the length prefixed binary frames sent by the server. See {@link BinaryProtocol} for the format.
+ *
+ * <p>Scores and round summaries are turned into messages so the client can print them.
+ *
+ * @author user
+ *
+ */
+public class BinaryResponseDecoder implements ResponseDecoder {
+
+	private DataInputStream in;
+
+	// payload of the frame being read
+	private byte[] frame = new byte[256];
+	private int position;
+	private int length;
+
+
+	/**
+	 * This will read the {@link BinaryProtocol#MAGIC} sent by the server
+	 *
+	 * @param in
+	 * @throws IOException If the server does not use the binary protocol
+	 */
+	public BinaryResponseDecoder(InputStream in) throws IOException {
+		this.in = new DataInputStream(in);
+
+		byte[] magic = new byte[BinaryProtocol.MAGIC.length];
+		this.in.readFully(magic);
+		if (! Arrays.equals(magic, BinaryProtocol.MAGIC)) {
+			throw new IOException("The server does not use a protocol this client knows");
+		}
+	}
+
+	@Override
+	public Response read() throws IOException {
+		length = in.readInt();
+		if (length < 1 || length > BinaryProtocol.MAX_FRAME_LENGTH) {
+			throw new IOException("Invalid frame length " + length);
+		}
+
+		if (frame.length < length) {
+			frame = new byte[Math.max(length, frame.length * 2)];
+		}
+		in.readFully(frame, 0, length);
+		position = 0;
+
+		byte type = readByte();
+		switch (type) {
+			case BinaryProtocol.PRINTMESSAGE:
+			case BinaryProtocol.READLINE:
+			case BinaryProtocol.QUIT:
+				return new Response(readRemaining(), type);
+
+			case BinaryProtocol.SCORE:
+				return Response.message(readScore().toString());
+
+			case BinaryProtocol.ROUND_SUMMARY:
+				return Response.message(readRoundSummary().toString());
+
+			default:
+				throw new IOException("Unknown frame type " + type);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+
+	private Score readScore() throws IOException {
+		int correct = readByte() & 0xFF;
+		int incorrect = readByte() & 0xFF;
+		return new Score(correct, incorrect);
+	}
+
+	private RoundSummary readRoundSummary() throws IOException {
+		int numWinners = readShort();
+		List<RoundSummary.Winner> winners = new ArrayList<>(numWinners);
+		for (int i = 0; i < numWinners; i++) {
+			String name = readString();
+			int numGuesses = readByte() & 0xFF;
+			winners.add(new RoundSummary.Winner(name, numGuesses));
+		}
+
+		List<String> losers = readNames();
+		List<String> forfeiters = readNames();
+		return new RoundSummary(winners, losers, forfeiters);
+	}
+
+	private List<String> readNames() throws IOException {
+		int count = readShort();
+		List<String> names = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			names.add(readString());
+		}
+		return names;
+	}
+
+
+	private byte readByte() throws IOException {
+		ensureRemaining(1);
+		return frame[position++];
+	}
+
+	private int readShort() throws IOException {
+		ensureRemaining(2);
+		int value = ((frame[position] & 0xFF) << 8) | (frame[position + 1] & 0xFF);
+		position += 2;
+		return value;
+	}
+
+	private String readString() throws IOException {
+		int size = readShort();
+		ensureRemaining(size);
+		String value = new String(frame, position, size, BinaryProtocol.CHARSET);
+		position += size;
+		return value;
+	}
+
+	private String readRemaining() {
+		String value = new String(frame, position, length - position, BinaryProtocol.CHARSET);
+		position = length;
+		return value;
+	}
+
+	/**
+	 * Helper method that checks the frame has enough bytes left
+	 * @param size
+	 * @throws IOException
+	 */
+	private void ensureRemaining(int size) throws IOException {
+		if (position + size > length) {
+			throw new IOException("Frame is too short");
+		}
+	}
+}
@@ -4,7 +4,6 @@ import java.io.BufferedReader;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.io.ObjectInputStream;
 import java.io.PrintWriter;
 import java.net.InetSocketAddress;
 import java.net.Socket;
@@ -13,9 +12,10 @@ import java.net.UnknownHostException;
 import server.Response;
 
 /**
- * Class the represent the player's client machine. This client expects to receive serialized form of server.Response object. 
+ * Class the represent the player's client machine. This client expects to receive serialized form of server.Response object, 
+ * or binary frames if the server uses the binary protocol. The protocol is detected automatically (see {@link ResponseDecoder}).
  * <p>Note: You must compile the whole project and not only this file.
- * <p>After the client deserialized the payload, it can do one of these 3 commands:<ul>
+ * <p>After the client decoded the payload, it can do one of these 3 commands:<ul>
  * <li>PRINTMESSAGE - Tells the client to print message to the screen</li>
  * <li>READLINE -  Read inputs from the console and send the contents via output stream.</li>
  * <li>QUIT - Tells the client to quit the program</li></ul>
@@ -43,7 +43,7 @@ public class Client {
 		String host = getHostAddress(args);
 		
 		Socket socket = null;
-		ObjectInputStream objectInputStream = null;
+		ResponseDecoder decoder = null;
 		PrintWriter writer = null;
 		BufferedReader console = null;
 		
@@ -55,8 +55,8 @@ public class Client {
 			socket.setSoTimeout(60 * 1000);
 			System.out.println("Connected to " + host + " on port " + port);
 			
-			// client will receive an instance of server.Response object in serialized form
-			objectInputStream = new ObjectInputStream(socket.getInputStream());
+			// client will receive instances of server.Response object, in serialized form or binary frames
+			decoder = ResponseDecoder.open(socket.getInputStream());
 			
 			// this client will send normal sequence of characters to the server
 			writer = new PrintWriter(socket.getOutputStream(), true);
@@ -66,7 +66,7 @@ public class Client {
 			Response command;
 			
 			do {
-				command = (Response) objectInputStream.readObject();
+				command = decoder.read();
 				
 				// print response's message and read input from console
 				if (command.getType() == Response.READLINE) {
@@ -85,11 +85,6 @@ public class Client {
 			while(command.getType() != Response.QUIT);
 			
 		}
-		// Most likely will throw this exception in case you only compiled this file
-		// Remember, compile the whole project
-		catch (ClassNotFoundException e) {
-			System.err.println("The command data sent by the server cannot be read by this client. " + e.getMessage());
-		}
 		// Server not started or you are not connected
 		catch (UnknownHostException e) {
 			System.err.printf("Server %s:%d cannot be found\n", host, port);
@@ -107,7 +102,7 @@ public class Client {
 			try {
 				if (console != null) console.close();
 				if (writer != null) writer.close();
-				if (objectInputStream != null) objectInputStream.close();
+				if (decoder != null) decoder.close();
 				if (socket != null) socket.close();
 				
 				System.out.println("Connection closed.");
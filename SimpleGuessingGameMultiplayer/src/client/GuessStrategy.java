@@ -0,0 +1,140 @@
+package client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Makes the guesses of a {@link ScriptedPlayer}.
+ *
+ * <p>RANDOM guesses any code with unique digits. STRATEGIC remembers the score of each guess
+ * and only guesses codes that could still be the secret code. Checking every possible code is too slow
+ * for thousands of players, so it tries a limited number of random codes and takes the first
+ * one that matches all the scores so far.
+ *
+ * <p>Instances of this class are not thread safe, each player has its own.
+ *
+ * @author user
+ *
+ */
+public class GuessStrategy {
+
+	public enum Mode {
+		RANDOM,
+		STRATEGIC
+	}
+
+	/**
+	 * Number of random codes tried by STRATEGIC before it gives up and guesses the last one
+	 */
+	public static final int MAX_CANDIDATES = 2000;
+
+	private final Mode mode;
+	private final Random random;
+	private int numDigits;
+
+	// guesses of the current round and their scores
+	private final List<String> guesses = new ArrayList<>();
+	private final List<int[]> scores = new ArrayList<>();
+	private String lastGuess;
+
+
+	public GuessStrategy(Mode mode, Random random) {
+		this.mode = mode;
+		this.random = random;
+	}
+
+	/**
+	 * Starts a new round
+	 * @param numDigits Length of the secret code
+	 */
+	public void reset(int numDigits) {
+		this.numDigits = numDigits;
+		guesses.clear();
+		scores.clear();
+		lastGuess = null;
+	}
+
+	/**
+	 * Gets the next guess
+	 * @return
+	 */
+	public String next() {
+		String guess = randomCode();
+
+		if (mode == Mode.STRATEGIC) {
+			for (int i = 1; i < MAX_CANDIDATES && ! isPossible(guess); i++) {
+				guess = randomCode();
+			}
+		}
+
+		lastGuess = guess;
+		return guess;
+	}
+
+	/**
+	 * The server sent the score of the last guess
+	 *
+	 * @param correct
+	 * @param incorrect
+	 */
+	public void onScore(int correct, int incorrect) {
+		if (lastGuess != null) {
+			guesses.add(lastGuess);
+			scores.add(new int[] { correct, incorrect });
+			lastGuess = null;
+		}
+	}
+
+
+	/**
+	 * Helper method that checks if the code gets the same scores as the secret code did
+	 *
+	 * @param code
+	 * @return
+	 */
+	private boolean isPossible(String code) {
+		for (int i = 0; i < guesses.size(); i++) {
+			int[] score = score(code, guesses.get(i));
+			if (score[0] != scores.get(i)[0] || score[1] != scores.get(i)[1]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Scores the guess the same way the server does
+	 *
+	 * @param secretCode
+	 * @param guess
+	 * @return correct and incorrect positions
+	 */
+	static int[] score(String secretCode, String guess) {
+		int correct = 0;
+		int incorrect = 0;
+		for (int i = 0; i < Math.min(secretCode.length(), guess.length()); i++) {
+			if (guess.charAt(i) == secretCode.charAt(i)) {
+				correct++;
+			} else if (secretCode.indexOf(guess.charAt(i)) >= 0) {
+				incorrect++;
+			}
+		}
+		return new int[] { correct, incorrect };
+	}
+
+	/**
+	 * Helper method that creates a code with unique digits
+	 * @return
+	 */
+	private String randomCode() {
+		char[] digits = { '0', '1', '2', '3', '4', '5', '6', '7', '8', '9' };
+		for (int i = 0; i < numDigits; i++) {
+			int j = i + random.nextInt(digits.length - i);
+			char digit = digits[j];
+			digits[j] = digits[i];
+			digits[i] = digit;
+		}
+		return new String(digits, 0, numDigits);
+	}
+}
@@ -0,0 +1,94 @@
+package client;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import server.SessionExecutors;
+
+/**
+ * Headless load generator for the single player and multiplayer servers.
+ *
+ * <p>Starts the configured number of {@link ScriptedPlayer}s, each with its own connection,
+ * then reports the throughput and the p50/p99/p999 latencies of each step of the game
+ * (see {@link LoadStats.Step}). Players run on virtual threads when the JVM has them, so
+ * thousands of connections can be opened from 1 machine.
+ *
+ * <p>Only meant to be run against a server on the same machine, eg.
+ * <pre>java client.LoadGenerator --port=15376 --clients=2000 --rounds=3 --strategy=strategic</pre>
+ * See {@link LoadOptions} for all the options.
+ *
+ * @author user
+ *
+ */
+public class LoadGenerator {
+
+	// progress is printed this often
+	private static final long PROGRESS_INTERVAL_MILLIS = 5000;
+
+	private final LoadOptions options;
+	private final LoadStats stats = new LoadStats();
+
+
+	public LoadGenerator(LoadOptions options) {
+		this.options = options;
+	}
+
+	public LoadStats getStats() {
+		return stats;
+	}
+
+
+	/**
+	 * Runs all the players and waits until they have finished
+	 *
+	 * @return Elapsed seconds
+	 * @throws InterruptedException
+	 */
+	public double run() throws InterruptedException {
+		ExecutorService executor = SessionExecutors.newVirtualThreadPerTaskExecutor("load-player");
+		long startedAt = System.nanoTime();
+		long nextProgress = System.currentTimeMillis() + PROGRESS_INTERVAL_MILLIS;
+
+		try {
+			for (int i = 0; i < options.getClients(); i++) {
+				executor.execute(new ScriptedPlayer(i + 1, options, stats));
+
+				if (options.getRampMillis() > 0) {
+					Thread.sleep(options.getRampMillis());
+				}
+
+				if (System.currentTimeMillis() >= nextProgress) {
+					stats.printProgress(System.out, elapsedSeconds(startedAt));
+					nextProgress += PROGRESS_INTERVAL_MILLIS;
+				}
+			}
+
+			executor.shutdown();
+			while (! executor.awaitTermination(PROGRESS_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+				stats.printProgress(System.out, elapsedSeconds(startedAt));
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+
+		return elapsedSeconds(startedAt);
+	}
+
+	private static double elapsedSeconds(long startedAt) {
+		return (System.nanoTime() - startedAt) / 1e9;
+	}
+
+
+	public static void main(String[] args) throws InterruptedException {
+		LoadOptions options = LoadOptions.parse(args);
+
+		System.out.printf("Starting %d players against %s:%d (%d rounds, %d digits, %s guesses, seed %d)\n",
+			options.getClients(), options.getHost(), options.getPort(), options.getRounds(),
+			options.getDigits(), options.getStrategy().name().toLowerCase(), options.getSeed());
+
+		LoadGenerator generator = new LoadGenerator(options);
+		double elapsedSeconds = generator.run();
+		generator.getStats().printReport(System.out, elapsedSeconds);
+	}
+}
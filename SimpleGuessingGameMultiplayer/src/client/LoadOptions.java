@@ -0,0 +1,164 @@
+package client;
+
+/**
+ * Options of the {@link LoadGenerator}.
+ *
+ * <p>Options are passed as command line arguments in the form <pre>--name=value</pre>
+ *
+ * <p>Available options:<ul>
+ * <li>--host - Server address. Defaults to localhost</li>
+ * <li>--port - Server port. Defaults to 15376</li>
+ * <li>--clients - Number of players connected at the same time. Defaults to 100</li>
+ * <li>--rounds - Rounds played by each player before quitting. Defaults to 2</li>
+ * <li>--digits - Number of digits every player wants to play with. Defaults to 4</li>
+ * <li>--strategy - random or strategic guesses, see {@link GuessStrategy}. Defaults to random</li>
+ * <li>--ramp-ms - Milliseconds between new connections. Defaults to 5</li>
+ * <li>--think-ms - Milliseconds a player waits before each reply. Defaults to 0</li>
+ * <li>--timeout-s - Seconds a player waits for the server before giving up. Defaults to 120</li>
+ * <li>--seed - Seed of the random guesses, so runs can be repeated. Defaults to the current time</li>
+ * </ul>
+ *
+ * @author user
+ *
+ */
+public class LoadOptions {
+
+	private String host = "localhost";
+	private int port = 15376;
+	private int clients = 100;
+	private int rounds = 2;
+	private int digits = 4;
+	private GuessStrategy.Mode strategy = GuessStrategy.Mode.RANDOM;
+	private int rampMillis = 5;
+	private int thinkMillis = 0;
+	private int timeoutSeconds = 120;
+	private long seed = System.nanoTime();
+
+
+	/**
+	 * Parse options from the command line arguments.
+	 * Invalid values are reported and the default value is used instead.
+	 *
+	 * @param args
+	 * @return
+	 */
+	public static LoadOptions parse(String[] args) {
+		LoadOptions options = new LoadOptions();
+
+		for (String arg : args) {
+			if (! arg.startsWith("--")) {
+				System.err.printf("%s is not a valid option\n", arg);
+				continue;
+			}
+
+			String[] pair = arg.substring(2).split("=", 2);
+			String name = pair[0];
+			String value = pair.length > 1 ? pair[1].trim() : "";
+
+			switch (name) {
+				case "host":
+					options.host = value;
+					break;
+				case "port":
+					options.port = parseInt(value, options.port);
+					break;
+				case "clients":
+					options.clients = Math.max(1, parseInt(value, options.clients));
+					break;
+				case "rounds":
+					options.rounds = Math.max(1, parseInt(value, options.rounds));
+					break;
+				case "digits":
+					options.digits = parseInt(value, options.digits);
+					break;
+				case "strategy":
+					try {
+						options.strategy = GuessStrategy.Mode.valueOf(value.toUpperCase());
+					} catch (IllegalArgumentException e) {
+						System.err.printf("%s is not a valid strategy\n", value);
+					}
+					break;
+				case "ramp-ms":
+					options.rampMillis = Math.max(0, parseInt(value, options.rampMillis));
+					break;
+				case "think-ms":
+					options.thinkMillis = Math.max(0, parseInt(value, options.thinkMillis));
+					break;
+				case "timeout-s":
+					options.timeoutSeconds = Math.max(1, parseInt(value, options.timeoutSeconds));
+					break;
+				case "seed":
+					try {
+						options.seed = Long.parseLong(value);
+					} catch (NumberFormatException e) {
+						System.err.printf("%s is not a valid number\n", value);
+					}
+					break;
+				default:
+					System.err.printf("%s is not a valid option\n", arg);
+					break;
+			}
+		}
+
+		return options;
+	}
+
+	/**
+	 * Helper method that parses a number. If value is not a number,
+	 * the default value is returned.
+	 *
+	 * @param value
+	 * @param defaultValue
+	 * @return
+	 */
+	private static int parseInt(String value, int defaultValue) {
+		try {
+			return Integer.parseInt(value.trim());
+		}
+		catch (NumberFormatException e) {
+			System.err.printf("%s is not a valid number\n", value);
+			return defaultValue;
+		}
+	}
+
+
+	public String getHost() {
+		return host;
+	}
+
+	public int getPort() {
+		return port;
+	}
+
+	public int getClients() {
+		return clients;
+	}
+
+	public int getRounds() {
+		return rounds;
+	}
+
+	public int getDigits() {
+		return digits;
+	}
+
+	public GuessStrategy.Mode getStrategy() {
+		return strategy;
+	}
+
+	public int getRampMillis() {
+		return rampMillis;
+	}
+
+	public int getThinkMillis() {
+		return thinkMillis;
+	}
+
+	public int getTimeoutSeconds() {
+		return timeoutSeconds;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+}
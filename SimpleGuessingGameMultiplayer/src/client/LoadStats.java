@@ -0,0 +1,124 @@
+package client;
+
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import metrics.Histogram;
+
+/**
+ * Latencies and counters collected by the players of the {@link LoadGenerator}. Thread safe.
+ *
+ * @author user
+ *
+ */
+public class LoadStats {
+
+	/**
+	 * Measured steps of the game
+	 */
+	public enum Step {
+		/**
+		 * Connecting until the first prompt (enter your name)
+		 */
+		CONNECT("connect -> first prompt"),
+
+		/**
+		 * Any reply of the player until the first message of the server
+		 */
+		REPLY("reply -> first response"),
+
+		/**
+		 * Incorrect guess until the score and the next guess prompt
+		 */
+		GUESS("guess -> score"),
+
+		/**
+		 * Choosing to continue until the first guess prompt of the next round.
+		 * Includes waiting for the other players
+		 */
+		NEXT_ROUND("round end -> next round");
+
+		private final String description;
+
+		Step(String description) {
+			this.description = description;
+		}
+
+		public String getDescription() {
+			return description;
+		}
+	}
+
+	private final Map<Step, Histogram> latencies = new EnumMap<>(Step.class);
+
+	final AtomicLong connected = new AtomicLong();
+	final AtomicLong finished = new AtomicLong();
+	final AtomicLong failed = new AtomicLong();
+	final AtomicLong responses = new AtomicLong();
+	final AtomicLong guesses = new AtomicLong();
+	final AtomicLong rounds = new AtomicLong();
+	final AtomicLong wins = new AtomicLong();
+
+
+	public LoadStats() {
+		for (Step step : Step.values()) {
+			latencies.put(step, new Histogram());
+		}
+	}
+
+	/**
+	 * Records the latency of a step
+	 *
+	 * @param step
+	 * @param nanos
+	 */
+	public void record(Step step, long nanos) {
+		latencies.get(step).record(nanos / 1000);
+	}
+
+	public Histogram getLatency(Step step) {
+		return latencies.get(step);
+	}
+
+
+	/**
+	 * Prints a 1 line summary, used while the test is running
+	 *
+	 * @param out
+	 * @param elapsedSeconds
+	 */
+	public void printProgress(PrintStream out, double elapsedSeconds) {
+		out.printf("[%6.1fs] connected: %d, finished: %d, failed: %d, guesses: %d, rounds: %d\n",
+			elapsedSeconds, connected.get(), finished.get(), failed.get(), guesses.get(), rounds.get());
+	}
+
+	/**
+	 * Prints the throughput and the latency percentiles of each step
+	 *
+	 * @param out
+	 * @param elapsedSeconds
+	 */
+	public void printReport(PrintStream out, double elapsedSeconds) {
+		out.println();
+		out.printf("Players: %d finished, %d failed in %.1f s\n", finished.get(), failed.get(), elapsedSeconds);
+		out.printf("Throughput: %.1f guesses/s, %.1f responses/s, %.1f rounds/s (%d rounds won)\n",
+			guesses.get() / elapsedSeconds, responses.get() / elapsedSeconds, rounds.get() / elapsedSeconds, wins.get());
+		out.println();
+
+		out.printf("%-26s %9s %10s %10s %10s %10s %10s\n", "Latency (ms)", "count", "mean", "p50", "p99", "p999", "max");
+		for (Step step : Step.values()) {
+			Histogram histogram = latencies.get(step);
+			out.printf("%-26s %9d %10.2f %10.2f %10.2f %10.2f %10.2f\n",
+				step.getDescription(),
+				histogram.getCount(),
+				histogram.getMean() / 1000,
+				histogram.getPercentile(0.50) / 1000.0,
+				histogram.getPercentile(0.99) / 1000.0,
+				histogram.getPercentile(0.999) / 1000.0,
+				histogram.getMax() / 1000.0
+			);
+		}
+	}
+}
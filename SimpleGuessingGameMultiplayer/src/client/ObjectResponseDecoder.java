@@ -0,0 +1,45 @@
+package client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+
+import server.Response;
+
+/**
+ * Legacy protocol. Reads serialized {@link Response} objects sent by the server.
+ *
+ * @author user
+ *
+ */
+public class ObjectResponseDecoder implements ResponseDecoder {
+
+	private ObjectInputStream stream;
+
+	/**
+	 * This will read the serialization stream header
+	 *
+	 * @param in
+	 * @throws IOException
+	 */
+	public ObjectResponseDecoder(InputStream in) throws IOException {
+		this.stream = new ObjectInputStream(in);
+	}
+
+	@Override
+	public Response read() throws IOException {
+		try {
+			return (Response) stream.readObject();
+		}
+		// Most likely will throw this exception in case you only compiled the client
+		// Remember, compile the whole project
+		catch (ClassNotFoundException e) {
+			throw new IOException("The command data sent by the server cannot be read by this client. " + e.getMessage(), e);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		stream.close();
+	}
+}
@@ -0,0 +1,62 @@
+package client;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+import server.BinaryProtocol;
+import server.Response;
+
+/**
+ * Reads the messages sent by the server. Each message is returned as a {@link Response}
+ * so the client can print it, read a line or quit.
+ *
+ * <p>Use open() to create the decoder of the protocol the server uses.
+ *
+ * @author user
+ *
+ */
+public interface ResponseDecoder {
+
+	/**
+	 * Reads the next message. Blocks until the message has arrived.
+	 *
+	 * @return
+	 * @throws IOException
+	 * @throws EOFException If the server has closed the connection
+	 */
+	Response read() throws IOException;
+
+	void close() throws IOException;
+
+
+	/**
+	 * Creates the decoder of the protocol the server uses. The protocol is detected
+	 * using the first bytes the server sends:<ul>
+	 * <li>{@link BinaryProtocol#SERIALIZATION_MAGIC} - serialized Response objects</li>
+	 * <li>{@link BinaryProtocol#MAGIC} - binary frames</li>
+	 * </ul>
+	 *
+	 * @param in
+	 * @return
+	 * @throws IOException
+	 */
+	static ResponseDecoder open(InputStream in) throws IOException {
+		BufferedInputStream buffered = new BufferedInputStream(in);
+		buffered.mark(2);
+
+		int first = buffered.read();
+		int second = buffered.read();
+		if (first < 0 || second < 0) {
+			throw new EOFException("Server closed the connection");
+		}
+
+		buffered.reset();
+		if (((first << 8) | second) == BinaryProtocol.SERIALIZATION_MAGIC) {
+			return new ObjectResponseDecoder(buffered);
+		}
+
+		return new BinaryResponseDecoder(buffered);
+	}
+}
@@ -0,0 +1,226 @@
+package client;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import client.LoadStats.Step;
+import server.Response;
+
+/**
+ * Headless player used by the {@link LoadGenerator}. Connects to the server and
+ * answers the prompts like a person would, without a console.
+ *
+ * <ul>
+ * <li>Enter your name - sends a unique name</li>
+ * <li>Enter number of digits - sends the configured number of digits</li>
+ * <li>Enter your guess - sends a guess from its {@link GuessStrategy}</li>
+ * <li>Press (p) to continue - continues until it has played the configured rounds, then quits</li>
+ * </ul>
+ *
+ * <p>The time between each reply and the responses of the server is recorded in {@link LoadStats}.
+ * Works with the single player and the multiplayer server, and both protocols.
+ *
+ * @author user
+ *
+ */
+public class ScriptedPlayer implements Runnable {
+
+	private static final String NAME_PROMPT = "Enter your name";
+	private static final String DIGITS_PROMPT = "Enter number of digits";
+	private static final String GUESS_PROMPT = "Enter your guess";
+	private static final String CONTINUE_PROMPT = "Press (p)";
+	private static final String SCORE = "Correct: ";
+	private static final String WIN = "YOU WIN";
+
+	private final int id;
+	private final LoadOptions options;
+	private final LoadStats stats;
+	private final GuessStrategy strategy;
+
+	private OutputStream out;
+
+	// when the last reply / guess / continue was sent, 0 if not waiting for it
+	private long replySentAt = 0;
+	private long guessSentAt = 0;
+	private long continueSentAt = 0;
+
+	private int roundsPlayed = 0;
+	private boolean quitting = false;
+
+
+	/**
+	 * @param id Used for the player name
+	 * @param options
+	 * @param stats
+	 */
+	public ScriptedPlayer(int id, LoadOptions options, LoadStats stats) {
+		this.id = id;
+		this.options = options;
+		this.stats = stats;
+		this.strategy = new GuessStrategy(options.getStrategy(), new Random(options.getSeed() + id));
+		this.strategy.reset(options.getDigits());
+	}
+
+
+	@Override
+	public void run() {
+		long connectStartedAt = System.nanoTime();
+
+		try (Socket socket = new Socket()) {
+			socket.connect(new InetSocketAddress(options.getHost(), options.getPort()), options.getTimeoutSeconds() * 1000);
+			socket.setSoTimeout(options.getTimeoutSeconds() * 1000);
+			socket.setTcpNoDelay(true);
+			stats.connected.incrementAndGet();
+
+			out = socket.getOutputStream();
+			ResponseDecoder decoder = ResponseDecoder.open(socket.getInputStream());
+			stats.record(Step.CONNECT, System.nanoTime() - connectStartedAt);
+
+			play(decoder);
+			stats.finished.incrementAndGet();
+		}
+		catch (IOException e) {
+			stats.failed.incrementAndGet();
+			System.err.printf("Player %d: %s\n", id, e.getMessage());
+		}
+		catch (InterruptedException e) {
+			stats.failed.incrementAndGet();
+			Thread.currentThread().interrupt();
+		}
+	}
+
+
+	/**
+	 * Helper method that reads the responses until the server quits
+	 *
+	 * @param decoder
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	private void play(ResponseDecoder decoder) throws IOException, InterruptedException {
+		while (true) {
+			Response response;
+			try {
+				response = decoder.read();
+			}
+			// the server may just close the connection after we quit
+			catch (EOFException e) {
+				if (quitting) {
+					return;
+				}
+				throw new EOFException("Server closed the connection");
+			}
+
+			long now = System.nanoTime();
+			stats.responses.incrementAndGet();
+
+			if (replySentAt != 0) {
+				stats.record(Step.REPLY, now - replySentAt);
+				replySentAt = 0;
+			}
+
+			switch (response.getType()) {
+				case Response.QUIT:
+					return;
+
+				case Response.READLINE:
+					onPrompt(response.getMessage(), now);
+					break;
+
+				default:
+					onMessage(response.getMessage());
+					break;
+			}
+		}
+	}
+
+	private void onMessage(String message) {
+		if (message.startsWith(WIN)) {
+			stats.wins.incrementAndGet();
+			return;
+		}
+
+		int index = message.indexOf(SCORE);
+		if (index < 0) {
+			return;
+		}
+
+		// "INCORRECT GUESS. Correct: 1, Incorrect: 2"
+		try {
+			String[] parts = message.substring(index + SCORE.length()).split(",");
+			int correct = Integer.parseInt(parts[0].trim());
+			int incorrect = Integer.parseInt(parts[1].replace("Incorrect:", "").trim());
+			strategy.onScore(correct, incorrect);
+		}
+		catch (RuntimeException e) {
+			// not a score after all
+		}
+	}
+
+	private void onPrompt(String prompt, long now) throws IOException, InterruptedException {
+		if (prompt.startsWith(GUESS_PROMPT)) {
+			if (guessSentAt != 0) {
+				stats.record(Step.GUESS, now - guessSentAt);
+			}
+			if (continueSentAt != 0) {
+				stats.record(Step.NEXT_ROUND, now - continueSentAt);
+				continueSentAt = 0;
+			}
+
+			send(strategy.next());
+			guessSentAt = System.nanoTime();
+			stats.guesses.incrementAndGet();
+			return;
+		}
+
+		// the last guess ended the round for this player
+		guessSentAt = 0;
+
+		if (prompt.startsWith(NAME_PROMPT)) {
+			send("load-" + id);
+		}
+		else if (prompt.startsWith(DIGITS_PROMPT)) {
+			send(Integer.toString(options.getDigits()));
+		}
+		else if (prompt.startsWith(CONTINUE_PROMPT)) {
+			roundsPlayed++;
+			stats.rounds.incrementAndGet();
+			strategy.reset(options.getDigits());
+
+			if (roundsPlayed < options.getRounds()) {
+				send("p");
+				continueSentAt = System.nanoTime();
+			} else {
+				quitting = true;
+				send("q");
+			}
+		}
+		// a prompt this player does not know, leave
+		else {
+			quitting = true;
+			send("q");
+		}
+	}
+
+	/**
+	 * Helper method that sends a line to the server, after the think time
+	 *
+	 * @param line
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	private void send(String line) throws IOException, InterruptedException {
+		if (options.getThinkMillis() > 0) {
+			Thread.sleep(options.getThinkMillis());
+		}
+
+		out.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+		out.flush();
+		replySentAt = System.nanoTime();
+	}
+}
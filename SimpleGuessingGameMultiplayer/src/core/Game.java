@@ -2,6 +2,7 @@ package core;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Game class represents the state of the whole game. Game is played via 
@@ -23,14 +24,31 @@ public class Game {
 	private GameRound currentRound;
 	
 	/**
-	 * Many players per game
+	 * Many players per game. Players are read by all sessions of the room without locking
 	 */
-	private List<Player> players = new ArrayList<>();
+	private final PlayerRegistry players = new PlayerRegistry();
 
 	private int numDigits = 0;
 	
+	/**
+	 * Players wait for each other using the coordinator
+	 */
+	private final RoundCoordinator coordinator = new RoundCoordinator();
+	
+	/**
+	 * Creates the secret codes of the rounds
+	 */
+	private final SecretCodeGenerator codeGenerator;
+	
 	public Game() {
-		
+		this(new ShuffleCodeGenerator());
+	}
+	
+	/**
+	 * @param codeGenerator Creates the secret codes of the rounds. Can be shared by many games
+	 */
+	public Game(SecretCodeGenerator codeGenerator) {
+		this.codeGenerator = codeGenerator;
 	}
 	
 	public void start() {
@@ -48,28 +66,38 @@ public class Game {
 	 */
 	public synchronized void setNumDigits(int numDigits) {
 		this.numDigits = numDigits;
+		
+		if (isNumDigitsValid(numDigits)) {
+			coordinator.onDigitsChosen();
+		}
 	}
 	
 	/**
-	 * Helper method that generates a new secret code.
+	 * Helper method that checks if number of digits is between {@link #MIN_DIGITS} and {@link #MAX_DIGITS}
+	 * @param numDigits
+	 * @return
+	 */
+	private static boolean isNumDigitsValid(int numDigits) {
+		return numDigits >= MIN_DIGITS && numDigits <= MAX_DIGITS;
+	}
+	
+	/**
+	 * Gets the coordinator that players use to wait for each other
+	 * @return
+	 */
+	public RoundCoordinator getCoordinator() {
+		return coordinator;
+	}
+	
+	/**
+	 * Helper method that generates a new secret code using the {@link SecretCodeGenerator} of this game.
 	 * <p>A secret code can have digits from 0-9 with no duplicates.
 	 * 
 	 * @param numDigits Length of the secret code
 	 * @return
 	 */
 	public String createSecretCode(int numDigits) {
-		StringBuilder secretCode = new StringBuilder();
-		while (secretCode.length() < numDigits) {
-			int digit = getRandomNum(0, 9);
-			String digitString = Integer.toString(digit);
-			
-			int index = secretCode.indexOf(digitString);
-			if (index < 0) {
-				secretCode.append(digitString);
-			}
-		}
-		
-		return secretCode.toString();
+		return codeGenerator.generate(numDigits);
 	}
 	
 	
@@ -81,7 +109,7 @@ public class Game {
 	 * @return
 	 */
 	public int getRandomNum(int min, int max) {
-		return min + (int)(Math.random() * (max - min + 1));
+		return ThreadLocalRandom.current().nextInt(min, max + 1);
 	}
 	
 	/**
@@ -99,7 +127,16 @@ public class Game {
 	 * Sets the current player to null
 	 */
 	public void removePlayer(Player player) {
-		players.remove(player);
+		int numPlayers;
+		synchronized (this) {
+			if (! players.remove(player)) {
+				return;
+			}
+			numPlayers = players.size();
+		}
+		
+		// the others no longer have to wait for this player
+		coordinator.onPlayerLeft(player, numPlayers, isNumDigitsValid(getNumDigits()));
 	}
 	
 	
@@ -115,7 +152,9 @@ public class Game {
 			throw new Exception("Current round has not yet ended");
 		}
 		
-		if (players.size() == 0) {
+		// players can join and leave while the round is created
+		List<Player> snapshot = players.getPlayers();
+		if (snapshot.size() == 0) {
 			throw new Exception("There are currently no players available");
 		}
 		
@@ -127,13 +166,13 @@ public class Game {
 		currentRound = new GameRound(secretCode);
 		
 		// add players
-		for (Player p : players) {
+		for (Player p : snapshot) {
 			p.resetGuesses();
 			currentRound.addPlayer(p);
 		}
 		
 		rounds.add(currentRound);
-		
+		coordinator.onRoundStarted(currentRound);
 		
 		return getCurrentRound();
 	}
@@ -147,20 +186,59 @@ public class Game {
 	 * @throws Exception If player is already set
 	 */
 	public synchronized Player signUpPlayer(String playerName) throws Exception {
-		if (getPlayers().size() == MAX_PLAYERS) {
+		Player player = players.add(playerName, MAX_PLAYERS);
+		if (player == null) {
 			throw new Exception("Cannot add more than " + MAX_PLAYERS + " players");
 		}
 		
-		Player player = new Player(playerName);
-		players.add(player);
+		coordinator.onPlayerJoined(players.size());
 		
 		return player;
 	}
 	
 	
-	// get players in current round
+	/**
+	 * Gets the players of the game in the order they joined. 
+	 * The list is a snapshot, it can be iterated while players join or leave
+	 * 
+	 * @return
+	 */
 	public List<Player> getPlayers() {
-		return players;
+		return players.getPlayers();
+	}
+	
+	/**
+	 * Gets the number of players without copying the players
+	 * @return
+	 */
+	public int getNumPlayers() {
+		return players.size();
+	}
+	
+	/**
+	 * Gets the player that joined first
+	 * @return null if there are no players
+	 */
+	public Player getFirstPlayer() {
+		return players.first();
+	}
+	
+	/**
+	 * Gets the player with the id
+	 * @param id
+	 * @return null if the player is not in this game
+	 */
+	public Player getPlayer(int id) {
+		return players.get(id);
+	}
+	
+	/**
+	 * Gets the player with the name. If several players have the same name, the one that joined first
+	 * @param name
+	 * @return null if there is no such player
+	 */
+	public Player findPlayer(String name) {
+		return players.findByName(name);
 	}
 	
 }
@@ -1,16 +1,16 @@
 package core;
 
 import java.io.IOException;
-import java.io.ObjectOutputStream;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
 
 import server.Response;
-import server.ServerCallback;
-import server.ServerProcess;
+import server.ResponseEncoder;
+import server.RoomBroadcast;
+import server.RoundSummary;
+import server.Score;
 
 
 /**
@@ -18,9 +18,12 @@ import server.ServerProcess;
  * Instance of this class should not be shared on multiple clients.
  * <p>The class has following functionalities:<ul>
  * <li>Displays secret code in server console</li>
- * <li>Sends responses to the client. Response are objects of type server.Responses and serialized.</li>
+ * <li>Sends responses to the client using a {@link ResponseEncoder} 
+ * (serialized server.Response objects or binary frames).</li>
  * <li>Sends a QUIT command to the client.</li>
  * </ul>
+ * <p>If the players of the room share a {@link RoomBroadcast}, the round summary is built 
+ * and encoded once for all of them.
  * 
  * @author user
  *
@@ -29,12 +32,26 @@ public class GameCallbackImpl implements GameCallback {
 	
 	/**
 	 * Instead of stream of string objects, We will send instances 
-	 * of {@link Response} to the client via this stream
+	 * of {@link Response} (and scores, round summaries) to the client via this encoder
 	 */
-	private ObjectOutputStream stream;
+	private ResponseEncoder encoder;
 	
-	public GameCallbackImpl(ObjectOutputStream stream) {
-		this.stream = stream;
+	/**
+	 * Shared by the players of the room. Can be null
+	 */
+	private RoomBroadcast broadcast;
+	
+	public GameCallbackImpl(ResponseEncoder encoder) {
+		this(encoder, null);
+	}
+	
+	/**
+	 * @param encoder
+	 * @param broadcast Messages shared by the players of the room, eg. the round summary
+	 */
+	public GameCallbackImpl(ResponseEncoder encoder, RoomBroadcast broadcast) {
+		this.encoder = encoder;
+		this.broadcast = broadcast;
 	}
 	
 	/**
@@ -52,7 +69,7 @@ public class GameCallbackImpl implements GameCallback {
 	 */
 	private void respond(String message, int responseType) {
 		try {
-			stream.writeObject(new Response(message, responseType));
+			encoder.write(new Response(message, responseType));
 		} catch (IOException e) {
 			System.err.println("Sorry something went wrong while sending your message. " + e.getMessage());
 		}
@@ -121,10 +138,13 @@ public class GameCallbackImpl implements GameCallback {
 	 */
 	@Override
 	public void onIncorrectGuess(GameRound round, Player player, String guess) {
-		respond(String.format("INCORRECT GUESS. Correct: %s, Incorrect: %s\n", 
-			round.getNumCorrectPositions(guess),
-			round.getNumIncorrectPositions(guess)
-		));
+		int result = round.score(guess);
+		Score score = new Score(GuessScorer.getNumCorrect(result), GuessScorer.getNumIncorrect(result));
+		try {
+			encoder.writeScore(score);
+		} catch (IOException e) {
+			System.err.println("Sorry something went wrong while sending your message. " + e.getMessage());
+		}
 	}
 	
 	/**
@@ -151,8 +171,25 @@ public class GameCallbackImpl implements GameCallback {
 	 */
 	@Override
 	public void onRoundEnded(Game game, GameRound round) {
-		String response = "----------------ROUND ENDED----------------\n";
-		
+		// the client prints the winners, the losers and the players forfeited
+		try {
+			if (broadcast != null) {
+				encoder.writeShared(broadcast.getRoundSummary(round, () -> summarize(round)));
+			} else {
+				encoder.writeRoundSummary(summarize(round));
+			}
+		} catch (IOException e) {
+			System.err.println("Sorry something went wrong while sending your message. " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * Helper method that builds the summary of the round
+	 * 
+	 * @param round
+	 * @return
+	 */
+	private RoundSummary summarize(GameRound round) {
 		// Use new reference of winners collection using functional programming (lambdas)
 		// using a new reference, we can sort winners 
 		// without the ConcurrentModificationException 
@@ -165,39 +202,22 @@ public class GameCallbackImpl implements GameCallback {
 			}
 		});
 		
-		// winners
-		response += "WINNERS: \n";
-		if (round.getWinners().size() > 0) {
-			for (int i = 0; i < winners.size(); i++) {
-				response += String.format(" %d. %s (%d guesses)\n", i + 1,  winners.get(i).getName(), winners.get(i).getNumGuesses());
-			}
-		} else {
-			response = response.concat(" * There are no winners for this round *\n");
+		List<RoundSummary.Winner> winnerNames = new ArrayList<>();
+		for (Player winner : winners) {
+			winnerNames.add(new RoundSummary.Winner(winner.getName(), winner.getNumGuesses()));
 		}
 		
-		// losers
-		response += "LOSERS: \n";
-		if (round.getLosers().size() > 0) {
-			for (Player player : round.getLosers()) {
-				response += String.format(" - %s\n", player.getName());
-			}
-		} else {
-			response += " * There are no losers for this round *\n";
+		List<String> loserNames = new ArrayList<>();
+		for (Player player : round.getLosers()) {
+			loserNames.add(player.getName());
 		}
 		
-		// forfeiters
-		response += "FORFEITED: \n";
-		if (round.getForfeiters().size() > 0) {
-			for (Player player : round.getForfeiters()) {
-				response += String.format("- %s\n", player.getName());
-			}
-		} else {
-			response += " * There are no players forfeited for this round *";
+		List<String> forfeiterNames = new ArrayList<>();
+		for (Player player : round.getForfeiters()) {
+			forfeiterNames.add(player.getName());
 		}
 		
-		response += "\n";
-		
-		respond(response);
+		return new RoundSummary(winnerNames, loserNames, forfeiterNames);
 	}
 
 	/**
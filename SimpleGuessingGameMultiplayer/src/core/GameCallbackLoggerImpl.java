@@ -14,11 +14,16 @@ import java.util.stream.Collectors;
  * event methods will have its corresponding private method. The 
  * corresponding private methods will have upper case letters. 
  * 
+ * <p>The name of the private method is passed to the logger as the source method (see log()),
+ * so the logger does not have to look it up from the stack trace.
+ * 
  * @author user
  *
  */
 public class GameCallbackLoggerImpl implements GameCallback {
 	
+	private static final String CLASS_NAME = GameCallbackLoggerImpl.class.getName();
+	
 	private Logger logger;
 	
 	/**
@@ -38,8 +43,7 @@ public class GameCallbackLoggerImpl implements GameCallback {
 		GAME_STARTED("Game started");
 	}
 	private void GAME_STARTED(String message) {
-		System.out.println("GAME STARTED - " + message);
-		logger.log(Level.INFO, message);
+		log("GAME_STARTED", message);
 	}
 
 
@@ -51,8 +55,7 @@ public class GameCallbackLoggerImpl implements GameCallback {
 		SECRET_CODE_GENERATED("Generated secret code is " + secretCode);
 	}
 	private void SECRET_CODE_GENERATED(String message) {
-		System.out.println("SECRET CODE GENERATED - " + message);
-		logger.log(Level.INFO, message);
+		log("SECRET_CODE_GENERATED", message);
 	}
 
 
@@ -70,8 +73,7 @@ public class GameCallbackLoggerImpl implements GameCallback {
 		ROUND_STARTED(response);
 	}
 	private void ROUND_STARTED(String message) {
-		System.out.println("ROUND STARTED - " + message);
-		logger.log(Level.INFO, message);
+		log("ROUND_STARTED", message);
 	}
 
 
@@ -83,8 +85,7 @@ public class GameCallbackLoggerImpl implements GameCallback {
 		PLAYER_SIGNED_UP(String.format("Player %s signed up.\n", player.getName()));
 	}
 	private void PLAYER_SIGNED_UP(String message) {
-		System.out.println("PLAYER SIGNED UP - " + message);
-		logger.log(Level.INFO, message);
+		log("PLAYER_SIGNED_UP", message);
 	}
 	
 
@@ -96,8 +97,7 @@ public class GameCallbackLoggerImpl implements GameCallback {
 		GUESS_ADDED(String.format("Player %s guessed %s\n", player.getName(), guess));
 	}
 	private void GUESS_ADDED(String message) {
-		System.out.println("GUESS ADDED - " +  message);
-		logger.log(Level.INFO, message);
+		log("GUESS_ADDED", message);
 	}
 
 
@@ -106,15 +106,15 @@ public class GameCallbackLoggerImpl implements GameCallback {
 	 */
 	@Override
 	public void onIncorrectGuess(GameRound round, Player player, String guess) {
+		int score = round.score(guess);
 		INCORRECT_GUESS(String.format("Player %s guesses incorrectly\n. Correct: %s, Incorrect: %s\n", 
 			player.getName(),
-			round.getNumCorrectPositions(guess),
-			round.getNumIncorrectPositions(guess)
+			GuessScorer.getNumCorrect(score),
+			GuessScorer.getNumIncorrect(score)
 		));
 	}
 	private void INCORRECT_GUESS(String message) {
-		System.out.println("INCORRECT GUESS - " +  message);
-		logger.log(Level.INFO, message);
+		log("INCORRECT_GUESS", message);
 	}
 
 
@@ -126,8 +126,7 @@ public class GameCallbackLoggerImpl implements GameCallback {
 		PLAYER_WON(String.format("Player %s won with %d attempts\n", player.getName(), numOfGuesses));
 	}
 	private void PLAYER_WON(String message) {
-		System.out.println("PLAYER WON - " +  message);
-		logger.log(Level.INFO, message);
+		log("PLAYER_WON", message);
 	}
 
 
@@ -140,8 +139,7 @@ public class GameCallbackLoggerImpl implements GameCallback {
 			"Player %s lost the round. The secret code was %s\n", player.getName(), secretCode));
 	}
 	private void PLAYER_LOST(String message) {
-		System.out.println("PLAYER LOST - " +  message);
-		logger.log(Level.INFO, message);
+		log("PLAYER_LOST", message);
 	}
 
 
@@ -157,11 +155,13 @@ public class GameCallbackLoggerImpl implements GameCallback {
 		// using a new reference, we can sort winners 
 		// without the ConcurrentModificationException 
 		// when we sort the original reference
+		// Events may be logged after the next round has started (see QueuedGameCallback), 
+		// so the number of guesses comes from the round, not the player
 		List<Player> winners = round.getWinners().stream().filter(w -> w != null).collect(Collectors.toList());
 		winners.sort(new Comparator<Player>() {
 			@Override
 			public int compare(Player o1, Player o2) {
-				return o1.compareTo(o2);
+				return round.getNumAttempts(o1) - round.getNumAttempts(o2);
 			}
 		});
 		
@@ -169,7 +169,7 @@ public class GameCallbackLoggerImpl implements GameCallback {
 		response += "WINNERS: \n";
 		if (round.getWinners().size() > 0) {
 			for (int i = 0; i < winners.size(); i++) {
-				response += String.format(" %d. %s (%d guesses)\n", i + 1,  winners.get(i).getName(), winners.get(i).getNumGuesses());
+				response += String.format(" %d. %s (%d guesses)\n", i + 1,  winners.get(i).getName(), round.getNumAttempts(winners.get(i)));
 			}
 		} else {
 			response = response.concat(" * There are no winners for this round *\n");
@@ -201,8 +201,7 @@ public class GameCallbackLoggerImpl implements GameCallback {
 		ROUND_ENDED(response);
 	}
 	private void ROUND_ENDED(String message) {
-		System.out.println("ROUND ENDED - " +  message);
-		logger.log(Level.INFO, message);
+		log("ROUND_ENDED", message);
 	}
 	
 
@@ -215,8 +214,7 @@ public class GameCallbackLoggerImpl implements GameCallback {
 	}
 	
 	private void PLAYER_FORFEITED(String message) {
-		System.out.println("PLAYER FORFEITED - " +  message);
-		logger.log(Level.INFO, message);
+		log("PLAYER_FORFEITED", message);
 	}
 	
 
@@ -229,8 +227,18 @@ public class GameCallbackLoggerImpl implements GameCallback {
 	}
 	
 	private void PLAYER_QUITED(String message) {
-		System.out.println("PLAYER QUITED - " +  message);
-		logger.log(Level.INFO, message);
+		log("PLAYER_QUITED", message);
+	}
+	
+	
+	/**
+	 * Helper method that logs the event with the event name as the method name
+	 * 
+	 * @param event
+	 * @param message
+	 */
+	private void log(String event, String message) {
+		logger.logp(Level.INFO, CLASS_NAME, event, message);
 	}
 
 }
@@ -4,6 +4,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 import core.Player.PlayerStatus;
+import metrics.Counter;
+import metrics.Histogram;
+import metrics.MetricsRegistry;
 
 /**
  * Classes that bridges game object to all callbacks. 
@@ -16,6 +19,15 @@ import core.Player.PlayerStatus;
  */
 public class GameManager {
 	
+	// Shared by all game managers. See MetricsRegistry
+	private static final Counter GUESSES = MetricsRegistry.getDefault().counter("game_guesses_total", "Guesses added, including forfeits");
+	private static final Counter ROUNDS_STARTED = MetricsRegistry.getDefault().counter("game_rounds_started_total", "Rounds started");
+	private static final Counter ROUNDS_ENDED = MetricsRegistry.getDefault().counter("game_rounds_ended_total", "Rounds ended");
+	private static final Counter WINS = MetricsRegistry.getDefault().counter("game_wins_total", "Players that guessed the secret code");
+	private static final Counter LOSSES = MetricsRegistry.getDefault().counter("game_losses_total", "Players that ran out of attempts");
+	private static final Counter FORFEITS = MetricsRegistry.getDefault().counter("game_forfeits_total", "Players that forfeited");
+	private static final Histogram GUESS_LATENCY = MetricsRegistry.getDefault().latency("game_guess_seconds", "Time to add a guess, including the callbacks");
+	
 	// To bridge the game with the callbacks, you will need the game object and the callbacks
 	private Game game;
 	private List<GameCallback> cbs = new ArrayList<>();
@@ -84,7 +96,7 @@ public class GameManager {
 	 * @return
 	 */
 	public Player getFirstPlayer() {
-		return game.getPlayers().get(0);
+		return game.getFirstPlayer();
 	}
 	
 	
@@ -102,7 +114,7 @@ public class GameManager {
 	 * @return
 	 */
 	public int getNumPlayers() {
-		return game.getPlayers().size();
+		return game.getNumPlayers();
 	}
 	
 	
@@ -166,6 +178,7 @@ public class GameManager {
 		// first round
 		if (round == null) {
 			round = game.startNextRound();
+			ROUNDS_STARTED.increment();
 			final String secretCode = round.getSecretCode();
 			cbs.forEach(c -> c.onSecretCodeCreated(game, secretCode));
 		}
@@ -173,6 +186,7 @@ public class GameManager {
 		// previous round has ended
 		else if (round.hasEnded()) {
 			round = game.startNextRound();
+			ROUNDS_STARTED.increment();
 			final String nextSecretCode = round.getSecretCode();
 			cbs.forEach(c -> c.onSecretCodeCreated(game, nextSecretCode));
 		}
@@ -200,13 +214,28 @@ public class GameManager {
 	 * @param guess
 	 */
 	public void addGuess(String guess) {
-		GameRound round = game.getCurrentRound();
-		
+		long start = System.nanoTime();
+		try {
+			addGuess(game.getCurrentRound(), guess);
+		} finally {
+			GUESSES.increment();
+			GUESS_LATENCY.record(System.nanoTime() - start);
+		}
+	}
+	
+	/**
+	 * Helper method that adds the guess, see addGuess(String)
+	 * 
+	 * @param round
+	 * @param guess
+	 */
+	private void addGuess(GameRound round, String guess) {
 		// player forfeits
 		if (guess.trim().equals("f")) {
 			
 			round.forfeit(currentPlayer);
 			currentPlayer.setStatus(PlayerStatus.FORFEITED);
+			FORFEITS.increment();
 			
 			cbs.forEach(c -> c.onPlayerForfeited(game, round, currentPlayer));
 			checkRoundEnded(round);
@@ -225,11 +254,13 @@ public class GameManager {
 		
 		if (playerWins()) {
 			currentPlayer.setStatus(PlayerStatus.WON);
+			WINS.increment();
 			cbs.forEach(c -> c.onPlayerWon(round, currentPlayer, currentPlayer.getNumGuesses()));
 		}
 		
 		if (playerLoses()){
 			currentPlayer.setStatus(PlayerStatus.LOST);
+			LOSSES.increment();
 			cbs.forEach(c -> c.onPlayerLost(round, currentPlayer, round.getSecretCode()));
 		}
 		
@@ -237,25 +268,14 @@ public class GameManager {
 	}
 	
 	/**
-	 * Helper method that checks if the current round needs to be ended
+	 * Helper method that checks if the current round needs to be ended. 
+	 * The round counts the players still playing, so this does not go through the players
 	 * 
 	 * @param round
 	 */
 	private void checkRoundEnded(GameRound round) {
-		boolean ended = true;
-		for (Player player : round.getPlayers()) {
-			if (player.hasWon(round) || player.hasLost(round)) {
-				continue;
-			}
-			
-			if (player.getNumGuesses() < GameRound.MAX_ATTEMPTS) {
-				ended = false;
-				break;
-			}
-		}
-		
-		if (ended) {
-			round.end();
+		if (round.isAllPlayersFinished() && round.end()) {
+			ROUNDS_ENDED.increment();
 		}
 	}
 	
@@ -265,8 +285,8 @@ public class GameManager {
 	 */
 	public void endCurrentRound() {
 		GameRound round = game.getCurrentRound();
-		if (! round.hasEnded()) {
-			round.end();
+		if (round.end()) {
+			ROUNDS_ENDED.increment();
 		}
 		
 		for (GameCallback c : cbs) {
@@ -291,7 +311,18 @@ public class GameManager {
 		return currentPlayer.hasLost(game.getCurrentRound());
 	}
 	
+	/**
+	 * Removes the current player from the game. If the player drops in the middle
+	 * of the round, the player forfeits so the others do not wait for the player forever.
+	 */
 	public void removeCurrentPlayer() {
+		GameRound round = game.getCurrentRound();
+		if (round != null && ! round.hasEnded() && round.hasPlayer(currentPlayer)
+				&& ! currentPlayer.hasWon(round) && ! currentPlayer.hasLost(round) && ! round.hasForfeited(currentPlayer)) {
+			round.forfeit(currentPlayer);
+			checkRoundEnded(round);
+		}
+		
 		game.removePlayer(currentPlayer);
 	}
 	
@@ -350,6 +381,7 @@ public class GameManager {
 	 */
 	public void chooseToContinue() {
 		currentPlayer.setStatus(PlayerStatus.CHOSEN_TO_CONTINUE);
+		game.getCoordinator().onPlayerChosen(currentPlayer);
 	}
 	
 	/**
@@ -381,9 +413,10 @@ public class GameManager {
 		
 		// if player is not in current round, join player
 		GameRound round = game.getCurrentRound();
-		if (! round.getPlayers().contains(currentPlayer)) {
+		if (! round.hasPlayer(currentPlayer)) {
 			currentPlayer.resetGuesses();
 			game.getCurrentRound().addPlayer(currentPlayer);
+			game.getCoordinator().onPlayerJoinedRound(currentPlayer);
 		}
 		
 	}
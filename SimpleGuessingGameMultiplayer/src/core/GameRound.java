@@ -1,15 +1,29 @@
 package core;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
-
-import core.Player.PlayerStatus;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Class that represents the game round. One game can have many rounds. 
  * 
+ * <p>Each player of the round gets a slot, in the order the players were added. 
+ * The outcome of a player (won, lost, forfeited) is kept as bits in the slot, 
+ * so checking or changing the outcome of a player does not search any list. 
+ * The winners, losers and forfeiters are also kept in the order they got their outcome,
+ * for the round summary.
+ * 
+ * <p>The round also counts the players that are still playing (no outcome yet). 
+ * When the count reaches 0, every player has finished and the round can end, 
+ * see isAllPlayersFinished().
+ * 
  * @author user
  *
  */
@@ -22,11 +36,29 @@ public class GameRound {
 	 */
 	private String secretCode;
 	
+	/**
+	 * Scores the guesses against the secret code
+	 */
+	private final GuessScorer scorer;
+	
+	
+	// outcome bits of a slot. A forfeiter also becomes a loser when the round ends
+	private static final byte WON = 1;
+	private static final byte LOST = 2;
+	private static final byte FORFEITED = 4;
 	
 	/**
-	 * For this round there will be multiple players
+	 * For this round there will be multiple players. 
+	 * Players rarely join, and callbacks may go through the players on other threads
 	 */
-	List<Player> players = new ArrayList<>();
+	List<Player> players = new CopyOnWriteArrayList<>();
+	
+	// slot of each player, the index in players
+	private final Map<Player, Integer> slots = new IdentityHashMap<>();
+	private byte[] outcomes = new byte[Game.MAX_PLAYERS];
+	
+	// number of guesses of each slot when the player got its first outcome
+	private int[] attempts = new int[Game.MAX_PLAYERS];
 	
 	List<Player> winners = new ArrayList<>();
 	List<Player> losers = new ArrayList<>();
@@ -34,11 +66,20 @@ public class GameRound {
 	
 	List<String> guesses = new ArrayList<>();
 	
-	private boolean hasEnded = false;
+	// players added that have not won, lost or forfeited yet
+	private final AtomicInteger playing = new AtomicInteger();
+	
+	private final AtomicBoolean hasEnded = new AtomicBoolean(false);
+	
+	/**
+	 * Completed when this round ends. Players that have finished wait for this
+	 */
+	private final CompletableFuture<GameRound> ended = new CompletableFuture<>();
 	
 	
 	public GameRound(String secretCode) {
 		this.secretCode = secretCode;
+		this.scorer = new GuessScorer(secretCode);
 	}
 	
 	/**
@@ -50,7 +91,27 @@ public class GameRound {
 	 */
 	public void addPlayer(Player player) {
 		player.clearAllGuesses();
+		if (slots.containsKey(player)) {
+			return;
+		}
+		
+		int slot = players.size();
+		if (slot == outcomes.length) {
+			outcomes = Arrays.copyOf(outcomes, slot * 2);
+			attempts = Arrays.copyOf(attempts, slot * 2);
+		}
+		slots.put(player, slot);
 		players.add(player);
+		playing.incrementAndGet();
+	}
+	
+	/**
+	 * Checks if the player was added to this round
+	 * @param player
+	 * @return
+	 */
+	public boolean hasPlayer(Player player) {
+		return slots.containsKey(player);
 	}
 	
 	/**
@@ -105,7 +166,7 @@ public class GameRound {
 		}
 		
 		// add guess
-		if (players.contains(player) && player.getNumGuesses() < MAX_ATTEMPTS) {
+		if (hasPlayer(player) && player.getNumGuesses() < MAX_ATTEMPTS) {
 			player.addGuess(guess);
 			guesses.add(guess);
 			//callbacks.forEach(c -> c.onGuessAdded(this, player, guess));
@@ -135,7 +196,9 @@ public class GameRound {
 		// - player is registered in this round
 		// - player has not yet won
 		// - player has not yet lost
-		if (players.contains(player) && winners.contains(player) == false && losers.contains(player) == false) {
+		Integer slot = slots.get(player);
+		if (slot != null && (outcomes[slot] & (WON | LOST)) == 0) {
+			setOutcome(slot, WON);
 			winners.add(player);
 		}
 	}
@@ -149,7 +212,9 @@ public class GameRound {
 		// - player is registered in this round
 		// - player has not yet won
 		// - player has not yet lost
-		if (players.contains(player) && losers.contains(player) == false && losers.contains(player) == false) {
+		Integer slot = slots.get(player);
+		if (slot != null && (outcomes[slot] & (WON | LOST)) == 0) {
+			setOutcome(slot, LOST);
 			losers.add(player);
 		}
 	}
@@ -161,7 +226,7 @@ public class GameRound {
 	 * @return
 	 */
 	public boolean hasWinner(Player player) {
-		return winners.contains(player);
+		return hasOutcome(player, WON);
 	}
 	
 	
@@ -171,7 +236,7 @@ public class GameRound {
 	 * @return
 	 */
 	public boolean hasLoser(Player player) {
-		return losers.contains(player);
+		return hasOutcome(player, LOST);
 	}
 	
 	
@@ -205,7 +270,9 @@ public class GameRound {
 	 * @param player
 	 */
 	private void addForfeiter(Player player) {
-		if (players.contains(player) && !losers.contains(player) && !winners.contains(player)) {
+		Integer slot = slots.get(player);
+		if (slot != null && (outcomes[slot] & (WON | LOST | FORFEITED)) == 0) {
+			setOutcome(slot, FORFEITED);
 			forfeited.add(player);
 		}
 	}
@@ -217,7 +284,64 @@ public class GameRound {
 	 * @return
 	 */
 	public boolean hasForfeited(Player player) {
-		return forfeited.contains(player);
+		return hasOutcome(player, FORFEITED);
+	}
+	
+	/**
+	 * Helper method that checks the outcome bit of the player
+	 * 
+	 * @param player
+	 * @param outcome
+	 * @return false if the player is not in this round
+	 */
+	private boolean hasOutcome(Player player, byte outcome) {
+		Integer slot = slots.get(player);
+		return slot != null && (outcomes[slot] & outcome) != 0;
+	}
+	
+	/**
+	 * Helper method that adds the outcome to the slot. 
+	 * The first outcome of a player means the player has finished
+	 * 
+	 * @param slot
+	 * @param outcome
+	 */
+	private void setOutcome(int slot, byte outcome) {
+		if (outcomes[slot] == 0) {
+			attempts[slot] = players.get(slot).getNumGuesses();
+			playing.decrementAndGet();
+		}
+		outcomes[slot] |= outcome;
+	}
+	
+	/**
+	 * Gets the number of guesses the player made in this round before winning, losing or forfeiting. 
+	 * Unlike Player.getNumGuesses(), this does not change when the next round starts
+	 * 
+	 * @param player
+	 * @return 0 if the player is still playing, or is not in this round
+	 */
+	public int getNumAttempts(Player player) {
+		Integer slot = slots.get(player);
+		return slot != null ? attempts[slot] : 0;
+	}
+	
+	/**
+	 * Checks if every player of this round has won, lost or forfeited. 
+	 * Players that disconnect forfeit, so they do not count either.
+	 * 
+	 * @return
+	 */
+	public boolean isAllPlayersFinished() {
+		return playing.get() == 0;
+	}
+	
+	/**
+	 * Gets the number of players that have not won, lost or forfeited yet
+	 * @return
+	 */
+	public int getNumPlaying() {
+		return playing.get();
 	}
 	
 	/**
@@ -233,27 +357,27 @@ public class GameRound {
 	}
 	
 	/**
-	 * Get all winners from this round
+	 * Get all winners from this round, in the order they won
 	 * @return
 	 */
-	public synchronized List<Player> getWinners() {
-		return winners;
+	public List<Player> getWinners() {
+		return Collections.unmodifiableList(winners);
 	}
 	
 	/**
-	 * Get all losers from this round
+	 * Get all losers from this round, in the order they lost
 	 * @return
 	 */
 	public List<Player> getLosers() {
-		return losers;
+		return Collections.unmodifiableList(losers);
 	}
 	
 	/**
-	 * Get all players forfeited from this round
+	 * Get all players forfeited from this round, in the order they forfeited
 	 * @return
 	 */
 	public List<Player> getForfeiters() {
-		return forfeited;
+		return Collections.unmodifiableList(forfeited);
 	}
 	
 	/**
@@ -261,20 +385,47 @@ public class GameRound {
 	 * @return
 	 */
 	public boolean hasEnded() {
-		return hasEnded;
+		return hasEnded.get();
 	}
 	
 	/**
 	 * End the game manually. All non-winner players will lose automatically.
+	 * Only the first call ends the round, the later calls do nothing.
+	 * 
+	 * @return true if this call has ended the round
 	 */
-	public void end() {
+	public boolean end() {
+		if (! hasEnded.compareAndSet(false, true)) {
+			return false;
+		}
+		
 		for(Player player : players) {
 			if (this.hasWinner(player) == false) {
 				addLoser(player);
 			}
 		}
 		
-		this.hasEnded = true;
+		ended.complete(this);
+		return true;
+	}
+	
+	/**
+	 * Gets the future that is completed when this round ends
+	 * @return
+	 */
+	public CompletableFuture<GameRound> whenEnded() {
+		return ended;
+	}
+	
+	/**
+	 * Scores the guess against the secret code. Both the correct and incorrect positions 
+	 * are counted at once, use GuessScorer.getNumCorrect() and GuessScorer.getNumIncorrect() to read them
+	 * 
+	 * @param guess
+	 * @return
+	 */
+	public int score(String guess) {
+		return scorer.score(guess);
 	}
 	
 	/**
@@ -285,24 +436,7 @@ public class GameRound {
 	 * @return
 	 */
 	public int getNumCorrectPositions(String guess) {
-		int correctPositions = 0;
-		
-		for (int i = 0; i < guess.length(); i++) {
-			
-			if (i > secretCode.length() - 1) {
-				break;
-			}
-			
-			char guessDigit = guess.charAt(i);
-			char secretCodeDigit = secretCode.charAt(i);
-			
-			// correct position
-			if (guessDigit == secretCodeDigit) {
-				correctPositions += 1;
-			}
-		}
-		
-		return correctPositions;
+		return GuessScorer.getNumCorrect(scorer.score(guess));
 	}
 	
 	/**
@@ -313,28 +447,7 @@ public class GameRound {
 	 * @return
 	 */
 	public int getNumIncorrectPositions(String guess) {
-		int incorrectPositions = 0;
-		
-		for (int i = 0; i < guess.length(); i++) {
-			
-			if (i > secretCode.length() - 1) {
-				break;
-			}
-			
-			char guessDigit = guess.charAt(i);
-			char secretCodeDigit = secretCode.charAt(i);
-			
-			if (guessDigit == secretCodeDigit) {
-				continue;
-			}
-			
-			// incorrect position
-			else if (secretCode.contains(new String(new char[] { guessDigit }))) {
-				incorrectPositions += 1;
-			}
-		}
-		
-		return incorrectPositions;
+		return GuessScorer.getNumIncorrect(scorer.score(guess));
 	}
 	
 	
@@ -0,0 +1,99 @@
+package core;
+
+/**
+ * Scores guesses against the secret code of a round. Each {@link GameRound} has 1 scorer.
+ *
+ * <p>The secret code is prepared once: the digits by position, and a 10 bit mask
+ * of the digits that appear in the code (bit 0 for '0', bit 9 for '9').
+ * A guess is then scored in a single pass without creating any objects.
+ *
+ * <p>Both counts are returned together as a single int. Use getNumCorrect() and
+ * getNumIncorrect() to read them, eg.
+ * <pre>
+ * int score = scorer.score(guess);
+ * int correct = GuessScorer.getNumCorrect(score);
+ * int incorrect = GuessScorer.getNumIncorrect(score);
+ * </pre>
+ *
+ * <p>Counts are the same as before:<ul>
+ * <li>correct - digit is in the same position as in the secret code</li>
+ * <li>incorrect - digit is not in the same position, but appears somewhere in the secret code.
+ * Repeated digits in the guess are counted each time</li>
+ * </ul>
+ * Only the positions that exist in the secret code are compared.
+ *
+ * @author user
+ *
+ */
+public class GuessScorer {
+
+	private final char[] code;
+	private final int digitMask;
+
+
+	public GuessScorer(String secretCode) {
+		this.code = secretCode.toCharArray();
+
+		int mask = 0;
+		for (char digit : code) {
+			mask |= bit(digit);
+		}
+		this.digitMask = mask;
+	}
+
+
+	/**
+	 * Scores the guess.
+	 *
+	 * @param guess
+	 * @return Number of correct and incorrect positions. See getNumCorrect() and getNumIncorrect()
+	 */
+	public int score(CharSequence guess) {
+		int correct = 0;
+		int incorrect = 0;
+		int length = Math.min(guess.length(), code.length);
+
+		for (int i = 0; i < length; i++) {
+			char digit = guess.charAt(i);
+
+			if (digit == code[i]) {
+				correct++;
+			}
+			else if ((digitMask & bit(digit)) != 0) {
+				incorrect++;
+			}
+		}
+
+		return (correct << 16) | incorrect;
+	}
+
+	/**
+	 * Gets the number of correct positions from the result of score()
+	 * @param score
+	 * @return
+	 */
+	public static int getNumCorrect(int score) {
+		return score >>> 16;
+	}
+
+	/**
+	 * Gets the number of incorrect positions from the result of score()
+	 * @param score
+	 * @return
+	 */
+	public static int getNumIncorrect(int score) {
+		return score & 0xFFFF;
+	}
+
+
+	/**
+	 * Helper method that gets the bit of the digit in the mask. Anything other than '0' to '9' has no bit
+	 *
+	 * @param digit
+	 * @return
+	 */
+	private static int bit(char digit) {
+		int value = digit - '0';
+		return value >= 0 && value <= 9 ? 1 << value : 0;
+	}
+}
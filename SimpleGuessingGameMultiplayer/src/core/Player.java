@@ -24,12 +24,27 @@ public class Player implements Comparable<Player> {
 		QUITED
 	}
 	
+	private final int id;
 	private String name;
 	private List<String> guesses = new ArrayList<>();
 	private String lastGuess = null;
 	private PlayerStatus status = PlayerStatus.NOT_STARTED;
 	
+	/**
+	 * Creates a player that is not registered in a game. Its id is 0
+	 * @param name
+	 */
 	public Player(String name) {
+		this(0, name);
+	}
+	
+	/**
+	 * Players of a game are created by its {@link PlayerRegistry}, which gives each player an id
+	 * @param id
+	 * @param name
+	 */
+	public Player(int id, String name) {
+		this.id = id;
 		this.name = name;
 	}
 	
@@ -54,6 +69,14 @@ public class Player implements Comparable<Player> {
 		return name;
 	}
 	
+	/**
+	 * Gets the id given by the {@link PlayerRegistry}. Unique in the whole server
+	 * @return
+	 */
+	public int getId() {
+		return id;
+	}
+	
 	public List<String> getGuesses() {
 		return guesses;
 	}
@@ -0,0 +1,154 @@
+package core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Players of a {@link Game}, indexed by id and by name.
+ *
+ * <p>The sessions of a room read the players all the time (who is first, how many players,
+ * starting a round) but players only join and leave once in a while. So:<ul>
+ * <li>Lookups by id or name and size() never lock</li>
+ * <li>getPlayers() returns a snapshot in the order the players joined. The snapshot never changes,
+ * so it can be iterated while players join and leave. It is only copied again after a change</li>
+ * <li>Adding and removing lock the registry, and are O(1)</li>
+ * </ul>
+ *
+ * <p>Names do not have to be unique. findByName() returns the player that joined first.
+ *
+ * @author user
+ *
+ */
+public class PlayerRegistry implements Iterable<Player> {
+
+	// ids are unique in the whole server, not only in the game
+	private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+	private final Map<Integer, Player> byId = new ConcurrentHashMap<>();
+	private final Map<String, Player> byName = new ConcurrentHashMap<>();
+
+	// players in the order they joined. Guarded by this
+	private final Map<Integer, Player> ordered = new LinkedHashMap<>();
+
+	// null after a change, until someone asks for the players again
+	private volatile List<Player> snapshot = Collections.emptyList();
+	private volatile int size = 0;
+
+
+	/**
+	 * Creates a player with a new id and adds it, unless there are already maxPlayers players
+	 *
+	 * @param name
+	 * @param maxPlayers
+	 * @return null if the registry is full
+	 */
+	public synchronized Player add(String name, int maxPlayers) {
+		if (size >= maxPlayers) {
+			return null;
+		}
+
+		Player player = new Player(NEXT_ID.incrementAndGet(), name);
+		ordered.put(player.getId(), player);
+		byId.put(player.getId(), player);
+		byName.putIfAbsent(name, player);
+
+		size = ordered.size();
+		snapshot = null;
+		return player;
+	}
+
+	/**
+	 * Removes the player
+	 *
+	 * @param player
+	 * @return false if the player was not in the registry
+	 */
+	public synchronized boolean remove(Player player) {
+		if (player == null || ordered.get(player.getId()) != player) {
+			return false;
+		}
+
+		ordered.remove(player.getId());
+		byId.remove(player.getId());
+
+		// another player may have the same name
+		if (byName.remove(player.getName(), player)) {
+			for (Player other : ordered.values()) {
+				if (other.getName().equals(player.getName())) {
+					byName.put(other.getName(), other);
+					break;
+				}
+			}
+		}
+
+		size = ordered.size();
+		snapshot = null;
+		return true;
+	}
+
+	/**
+	 * Gets the player with the id
+	 * @param id
+	 * @return null if there is no such player
+	 */
+	public Player get(int id) {
+		return byId.get(id);
+	}
+
+	/**
+	 * Gets the first player that joined with the name
+	 * @param name
+	 * @return null if there is no such player
+	 */
+	public Player findByName(String name) {
+		return byName.get(name);
+	}
+
+	public boolean contains(Player player) {
+		return player != null && byId.get(player.getId()) == player;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Gets the player that joined first
+	 * @return null if there are no players
+	 */
+	public Player first() {
+		List<Player> players = getPlayers();
+		return players.isEmpty() ? null : players.get(0);
+	}
+
+	/**
+	 * Gets the players in the order they joined. The list cannot be modified,
+	 * and does not change when players join or leave later.
+	 *
+	 * @return
+	 */
+	public List<Player> getPlayers() {
+		List<Player> players = snapshot;
+		if (players != null) {
+			return players;
+		}
+
+		synchronized (this) {
+			if (snapshot == null) {
+				snapshot = Collections.unmodifiableList(new ArrayList<>(ordered.values()));
+			}
+			return snapshot;
+		}
+	}
+
+	@Override
+	public Iterator<Player> iterator() {
+		return getPlayers().iterator();
+	}
+}
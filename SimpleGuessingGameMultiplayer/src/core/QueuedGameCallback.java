@@ -0,0 +1,245 @@
+package core;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the events of a slow callback (eg. the game log) on its own thread,
+ * so the {@link GameManager} does not wait for it while the room is locked.
+ *
+ * <p>The events are added to a bounded queue and delivered to the callback in the same order
+ * by a single thread. Callbacks that are cheap, like {@link GameCallbackImpl} that only
+ * writes to the buffer of the client, should be added to the game manager directly instead.
+ *
+ * <p>The callback receives the events a bit later, so by then the game may have moved on.
+ * Arguments that are copied when the event happens (names, numbers, the guess) are always right,
+ * but the callback should not rely on state that changes with the next round,
+ * eg. the guesses of a player (use GameRound.getNumAttempts() instead).
+ *
+ * <p>When the queue is full, the {@link OverflowPolicy} decides what happens to the new event.
+ * One instance can be shared by the game managers of all clients.
+ *
+ * @author user
+ *
+ */
+public class QueuedGameCallback implements GameCallback, AutoCloseable {
+
+	/**
+	 * What happens to a new event when the queue is full
+	 */
+	public enum OverflowPolicy {
+		/**
+		 * Wait until the callback catches up. Nothing is lost
+		 */
+		BLOCK,
+
+		/**
+		 * Drop the new event, the game never waits
+		 */
+		DROP
+	}
+
+	public static final int DEFAULT_CAPACITY = 8192;
+
+	// how often the thread checks if it was closed while the queue is empty
+	private static final long POLL_MILLIS = 100;
+
+	private final GameCallback callback;
+	private final BlockingQueue<Runnable> events;
+	private final OverflowPolicy policy;
+	private final AtomicLong dropped = new AtomicLong();
+
+	private final Thread thread;
+	private volatile boolean closed = false;
+
+
+	/**
+	 * Creates the queue and starts its thread
+	 *
+	 * @param callback Callback the events are delivered to
+	 * @param capacity Maximum number of events waiting
+	 * @param policy
+	 */
+	public QueuedGameCallback(GameCallback callback, int capacity, OverflowPolicy policy) {
+		this.callback = callback;
+		this.events = new ArrayBlockingQueue<>(capacity);
+		this.policy = policy;
+
+		this.thread = new Thread(this::deliverLoop, "callback-" + callback.getClass().getSimpleName());
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	public OverflowPolicy getPolicy() {
+		return policy;
+	}
+
+	/**
+	 * Gets the number of events dropped because the queue was full
+	 * @return
+	 */
+	public long getDropped() {
+		return dropped.get();
+	}
+
+	/**
+	 * Gets the number of events waiting to be delivered
+	 * @return
+	 */
+	public int getPending() {
+		return events.size();
+	}
+
+
+	@Override
+	public void onStart(Game game) {
+		enqueue(() -> callback.onStart(game));
+	}
+
+	@Override
+	public void onSecretCodeCreated(Game game, String secretCode) {
+		enqueue(() -> callback.onSecretCodeCreated(game, secretCode));
+	}
+
+	@Override
+	public void onRoundStarted(Game game, GameRound round, Player player) {
+		enqueue(() -> callback.onRoundStarted(game, round, player));
+	}
+
+	@Override
+	public void onPlayerSignedUp(Game game, GameRound round, Player player) {
+		enqueue(() -> callback.onPlayerSignedUp(game, round, player));
+	}
+
+	@Override
+	public void onGuessAdded(GameRound round, Player player, String guess) {
+		enqueue(() -> callback.onGuessAdded(round, player, guess));
+	}
+
+	@Override
+	public void onIncorrectGuess(GameRound round, Player player, String guess) {
+		enqueue(() -> callback.onIncorrectGuess(round, player, guess));
+	}
+
+	@Override
+	public void onPlayerWon(GameRound round, Player player, int numOfGuesses) {
+		enqueue(() -> callback.onPlayerWon(round, player, numOfGuesses));
+	}
+
+	@Override
+	public void onPlayerLost(GameRound round, Player player, String secretCode) {
+		enqueue(() -> callback.onPlayerLost(round, player, secretCode));
+	}
+
+	@Override
+	public void onRoundEnded(Game game, GameRound round) {
+		enqueue(() -> callback.onRoundEnded(game, round));
+	}
+
+	@Override
+	public void onPlayerForfeited(Game game, GameRound round, Player player) {
+		enqueue(() -> callback.onPlayerForfeited(game, round, player));
+	}
+
+	@Override
+	public void onPlayerQuited(Game game, Player player) {
+		enqueue(() -> callback.onPlayerQuited(game, player));
+	}
+
+
+	/**
+	 * Delivers the remaining events and stops the thread.
+	 * Events that happen afterwards are delivered directly by the caller.
+	 */
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+
+		try {
+			thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		// events added while the thread was stopping
+		synchronized (this) {
+			Runnable event;
+			while ((event = events.poll()) != null) {
+				deliver(event);
+			}
+		}
+	}
+
+
+	/**
+	 * Helper method that adds the event according to the overflow policy
+	 *
+	 * @param event
+	 */
+	private void enqueue(Runnable event) {
+		if (closed) {
+			deliverNow(event);
+			return;
+		}
+
+		if (policy == OverflowPolicy.DROP) {
+			if (! events.offer(event)) {
+				dropped.incrementAndGet();
+			}
+			return;
+		}
+
+		try {
+			// the thread may stop while we are waiting
+			while (! events.offer(event, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+				if (closed) {
+					deliverNow(event);
+					return;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			dropped.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Helper method used once the thread has stopped
+	 *
+	 * @param event
+	 */
+	private synchronized void deliverNow(Runnable event) {
+		deliver(event);
+	}
+
+	/**
+	 * Body of the thread
+	 */
+	private void deliverLoop() {
+		try {
+			while (! closed || ! events.isEmpty()) {
+				Runnable event = events.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+				if (event != null) {
+					deliver(event);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void deliver(Runnable event) {
+		try {
+			event.run();
+		}
+		// a broken callback must not stop the other events
+		catch (RuntimeException e) {
+			System.err.println("Sorry, the game event could not be delivered. " + e.getMessage());
+		}
+	}
+}
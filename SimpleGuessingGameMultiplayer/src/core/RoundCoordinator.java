@@ -0,0 +1,206 @@
+package core;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Coordinates the life cycle of the rounds of a {@link Game}. Each game has its own coordinator.
+ *
+ * <p>Players wait for each other at these points:<ul>
+ * <li>Waiting for the first player to choose the number of digits (whenDigitsChosen())</li>
+ * <li>Waiting for at least {@link Game#MIN_PLAYERS} players (whenPlayersJoined())</li>
+ * <li>Waiting for the others to finish the round (whenRoundEnded())</li>
+ * <li>Waiting for everyone to choose to continue or quit (whenAllPlayersChosen())</li>
+ * <li>Waiting for the next round before joining the game (whenRoundCanStart())</li>
+ * </ul>
+ *
+ * <p>Each point is a {@link CompletableFuture} that is completed exactly once, when the
+ * game moves past that point. Only the players waiting at that point are woken up.
+ * A blocking client can simply call get() on the future, while an event driven client
+ * can attach a callback using thenRun().
+ *
+ * <p>Players are registered and unregistered as they join, quit or drop, so
+ * the others never wait for a player that has left.
+ * <p>Note: Futures are always completed outside the lock of this class, so callbacks
+ * attached to them can safely call back into the game.
+ *
+ * @author user
+ *
+ */
+public class RoundCoordinator {
+
+	private CompletableFuture<Void> digitsChosen = new CompletableFuture<>();
+	private CompletableFuture<Void> playersJoined = new CompletableFuture<>();
+
+	// no round has been played yet, so nobody has to choose
+	private CompletableFuture<Void> allPlayersChosen = CompletableFuture.completedFuture(null);
+	private GameRound currentRound;
+
+	// players of the current round that have not chosen to continue or quit
+	private Set<Player> pendingChoices = Collections.newSetFromMap(new IdentityHashMap<>());
+
+
+	/**
+	 * Completes when the number of digits has been chosen, or when the first
+	 * player left without choosing (the next player becomes the first player).
+	 * @return
+	 */
+	public synchronized CompletableFuture<Void> whenDigitsChosen() {
+		return digitsChosen;
+	}
+
+	/**
+	 * Completes when there are at least {@link Game#MIN_PLAYERS} players in the game
+	 * @return
+	 */
+	public synchronized CompletableFuture<Void> whenPlayersJoined() {
+		return playersJoined;
+	}
+
+	/**
+	 * Completes when the round has ended
+	 * @param round
+	 * @return
+	 */
+	public CompletableFuture<GameRound> whenRoundEnded(GameRound round) {
+		return round.whenEnded();
+	}
+
+	/**
+	 * Completes when all players of the current round have chosen to continue or quit
+	 * (or have left the game). The next round can only start after that.
+	 * @return
+	 */
+	public synchronized CompletableFuture<Void> whenAllPlayersChosen() {
+		return allPlayersChosen;
+	}
+
+
+	/**
+	 * Completes when the player can start a new round or join the current round.
+	 * <p>Players can join a round that is still being played, but once the round 
+	 * has ended, the next round can only start after all players have chosen.
+	 * @return
+	 */
+	public synchronized CompletableFuture<Void> whenRoundCanStart() {
+		if (currentRound == null || ! currentRound.whenEnded().isDone()) {
+			return CompletableFuture.completedFuture(null);
+		}
+		
+		return allPlayersChosen;
+	}
+
+
+	/**
+	 * A player signed up. Called by {@link Game}
+	 * @param numPlayers Number of players after the player has signed up
+	 */
+	void onPlayerJoined(int numPlayers) {
+		CompletableFuture<Void> completed = null;
+
+		synchronized (this) {
+			if (numPlayers >= Game.MIN_PLAYERS) {
+				completed = playersJoined;
+			}
+		}
+
+		complete(completed);
+	}
+
+	/**
+	 * A player quit or dropped. Called by {@link Game}
+	 * @param player
+	 * @param numPlayers Number of players after the player has left
+	 * @param numDigitsChosen
+	 */
+	void onPlayerLeft(Player player, int numPlayers, boolean numDigitsChosen) {
+		CompletableFuture<Void> digits = null;
+		CompletableFuture<Void> choices = null;
+
+		synchronized (this) {
+			// players that come next will have to wait again
+			if (numPlayers < Game.MIN_PLAYERS && playersJoined.isDone()) {
+				playersJoined = new CompletableFuture<>();
+			}
+
+			// the player may have been the first player, let the others check again
+			if (! numDigitsChosen) {
+				digits = digitsChosen;
+				digitsChosen = new CompletableFuture<>();
+			}
+
+			// nobody needs to wait for this player to choose
+			if (pendingChoices.remove(player) && pendingChoices.isEmpty()) {
+				choices = allPlayersChosen;
+			}
+		}
+
+		complete(digits);
+		complete(choices);
+	}
+
+	/**
+	 * Number of digits was chosen. Called by {@link Game}
+	 */
+	void onDigitsChosen() {
+		CompletableFuture<Void> completed;
+		synchronized (this) {
+			completed = digitsChosen;
+		}
+		complete(completed);
+	}
+
+	/**
+	 * A new round has started. All players of the round will have to choose at the end.
+	 * Called by {@link Game}
+	 * @param round
+	 */
+	synchronized void onRoundStarted(GameRound round) {
+		currentRound = round;
+		pendingChoices.clear();
+		pendingChoices.addAll(round.getPlayers());
+
+		if (allPlayersChosen.isDone()) {
+			allPlayersChosen = new CompletableFuture<>();
+		}
+	}
+
+	/**
+	 * A player joined the round after it has started
+	 * @param player
+	 */
+	public synchronized void onPlayerJoinedRound(Player player) {
+		if (! allPlayersChosen.isDone()) {
+			pendingChoices.add(player);
+		}
+	}
+
+	/**
+	 * Player has chosen to continue or quit
+	 * @param player
+	 */
+	public void onPlayerChosen(Player player) {
+		CompletableFuture<Void> completed = null;
+
+		synchronized (this) {
+			if (pendingChoices.remove(player) && pendingChoices.isEmpty()) {
+				completed = allPlayersChosen;
+			}
+		}
+
+		complete(completed);
+	}
+
+
+	/**
+	 * Helper method that completes the future outside the lock
+	 * @param future
+	 */
+	private static void complete(CompletableFuture<Void> future) {
+		if (future != null) {
+			future.complete(null);
+		}
+	}
+}
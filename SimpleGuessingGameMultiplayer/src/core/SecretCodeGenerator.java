@@ -0,0 +1,22 @@
+package core;
+
+/**
+ * Creates the secret codes of the rounds. See {@link ShuffleCodeGenerator} and {@link SecretCodePool}.
+ *
+ * <p>A secret code can have digits from 0-9 with no duplicates.
+ * Implementations must be thread safe, a generator can be shared by all games.
+ *
+ * @author user
+ *
+ */
+public interface SecretCodeGenerator {
+
+	/**
+	 * Creates a new secret code
+	 *
+	 * @param numDigits Length of the secret code, 0 - 10
+	 * @return
+	 * @throws IllegalArgumentException If there are not enough digits for the length
+	 */
+	String generate(int numDigits);
+}
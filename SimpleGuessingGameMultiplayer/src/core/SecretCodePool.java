@@ -0,0 +1,144 @@
+package core;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * {@link SecretCodeGenerator} that uses a SecureRandom, for when the secret codes
+ * must not be predictable.
+ *
+ * <p>SecureRandom is slow and can block, so the codes are created ahead of time.
+ * There is a pool of codes for each length from {@link Game#MIN_DIGITS} to {@link Game#MAX_DIGITS}.
+ * A background thread fills the pools, and refills a pool once it is half empty.
+ * A code is only created on the calling thread when its pool is empty.
+ *
+ * @author user
+ *
+ */
+public class SecretCodePool implements SecretCodeGenerator, AutoCloseable {
+
+	public static final int DEFAULT_CAPACITY = 64;
+
+	private final SecureRandom random = new SecureRandom();
+	private final int capacity;
+
+	// pools by number of digits. Index 0 is Game.MIN_DIGITS
+	private final List<BlockingQueue<String>> pools;
+	private final AtomicBoolean[] refilling;
+
+	// number of digits of the pools that need a refill
+	private final BlockingQueue<Integer> refills = new LinkedBlockingQueue<>();
+
+	private final Thread thread;
+	private volatile boolean closed = false;
+
+
+	public SecretCodePool() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates the pools and starts filling them in the background
+	 *
+	 * @param capacity Number of codes kept for each length
+	 */
+	public SecretCodePool(int capacity) {
+		this.capacity = capacity;
+
+		int numPools = Game.MAX_DIGITS - Game.MIN_DIGITS + 1;
+		this.pools = new ArrayList<>(numPools);
+		this.refilling = new AtomicBoolean[numPools];
+		for (int i = 0; i < numPools; i++) {
+			pools.add(new ArrayBlockingQueue<>(capacity));
+			refilling[i] = new AtomicBoolean(false);
+		}
+
+		this.thread = new Thread(this::refillLoop, "secret-code-pool");
+		this.thread.setDaemon(true);
+		this.thread.start();
+
+		for (int numDigits = Game.MIN_DIGITS; numDigits <= Game.MAX_DIGITS; numDigits++) {
+			requestRefill(numDigits);
+		}
+	}
+
+
+	@Override
+	public String generate(int numDigits) {
+		if (numDigits < Game.MIN_DIGITS || numDigits > Game.MAX_DIGITS) {
+			return ShuffleCodeGenerator.shuffle(numDigits, random);
+		}
+
+		BlockingQueue<String> pool = pools.get(numDigits - Game.MIN_DIGITS);
+		String code = pool.poll();
+
+		if (pool.size() <= capacity / 2) {
+			requestRefill(numDigits);
+		}
+
+		// pool is empty, the refill could not keep up
+		if (code == null) {
+			code = ShuffleCodeGenerator.shuffle(numDigits, random);
+		}
+		return code;
+	}
+
+	/**
+	 * Gets the number of codes ready for the given length
+	 * @param numDigits
+	 * @return
+	 */
+	public int getAvailable(int numDigits) {
+		if (numDigits < Game.MIN_DIGITS || numDigits > Game.MAX_DIGITS) {
+			return 0;
+		}
+		return pools.get(numDigits - Game.MIN_DIGITS).size();
+	}
+
+	/**
+	 * Stops the background thread. Codes are then created on the calling thread
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		thread.interrupt();
+	}
+
+
+	/**
+	 * Helper method that asks the background thread to refill a pool, once
+	 *
+	 * @param numDigits
+	 */
+	private void requestRefill(int numDigits) {
+		if (! closed && refilling[numDigits - Game.MIN_DIGITS].compareAndSet(false, true)) {
+			refills.add(numDigits);
+		}
+	}
+
+	/**
+	 * Body of the background thread
+	 */
+	private void refillLoop() {
+		try {
+			while (! closed) {
+				int numDigits = refills.take();
+				int index = numDigits - Game.MIN_DIGITS;
+
+				// allow new requests while filling, codes may be taken in the meantime
+				refilling[index].set(false);
+
+				BlockingQueue<String> pool = pools.get(index);
+				while (! closed && pool.offer(ShuffleCodeGenerator.shuffle(numDigits, random)));
+			}
+		}
+		catch (InterruptedException e) {
+			// closed
+		}
+	}
+}
@@ -0,0 +1,49 @@
+package core;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Default {@link SecretCodeGenerator}. Shuffles the digits 0-9 and takes the first digits.
+ *
+ * <p>Only the first numDigits steps of the shuffle are done (partial Fisher-Yates shuffle),
+ * so creating a code takes exactly numDigits random numbers and never has to retry.
+ * Each thread uses its own ThreadLocalRandom, so rooms do not compete for a shared Random.
+ *
+ * @author user
+ *
+ */
+public class ShuffleCodeGenerator implements SecretCodeGenerator {
+
+	private static final int NUM_DIGITS = 10;
+
+	@Override
+	public String generate(int numDigits) {
+		return shuffle(numDigits, ThreadLocalRandom.current());
+	}
+
+	/**
+	 * Creates a secret code using the given source of random numbers
+	 *
+	 * @param numDigits Length of the secret code, 0 - 10
+	 * @param random
+	 * @return
+	 */
+	public static String shuffle(int numDigits, Random random) {
+		if (numDigits < 0 || numDigits > NUM_DIGITS) {
+			throw new IllegalArgumentException("A secret code cannot have " + numDigits + " digits");
+		}
+
+		char[] digits = { '0', '1', '2', '3', '4', '5', '6', '7', '8', '9' };
+
+		// pick each position from the digits that were not picked yet
+		for (int i = 0; i < numDigits; i++) {
+			int j = i + random.nextInt(NUM_DIGITS - i);
+			char digit = digits[j];
+			digits[j] = digits[i];
+			digits[i] = digit;
+		}
+
+		return new String(digits, 0, numDigits);
+	}
+}
@@ -0,0 +1,61 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Number that only goes up, eg. number of guesses.
+ *
+ * <p>Uses a LongAdder, so threads increasing the counter at the same time do not compete.
+ *
+ * @author user
+ *
+ */
+public class Counter implements Metric {
+
+	private final String name;
+	private final String help;
+	private final LongAdder value = new LongAdder();
+
+
+	public Counter(String name, String help) {
+		this.name = name;
+		this.help = help;
+	}
+
+	public void increment() {
+		value.increment();
+	}
+
+	public void add(long amount) {
+		value.add(amount);
+	}
+
+	public long get() {
+		return value.sum();
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public String getHelp() {
+		return help;
+	}
+
+	@Override
+	public String getType() {
+		return "counter";
+	}
+
+	@Override
+	public Object getValue() {
+		return get();
+	}
+
+	@Override
+	public void writeText(StringBuilder out) {
+		out.append(name).append(' ').append(get()).append('\n');
+	}
+}
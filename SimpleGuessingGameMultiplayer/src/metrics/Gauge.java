@@ -0,0 +1,87 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Number that goes up and down, eg. number of connected clients.
+ *
+ * <p>Either increased and decreased by the server, or read from a supplier when the metrics are exported.
+ *
+ * @author user
+ *
+ */
+public class Gauge implements Metric {
+
+	private final String name;
+	private final String help;
+	private final LongAdder value = new LongAdder();
+	private final LongSupplier supplier;
+
+
+	/**
+	 * Gauge changed with increment() and decrement()
+	 * @param name
+	 * @param help
+	 */
+	public Gauge(String name, String help) {
+		this(name, help, null);
+	}
+
+	/**
+	 * Gauge that reads its value from the supplier
+	 * @param name
+	 * @param help
+	 * @param supplier
+	 */
+	public Gauge(String name, String help, LongSupplier supplier) {
+		this.name = name;
+		this.help = help;
+		this.supplier = supplier;
+	}
+
+	public void increment() {
+		value.increment();
+	}
+
+	public void decrement() {
+		value.decrement();
+	}
+
+	/**
+	 * Changes the gauge by the amount, eg. bytes queued or sent
+	 * @param amount Negative to decrease
+	 */
+	public void add(long amount) {
+		value.add(amount);
+	}
+
+	public long get() {
+		return supplier != null ? supplier.getAsLong() : value.sum();
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public String getHelp() {
+		return help;
+	}
+
+	@Override
+	public String getType() {
+		return "gauge";
+	}
+
+	@Override
+	public Object getValue() {
+		return get();
+	}
+
+	@Override
+	public void writeText(StringBuilder out) {
+		out.append(name).append(' ').append(get()).append('\n');
+	}
+}
@@ -0,0 +1,168 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread safe histogram, usually of latencies. Used by the server metrics and the load generator.
+ *
+ * <p>Values are recorded into buckets that get wider as the values grow:
+ * values below 32 have their own bucket, and every bigger power of 2 is split into 16 buckets.
+ * Percentiles are therefore accurate to about 6%, whatever the range of the values,
+ * and recording is a single atomic increment.
+ *
+ * @author user
+ *
+ */
+public class Histogram implements Metric {
+
+	// buckets per power of 2 is SUB_BUCKETS / 2
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+	private static final int MAX_MAGNITUDE = 64 - SUB_BUCKET_BITS;
+
+	private static final double[] QUANTILES = { 0.5, 0.99, 0.999 };
+
+	private final String name;
+	private final String help;
+	private final double scale;
+
+	private final AtomicLongArray counts = new AtomicLongArray((MAX_MAGNITUDE + 1) * HALF_SUB_BUCKETS + HALF_SUB_BUCKETS);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong sum = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+
+
+	/**
+	 * Histogram that is not registered anywhere
+	 */
+	public Histogram() {
+		this(null, null, 1);
+	}
+
+	/**
+	 * @param name
+	 * @param help
+	 * @param scale Recorded values are multiplied by this when exported, eg. 1e-9 for nanoseconds to seconds
+	 */
+	public Histogram(String name, String help, double scale) {
+		this.name = name;
+		this.help = help;
+		this.scale = scale;
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public String getHelp() {
+		return help;
+	}
+
+	/**
+	 * Records a value
+	 * @param value Negative values are recorded as 0
+	 */
+	public void record(long value) {
+		value = Math.max(0, value);
+		counts.incrementAndGet(indexOf(value));
+		count.incrementAndGet();
+		sum.addAndGet(value);
+
+		long current;
+		while (value > (current = max.get()) && ! max.compareAndSet(current, value));
+	}
+
+	public long getCount() {
+		return count.get();
+	}
+
+	public long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * Gets the average of the recorded values
+	 * @return
+	 */
+	public double getMean() {
+		long n = count.get();
+		return n == 0 ? 0 : (double) sum.get() / n;
+	}
+
+	/**
+	 * Gets the value that the given fraction of the recorded values are less than or equal to,
+	 * eg. 0.99 for the 99th percentile.
+	 *
+	 * @param fraction 0.0 - 1.0
+	 * @return Upper bound of the bucket. 0 if nothing was recorded
+	 */
+	public long getPercentile(double fraction) {
+		long total = count.get();
+		if (total == 0) {
+			return 0;
+		}
+
+		long rank = Math.max(1, (long) Math.ceil(fraction * total));
+		long seen = 0;
+		for (int i = 0; i < counts.length(); i++) {
+			seen += counts.get(i);
+			if (seen >= rank) {
+				return Math.min(highestValueOf(i), max.get());
+			}
+		}
+		return max.get();
+	}
+
+	/**
+	 * Exported as a summary with the 50th, 99th and 99.9th percentiles
+	 */
+	@Override
+	public void writeText(StringBuilder out) {
+		long total = count.get();
+		for (double quantile : QUANTILES) {
+			out.append(name).append("{quantile=\"").append(quantile).append("\"} ")
+				.append(getPercentile(quantile) * scale).append('\n');
+		}
+		out.append(name).append("_sum ").append(sum.get() * scale).append('\n');
+		out.append(name).append("_count ").append(total).append('\n');
+	}
+
+	@Override
+	public String getType() {
+		return "summary";
+	}
+
+	@Override
+	public Object getValue() {
+		return getPercentile(0.99) * scale;
+	}
+
+
+	/**
+	 * Helper method that finds the bucket of a value
+	 *
+	 * @param value
+	 * @return
+	 */
+	static int indexOf(long value) {
+		int magnitude = 64 - Long.numberOfLeadingZeros(value | (SUB_BUCKETS - 1)) - SUB_BUCKET_BITS;
+		int subBucket = (int) (value >>> magnitude);
+		return magnitude * HALF_SUB_BUCKETS + subBucket;
+	}
+
+	/**
+	 * Helper method that gets the biggest value of a bucket
+	 *
+	 * @param index
+	 * @return
+	 */
+	static long highestValueOf(int index) {
+		int magnitude = index < SUB_BUCKETS ? 0 : index / HALF_SUB_BUCKETS - 1;
+		long subBucket = index - magnitude * HALF_SUB_BUCKETS;
+		return ((subBucket + 1) << magnitude) - 1;
+	}
+}
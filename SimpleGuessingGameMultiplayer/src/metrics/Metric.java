@@ -0,0 +1,42 @@
+package metrics;
+
+/**
+ * A value measured by the server, kept in a {@link MetricsRegistry}.
+ *
+ * @author user
+ *
+ */
+public interface Metric {
+
+	/**
+	 * Name in the text format, eg. game_guesses_total
+	 * @return
+	 */
+	String getName();
+
+	/**
+	 * One line description
+	 * @return
+	 */
+	String getHelp();
+
+	/**
+	 * counter, gauge or summary
+	 * @return
+	 */
+	String getType();
+
+	/**
+	 * Current value, shown by JMX
+	 * @return
+	 */
+	Object getValue();
+
+	/**
+	 * Writes the samples of this metric in the text exposition format,
+	 * without the HELP and TYPE lines
+	 *
+	 * @param out
+	 */
+	void writeText(StringBuilder out);
+}
@@ -0,0 +1,80 @@
+package metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Small HTTP server that shows the metrics in the text exposition format at /metrics,
+ * so they can be read with a browser, curl or Prometheus.
+ *
+ * <p>Only listens on the loopback address, the metrics are not meant for the players.
+ * Uses the HTTP server that comes with the JDK, with a single thread.
+ *
+ * @author user
+ *
+ */
+public class MetricsHttpServer {
+
+	public static final String PATH = "/metrics";
+
+	private final MetricsRegistry registry;
+	private HttpServer server;
+
+
+	public MetricsHttpServer(MetricsRegistry registry) {
+		this.registry = registry;
+	}
+
+	/**
+	 * Starts listening
+	 *
+	 * @param port 0 to pick a free port
+	 * @throws IOException
+	 */
+	public void start(int port) throws IOException {
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		server.createContext(PATH, this::handle);
+		server.start();
+	}
+
+	/**
+	 * Gets the port the server listens to
+	 * @return
+	 */
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	public void stop() {
+		if (server != null) {
+			server.stop(0);
+		}
+	}
+
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try {
+			if (! exchange.getRequestMethod().equals("GET")) {
+				exchange.sendResponseHeaders(405, -1);
+				return;
+			}
+
+			byte[] body = registry.writeText().getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+			exchange.sendResponseHeaders(200, body.length);
+
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		}
+		finally {
+			exchange.close();
+		}
+	}
+}
@@ -0,0 +1,83 @@
+package metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+
+/**
+ * JMX view of a {@link MetricsRegistry}. Each metric is a read only attribute.
+ * Histograms show their 99th percentile.
+ *
+ * @author user
+ *
+ */
+public class MetricsMBean implements DynamicMBean {
+
+	private final MetricsRegistry registry;
+
+	public MetricsMBean(MetricsRegistry registry) {
+		this.registry = registry;
+	}
+
+	@Override
+	public Object getAttribute(String name) throws AttributeNotFoundException {
+		Metric metric = registry.get(name);
+		if (metric == null) {
+			throw new AttributeNotFoundException(name);
+		}
+		return metric.getValue();
+	}
+
+	@Override
+	public AttributeList getAttributes(String[] names) {
+		AttributeList attributes = new AttributeList();
+		for (String name : names) {
+			Metric metric = registry.get(name);
+			if (metric != null) {
+				attributes.add(new Attribute(name, metric.getValue()));
+			}
+		}
+		return attributes;
+	}
+
+	/**
+	 * Metrics cannot be changed
+	 */
+	@Override
+	public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+		throw new AttributeNotFoundException(attribute.getName() + " is read only");
+	}
+
+	@Override
+	public AttributeList setAttributes(AttributeList attributes) {
+		return new AttributeList();
+	}
+
+	@Override
+	public Object invoke(String actionName, Object[] params, String[] signature) {
+		throw new UnsupportedOperationException(actionName);
+	}
+
+	/**
+	 * Built every time, metrics can be added while the server runs
+	 */
+	@Override
+	public MBeanInfo getMBeanInfo() {
+		List<MBeanAttributeInfo> attributes = new ArrayList<>();
+		for (Metric metric : registry.getMetrics()) {
+			String type = metric instanceof Histogram ? Double.class.getName() : Long.class.getName();
+			String description = metric instanceof Histogram ? metric.getHelp() + " (99th percentile)" : metric.getHelp();
+			attributes.add(new MBeanAttributeInfo(metric.getName(), type, description, true, false, false));
+		}
+
+		return new MBeanInfo(getClass().getName(), "Metrics of the guessing game server",
+			attributes.toArray(new MBeanAttributeInfo[0]), null, new MBeanOperationInfo[0], null);
+	}
+}
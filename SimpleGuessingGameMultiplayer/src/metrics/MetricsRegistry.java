@@ -0,0 +1,147 @@
+package metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongSupplier;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Keeps the metrics of the server by name.
+ *
+ * <p>Classes usually keep their metrics in static fields, created from the default registry, eg.
+ * <pre>
+ * private static final Counter GUESSES = MetricsRegistry.getDefault().counter("game_guesses_total", "Guesses made");
+ * </pre>
+ * Recording is then a single increment (see {@link Counter}, {@link Gauge} and {@link Histogram}),
+ * cheap enough to always stay on. Metrics are exported with writeText() (see {@link MetricsHttpServer})
+ * and JMX (see registerMBean()).
+ *
+ * @author user
+ *
+ */
+public class MetricsRegistry {
+
+	/**
+	 * Name of the JMX bean of the default registry
+	 */
+	public static final String OBJECT_NAME = "SimpleGuessingGame:type=Metrics";
+
+	private static final MetricsRegistry DEFAULT = new MetricsRegistry();
+
+	// sorted by name, so the text output is stable
+	private final Map<String, Metric> metrics = new ConcurrentSkipListMap<>();
+
+
+	/**
+	 * Gets the registry used by the server
+	 * @return
+	 */
+	public static MetricsRegistry getDefault() {
+		return DEFAULT;
+	}
+
+
+	/**
+	 * Gets the counter with the name, creating it if needed
+	 *
+	 * @param name
+	 * @param help
+	 * @return
+	 */
+	public Counter counter(String name, String help) {
+		return register(new Counter(name, help), Counter.class);
+	}
+
+	/**
+	 * Gets the gauge with the name, creating it if needed
+	 *
+	 * @param name
+	 * @param help
+	 * @return
+	 */
+	public Gauge gauge(String name, String help) {
+		return register(new Gauge(name, help), Gauge.class);
+	}
+
+	/**
+	 * Gets the gauge with the name, creating it if needed. The value is read from the supplier.
+	 *
+	 * @param name
+	 * @param help
+	 * @param supplier
+	 * @return
+	 */
+	public Gauge gauge(String name, String help, LongSupplier supplier) {
+		return register(new Gauge(name, help, supplier), Gauge.class);
+	}
+
+	/**
+	 * Gets the histogram of a latency, recorded in nanoseconds and exported in seconds.
+	 * The histogram is created if needed.
+	 *
+	 * @param name Should end with _seconds
+	 * @param help
+	 * @return
+	 */
+	public Histogram latency(String name, String help) {
+		return register(new Histogram(name, help, 1e-9), Histogram.class);
+	}
+
+	public Metric get(String name) {
+		return metrics.get(name);
+	}
+
+	public Collection<Metric> getMetrics() {
+		return metrics.values();
+	}
+
+
+	/**
+	 * Writes all metrics in the text exposition format used by Prometheus
+	 * @return
+	 */
+	public String writeText() {
+		StringBuilder out = new StringBuilder();
+		for (Metric metric : metrics.values()) {
+			out.append("# HELP ").append(metric.getName()).append(' ').append(metric.getHelp()).append('\n');
+			out.append("# TYPE ").append(metric.getName()).append(' ').append(metric.getType()).append('\n');
+			metric.writeText(out);
+		}
+		return out.toString();
+	}
+
+	/**
+	 * Makes the metrics visible in JMX (eg. jconsole) under {@link #OBJECT_NAME}
+	 *
+	 * @throws JMException If the bean cannot be registered, eg. it is already registered
+	 */
+	public void registerMBean() throws JMException {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		server.registerMBean(new MetricsMBean(this), new ObjectName(OBJECT_NAME));
+	}
+
+
+	/**
+	 * Helper method that adds the metric, unless there is already one with the same name
+	 *
+	 * @param metric
+	 * @param type
+	 * @return
+	 */
+	private <T extends Metric> T register(T metric, Class<T> type) {
+		Metric existing = metrics.putIfAbsent(metric.getName(), metric);
+		if (existing == null) {
+			return metric;
+		}
+
+		if (! type.isInstance(existing)) {
+			throw new IllegalArgumentException(metric.getName() + " is already registered as a " + existing.getType());
+		}
+		return type.cast(existing);
+	}
+}
@@ -0,0 +1,185 @@
+package server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import metrics.Counter;
+import metrics.MetricsRegistry;
+
+/**
+ * Decides in the accept loop whether a new connection is served.
+ *
+ * <p>The server serves at most a fixed number of connections at a time. A connection over the limit
+ * is sent a QUIT response telling the client when to try again, and closed right away: it never gets a
+ * thread, a session or a name prompt. The QUIT response is encoded once, so rejecting a client is a
+ * single small write that never blocks on a new socket.
+ *
+ * <p>Connections the accept loop has not picked up yet wait in the accept backlog of the server socket.
+ * When the backlog is full, the operating system refuses new connections.
+ *
+ * <p>Every admitted connection must be released exactly once, when it is closed. Thread safe.
+ *
+ * @author user
+ *
+ */
+public class AdmissionControl {
+
+	public static final int DEFAULT_MAX_CONNECTIONS = 10000;
+	public static final int DEFAULT_ACCEPT_BACKLOG = 128;
+	public static final int DEFAULT_RETRY_AFTER_SECONDS = 5;
+
+	// Shared by all transports. See MetricsRegistry
+	private static final Counter REJECTED = MetricsRegistry.getDefault().counter("server_connections_rejected_total", "Connections closed in the accept loop because the server was full");
+
+	private final int maxConnections;
+	private final int acceptBacklog;
+	private final int retryAfterSeconds;
+	private final AtomicInteger open = new AtomicInteger(0);
+
+	// QUIT response sent to rejected clients, including the header of the protocol
+	private final byte[] rejection;
+
+
+	/**
+	 * Admits any number of connections
+	 *
+	 * @param protocol
+	 */
+	public AdmissionControl(ServerOptions.Protocol protocol) {
+		this(Integer.MAX_VALUE, DEFAULT_ACCEPT_BACKLOG, DEFAULT_RETRY_AFTER_SECONDS, protocol);
+	}
+
+	/**
+	 * @param maxConnections Connections served at the same time
+	 * @param acceptBacklog Connections waiting to be accepted, see {@link java.net.ServerSocket#bind(java.net.SocketAddress, int)}
+	 * @param retryAfterSeconds Seconds a rejected client is told to wait before trying again
+	 * @param protocol Protocol used to tell rejected clients the server is full
+	 */
+	public AdmissionControl(int maxConnections, int acceptBacklog, int retryAfterSeconds, ServerOptions.Protocol protocol) {
+		if (maxConnections < 1) {
+			throw new IllegalArgumentException("Server must accept at least 1 connection");
+		}
+
+		this.maxConnections = maxConnections;
+		this.acceptBacklog = acceptBacklog;
+		this.retryAfterSeconds = retryAfterSeconds;
+		this.rejection = encodeRejection(protocol, retryAfterSeconds);
+	}
+
+
+	/**
+	 * Takes a connection slot
+	 * @return false if the server is full, in that case the connection must be rejected
+	 */
+	public boolean tryAdmit() {
+		while (true) {
+			int count = open.get();
+			if (count >= maxConnections) {
+				return false;
+			}
+			if (open.compareAndSet(count, count + 1)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Gives back the slot of an admitted connection. Called once the connection is closed
+	 */
+	public void release() {
+		open.decrementAndGet();
+	}
+
+	/**
+	 * Tells the client the server is full and closes the connection. Called by the accept loop of the blocking transport
+	 * @param socket
+	 */
+	public void reject(Socket socket) {
+		REJECTED.increment();
+		try {
+			socket.getOutputStream().write(rejection);
+		} catch (IOException e) {
+			// client is gone already
+		}
+
+		try {
+			socket.close();
+		} catch (IOException e) {
+			// nothing left to do
+		}
+	}
+
+	/**
+	 * Tells the client the server is full and closes the connection. Called by the accept loop of the nio transport
+	 * @param channel
+	 */
+	public void reject(SocketChannel channel) {
+		REJECTED.increment();
+		try {
+			channel.write(ByteBuffer.wrap(rejection));
+		} catch (IOException e) {
+			// client is gone already
+		}
+
+		try {
+			channel.close();
+		} catch (IOException e) {
+			// nothing left to do
+		}
+	}
+
+
+	/**
+	 * Gets the number of connections being served
+	 * @return
+	 */
+	public int getOpen() {
+		return open.get();
+	}
+
+	public int getMaxConnections() {
+		return maxConnections;
+	}
+
+	public int getAcceptBacklog() {
+		return acceptBacklog;
+	}
+
+	public int getRetryAfterSeconds() {
+		return retryAfterSeconds;
+	}
+
+	/**
+	 * Gets the bytes sent to rejected clients
+	 * @return
+	 */
+	public byte[] getRejection() {
+		return rejection.clone();
+	}
+
+
+	/**
+	 * Helper method that encodes the QUIT response sent to rejected clients
+	 *
+	 * @param protocol
+	 * @param retryAfterSeconds
+	 * @return
+	 */
+	private static byte[] encodeRejection(ServerOptions.Protocol protocol, int retryAfterSeconds) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try {
+			ResponseEncoder encoder = protocol.newEncoder(out);
+			encoder.write(Response.quit(String.format("Server is full, please try again in %d seconds.", retryAfterSeconds)));
+			encoder.flush();
+		} catch (IOException e) {
+			// only written to memory
+			throw new UncheckedIOException(e);
+		}
+		return out.toByteArray();
+	}
+}
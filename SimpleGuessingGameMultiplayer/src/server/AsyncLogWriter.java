@@ -0,0 +1,322 @@
+package server;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * Writes log records in the background so the threads handling the players never wait for the log files.
+ *
+ * <p>Loggers get a handler from newHandler(). The handler only adds the record to a {@link LogRingBuffer}.
+ * A single writer thread takes the records in batches, hands them to the real handlers
+ * (log files, console), and flushes each handler once per batch.
+ *
+ * <p>When the buffer is full, the {@link OverflowPolicy} decides what happens to new records.
+ * Warnings and errors are never dropped, they always wait for free space.
+ *
+ * <p>Records should be created with Logger.logp() so the writer thread does not have to
+ * find out the source method of the record.
+ *
+ * @author user
+ *
+ */
+public class AsyncLogWriter implements AutoCloseable {
+
+	/**
+	 * What happens to a new record when the buffer is full
+	 */
+	public enum OverflowPolicy {
+		/**
+		 * Wait until the writer frees a slot. Nothing is lost
+		 */
+		BLOCK,
+
+		/**
+		 * Drop the new record
+		 */
+		DROP,
+
+		/**
+		 * Once the buffer is 3/4 full, only keep 1 in {@link AsyncLogWriter#SAMPLE_RATE} records.
+		 * Drop everything when full
+		 */
+		SAMPLE
+	}
+
+	public static final int DEFAULT_CAPACITY = 8192;
+
+	/**
+	 * 1 in this number of records is kept by the SAMPLE policy
+	 */
+	public static final int SAMPLE_RATE = 10;
+
+	// number of records written before the handlers are flushed
+	private static final int MAX_BATCH = 256;
+
+	// writer sleeps between these when there is nothing to write
+	private static final long MIN_IDLE_NANOS = 100_000L;
+	private static final long MAX_IDLE_NANOS = 10_000_000L;
+
+	// producers waiting for a free slot (BLOCK) sleep this long
+	private static final long FULL_WAIT_NANOS = 50_000L;
+
+	private final LogRingBuffer<Entry> buffer;
+	private final OverflowPolicy policy;
+	private final int sampleThreshold;
+	private final AtomicLong sampleCounter = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+
+	private final Thread thread;
+	private volatile boolean closed = false;
+
+	// handlers written to since the last flush. Guarded by this
+	private final Set<Handler> dirty = Collections.newSetFromMap(new IdentityHashMap<>());
+
+
+	/**
+	 * Creates the writer and starts its thread
+	 *
+	 * @param capacity Maximum number of records waiting to be written
+	 * @param policy
+	 */
+	public AsyncLogWriter(int capacity, OverflowPolicy policy) {
+		this.buffer = new LogRingBuffer<>(capacity);
+		this.policy = policy;
+		this.sampleThreshold = buffer.capacity() - buffer.capacity() / 4;
+
+		this.thread = new Thread(this::writeLoop, "log-writer");
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+
+	/**
+	 * Creates a handler for a logger. Records published to the handler are
+	 * written to each of the targets by the writer thread.
+	 *
+	 * @param targets
+	 * @return
+	 */
+	public Handler newHandler(Handler... targets) {
+		return new QueueHandler(targets.clone());
+	}
+
+	public OverflowPolicy getPolicy() {
+		return policy;
+	}
+
+	/**
+	 * Gets the number of records dropped by the overflow policy
+	 * @return
+	 */
+	public long getDropped() {
+		return dropped.get();
+	}
+
+	/**
+	 * Gets the number of records waiting to be written
+	 * @return
+	 */
+	public int getPending() {
+		return buffer.size();
+	}
+
+
+	/**
+	 * Writes the remaining records and stops the writer thread.
+	 * Records published afterwards are written directly by the caller.
+	 */
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+
+		LockSupport.unpark(thread);
+		try {
+			thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		// records added while the writer was stopping
+		synchronized (this) {
+			while (writeBatch() > 0);
+			flushDirty();
+		}
+
+		if (dropped.get() > 0) {
+			System.err.printf("%d log records were dropped because the log buffer was full\n", dropped.get());
+		}
+	}
+
+
+	/**
+	 * Helper method that adds the record according to the overflow policy
+	 *
+	 * @param entry
+	 */
+	private void enqueue(Entry entry) {
+		if (closed) {
+			writeNow(entry);
+			return;
+		}
+
+		boolean important = entry.record.getLevel().intValue() >= Level.WARNING.intValue();
+
+		if (policy == OverflowPolicy.SAMPLE && ! important && buffer.size() >= sampleThreshold
+				&& sampleCounter.getAndIncrement() % SAMPLE_RATE != 0) {
+			dropped.incrementAndGet();
+			return;
+		}
+
+		while (! buffer.offer(entry)) {
+			// writer stopped while we were waiting
+			if (closed) {
+				writeNow(entry);
+				return;
+			}
+
+			if (policy != OverflowPolicy.BLOCK && ! important) {
+				dropped.incrementAndGet();
+				return;
+			}
+
+			LockSupport.parkNanos(FULL_WAIT_NANOS);
+		}
+	}
+
+	/**
+	 * Helper method used once the writer thread has stopped
+	 *
+	 * @param entry
+	 */
+	private synchronized void writeNow(Entry entry) {
+		write(entry);
+		flushDirty();
+	}
+
+
+	/**
+	 * Body of the writer thread
+	 */
+	private void writeLoop() {
+		long idleNanos = MIN_IDLE_NANOS;
+
+		while (true) {
+			int count;
+			synchronized (this) {
+				count = writeBatch();
+				if (count == 0) {
+					flushDirty();
+				}
+			}
+
+			if (count > 0) {
+				idleNanos = MIN_IDLE_NANOS;
+				continue;
+			}
+
+			if (closed) {
+				return;
+			}
+
+			// nothing to write, sleep a bit longer each time
+			LockSupport.parkNanos(idleNanos);
+			idleNanos = Math.min(idleNanos * 2, MAX_IDLE_NANOS);
+		}
+	}
+
+	/**
+	 * Helper method that writes up to MAX_BATCH records. Handlers are flushed when the batch is full.
+	 *
+	 * @return number of records written
+	 */
+	private int writeBatch() {
+		int count = 0;
+		Entry entry;
+
+		while (count < MAX_BATCH && (entry = buffer.poll()) != null) {
+			write(entry);
+			count++;
+		}
+
+		if (count == MAX_BATCH) {
+			flushDirty();
+		}
+		return count;
+	}
+
+	private void write(Entry entry) {
+		for (Handler target : entry.targets) {
+			try {
+				target.publish(entry.record);
+				dirty.add(target);
+			}
+			// a broken handler must not stop the writer
+			catch (RuntimeException e) {
+				System.err.println("Sorry, the log record could not be written. " + e.getMessage());
+			}
+		}
+	}
+
+	private void flushDirty() {
+		for (Handler target : dirty) {
+			target.flush();
+		}
+		dirty.clear();
+	}
+
+
+	/**
+	 * Record waiting to be written to its handlers
+	 */
+	private static class Entry {
+		private final LogRecord record;
+		private final Handler[] targets;
+
+		private Entry(LogRecord record, Handler[] targets) {
+			this.record = record;
+			this.targets = targets;
+		}
+	}
+
+	/**
+	 * Handler given to the loggers. Only queues the records
+	 */
+	private class QueueHandler extends Handler {
+		private final Handler[] targets;
+
+		private QueueHandler(Handler[] targets) {
+			this.targets = targets;
+		}
+
+		@Override
+		public void publish(LogRecord record) {
+			if (record == null || ! isLoggable(record)) {
+				return;
+			}
+			enqueue(new Entry(record, targets));
+		}
+
+		/**
+		 * Records are flushed by the writer thread after each batch
+		 */
+		@Override
+		public void flush() {
+		}
+
+		@Override
+		public void close() {
+			for (Handler target : targets) {
+				target.close();
+			}
+		}
+	}
+}
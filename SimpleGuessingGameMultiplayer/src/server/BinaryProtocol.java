@@ -0,0 +1,66 @@
+package server;
+
+import java.nio.charset.Charset;
+
+/**
+ * Constants of the binary protocol. See {@link BinaryResponseEncoder}.
+ *
+ * <p>The server first sends {@link #MAGIC}, then a frame per message:
+ * <pre>
+ * +----------------+-----------+---------------------+
+ * | length (int32) | type (u8) | payload             |
+ * +----------------+-----------+---------------------+
+ * </pre>
+ * The length counts the type and the payload. Payloads of the message types
+ * ({@link Response#PRINTMESSAGE}, {@link Response#READLINE}, {@link Response#QUIT})
+ * are the UTF-8 text of the message. Scores and round summaries have typed payloads:
+ * <pre>
+ * SCORE          correct (u8) | incorrect (u8)
+ * ROUND_SUMMARY  winners: count (u16) then name (string) | guesses (u8) per winner
+ *                losers: count (u16) then name (string) per loser
+ *                forfeited: count (u16) then name (string) per player
+ * string         length (u16) | UTF-8 bytes
+ * </pre>
+ *
+ * <p>The legacy protocol sends serialized {@link Response} objects instead.
+ * Clients tell the protocols apart by the first bytes the server sends,
+ * because a serialization stream always starts with {@link #SERIALIZATION_MAGIC}.
+ *
+ * @author user
+ *
+ */
+public final class BinaryProtocol {
+
+	/**
+	 * First bytes sent by the server, "SGG" and the version of the protocol
+	 */
+	public static final byte[] MAGIC = { 'S', 'G', 'G', 1 };
+
+	/**
+	 * First 2 bytes of a serialization stream (see ObjectOutputStream)
+	 */
+	public static final int SERIALIZATION_MAGIC = 0xACED;
+
+	// Frame types. Message types share the values of Response
+	public static final byte PRINTMESSAGE = Response.PRINTMESSAGE;
+	public static final byte READLINE = Response.READLINE;
+	public static final byte QUIT = Response.QUIT;
+	public static final byte SCORE = 3;
+	public static final byte ROUND_SUMMARY = 4;
+
+	/**
+	 * Frames longer than this are rejected by the client
+	 */
+	public static final int MAX_FRAME_LENGTH = 64 * 1024;
+
+	/**
+	 * Strings longer than this are cut
+	 */
+	public static final int MAX_STRING_LENGTH = 0xFFFF;
+
+	public static final Charset CHARSET = Charset.forName("UTF-8");
+
+	private BinaryProtocol() {
+
+	}
+}
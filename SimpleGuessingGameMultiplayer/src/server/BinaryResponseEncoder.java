@@ -0,0 +1,218 @@
+package server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sends length prefixed binary frames to the client. See {@link BinaryProtocol} for the format.
+ *
+ * <p>Each frame is built in a buffer that is reused for all frames and written with a single write.
+ * No serialization, reflection or class descriptors are involved.
+ *
+ * <p>Frames never go past {@link BinaryProtocol#MAX_FRAME_LENGTH}, the client would reject them.
+ * Text that is too long is cut on a character boundary, and the names of a round summary
+ * that do not fit in the frame are left out.
+ *
+ * @author user
+ *
+ */
+public class BinaryResponseEncoder implements ResponseEncoder {
+
+	private OutputStream out;
+
+	// frame being built. The first 4 bytes are reserved for the length
+	private byte[] buffer = new byte[256];
+	private int position = 0;
+
+
+	/**
+	 * This will write the {@link BinaryProtocol#MAGIC} to the client
+	 *
+	 * @param out
+	 * @throws IOException
+	 */
+	public BinaryResponseEncoder(OutputStream out) throws IOException {
+		this.out = out;
+		out.write(BinaryProtocol.MAGIC);
+	}
+
+	@Override
+	public void write(Response response) throws IOException {
+		begin((byte) response.getType());
+		writeBytes(response.getMessage());
+		end();
+	}
+
+	@Override
+	public void writeScore(Score score) throws IOException {
+		begin(BinaryProtocol.SCORE);
+		writeByte(score.getNumCorrect());
+		writeByte(score.getNumIncorrect());
+		end();
+	}
+
+	@Override
+	public void writeRoundSummary(RoundSummary summary) throws IOException {
+		begin(BinaryProtocol.ROUND_SUMMARY);
+
+		// the counts of the lists that follow are always kept room for
+		int countPosition = position;
+		writeShort(0);
+		int count = 0;
+		for (RoundSummary.Winner winner : summary.getWinners()) {
+			byte[] name = encode(winner.getName(), BinaryProtocol.MAX_STRING_LENGTH);
+			if (! fits(2 + name.length + 1 + 4)) {
+				break;
+			}
+			writeString(name);
+			writeByte(winner.getNumGuesses());
+			count++;
+		}
+		setShort(countPosition, count);
+
+		writeNames(summary.getLosers(), 2);
+		writeNames(summary.getForfeiters(), 0);
+		end();
+	}
+
+	/**
+	 * Frames do not depend on each other, so the bytes are written as they are
+	 */
+	@Override
+	public void writeShared(SharedMessage message) throws IOException {
+		out.write(message.getBytes(ServerOptions.Protocol.BINARY));
+	}
+
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+
+
+	/**
+	 * Helper method that starts a new frame
+	 * @param type
+	 */
+	private void begin(byte type) {
+		position = 4;
+		writeByte(type);
+	}
+
+	/**
+	 * Helper method that fills in the length and sends the frame
+	 * @throws IOException
+	 */
+	private void end() throws IOException {
+		int length = position - 4;
+		buffer[0] = (byte) (length >>> 24);
+		buffer[1] = (byte) (length >>> 16);
+		buffer[2] = (byte) (length >>> 8);
+		buffer[3] = (byte) length;
+
+		out.write(buffer, 0, position);
+	}
+
+	/**
+	 * Helper method that writes the names that fit in the frame, followed by their count
+	 *
+	 * @param names
+	 * @param reserved Bytes kept free for the rest of the frame
+	 */
+	private void writeNames(List<String> names, int reserved) {
+		int countPosition = position;
+		writeShort(0);
+		int count = 0;
+		for (String name : names) {
+			byte[] bytes = encode(name, BinaryProtocol.MAX_STRING_LENGTH);
+			if (! fits(2 + bytes.length + reserved)) {
+				break;
+			}
+			writeString(bytes);
+			count++;
+		}
+		setShort(countPosition, count);
+	}
+
+	/**
+	 * Helper method that checks if the bytes still fit in the current frame
+	 * @param length
+	 * @return
+	 */
+	private boolean fits(int length) {
+		return position - 4 + length <= BinaryProtocol.MAX_FRAME_LENGTH;
+	}
+
+	private void writeByte(int value) {
+		ensureCapacity(1);
+		buffer[position++] = (byte) value;
+	}
+
+	private void writeShort(int value) {
+		ensureCapacity(2);
+		buffer[position++] = (byte) (value >>> 8);
+		buffer[position++] = (byte) value;
+	}
+
+	private void setShort(int at, int value) {
+		buffer[at] = (byte) (value >>> 8);
+		buffer[at + 1] = (byte) value;
+	}
+
+	/**
+	 * Helper method that writes the length of the string followed by its UTF-8 bytes
+	 * @param bytes See encode()
+	 */
+	private void writeString(byte[] bytes) {
+		writeShort(bytes.length);
+		ensureCapacity(bytes.length);
+		System.arraycopy(bytes, 0, buffer, position, bytes.length);
+		position += bytes.length;
+	}
+
+	/**
+	 * Helper method that writes the UTF-8 bytes of the string until the end of the frame
+	 * @param value
+	 */
+	private void writeBytes(String value) {
+		byte[] bytes = encode(value == null ? "" : value, BinaryProtocol.MAX_FRAME_LENGTH - 1);
+
+		ensureCapacity(bytes.length);
+		System.arraycopy(bytes, 0, buffer, position, bytes.length);
+		position += bytes.length;
+	}
+
+	/**
+	 * Helper method that gets the UTF-8 bytes of the string, cut to the given length.
+	 * A character is never split, the client would not be able to decode it
+	 *
+	 * @param value
+	 * @param maxLength
+	 * @return
+	 */
+	private static byte[] encode(String value, int maxLength) {
+		byte[] bytes = value.getBytes(BinaryProtocol.CHARSET);
+		if (bytes.length <= maxLength) {
+			return bytes;
+		}
+
+		// the first byte left out continues a character, so that character is left out as well
+		int length = maxLength;
+		while (length > 0 && (bytes[length] & 0xC0) == 0x80) {
+			length--;
+		}
+		return Arrays.copyOf(bytes, length);
+	}
+
+	private void ensureCapacity(int length) {
+		if (position + length > buffer.length) {
+			buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + length));
+		}
+	}
+}
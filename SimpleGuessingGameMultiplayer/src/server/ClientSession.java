@@ -0,0 +1,42 @@
+package server;
+
+import java.net.Socket;
+
+import core.Game;
+import core.GameManager;
+
+/**
+ * Represents one connected client, regardless of how the connection is driven.
+ * <p>The game of each client is played by a {@link GameSession}. The blocking transport
+ * drives it using {@link ServerProcess} (1 thread per client) while the NIO transport
+ * uses {@link NioSession} (many clients per event loop).
+ * Server callbacks only depend on this interface so they work with both.
+ *
+ * @author user
+ *
+ */
+public interface ClientSession {
+
+	/**
+	 * Gets the socket of the connected client
+	 * @return
+	 */
+	Socket getSocket();
+
+	/**
+	 * Gets the game the client is playing
+	 * @return null if the client has no room yet
+	 */
+	Game getGame();
+
+	/**
+	 * Gets the game manager of the client. There is 1 game manager per client.
+	 * @return null if the client has no room yet
+	 */
+	GameManager getGameManager();
+
+	/**
+	 * Close the connection to the client
+	 */
+	void close();
+}
@@ -0,0 +1,177 @@
+package server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Single threaded event loop used by the {@link NioTransport}.
+ *
+ * <p>Each event loop owns a {@link Selector} and drives the reads and writes of
+ * all connections registered to it. Work from other threads is handed over
+ * using execute(), so connection and session state is only ever touched by
+ * the thread running this loop. Delayed tasks are tracked by the {@link TimerWheel}
+ * of the server, which hands them over using execute() when they are due.
+ *
+ * <p>The loop also owns a single read buffer shared by all of its
+ * connections. Connections only keep the bytes of the line they are
+ * currently receiving, which keeps the memory per connection small.
+ *
+ * @author user
+ *
+ */
+public class EventLoop implements Runnable {
+
+	public static final int READ_BUFFER_SIZE = 16 * 1024;
+
+	private final String name;
+	private final Selector selector;
+	private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+
+	// tasks handed over by other threads
+	private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+	// avoid calling selector.wakeup() if it has already been called
+	private final AtomicBoolean wakenUp = new AtomicBoolean(false);
+
+	private volatile boolean running = true;
+	private Thread thread;
+
+
+	public EventLoop(String name) throws IOException {
+		this.name = name;
+		this.selector = Selector.open();
+	}
+
+
+	/**
+	 * Starts the loop in a new thread
+	 */
+	public void start() {
+		thread = new Thread(this, name);
+		thread.start();
+	}
+
+	/**
+	 * Stops the loop. Connections that are still registered are closed.
+	 */
+	public void shutdown() {
+		running = false;
+		selector.wakeup();
+	}
+
+	/**
+	 * Check if the caller is running inside this event loop
+	 * @return
+	 */
+	public boolean inEventLoop() {
+		return Thread.currentThread() == thread;
+	}
+
+
+	/**
+	 * Runs the task inside this event loop. Can be called from any thread.
+	 * @param task
+	 */
+	public void execute(Runnable task) {
+		tasks.add(task);
+		if (! inEventLoop() && wakenUp.compareAndSet(false, true)) {
+			selector.wakeup();
+		}
+	}
+
+
+	/**
+	 * Register the connection to this loop. Can be called from any thread.
+	 * @param connection
+	 */
+	public void register(NioConnection connection) {
+		execute(() -> {
+			try {
+				connection.register(selector);
+			} catch (IOException e) {
+				connection.close();
+			}
+		});
+	}
+
+
+	@Override
+	public void run() {
+		while (running) {
+			try {
+				wakenUp.set(false);
+				
+				// do not block if there are tasks waiting to be run
+				if (tasks.isEmpty()) {
+					selector.select();
+				} else {
+					selector.selectNow();
+				}
+
+				Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+				while (iterator.hasNext()) {
+					SelectionKey key = iterator.next();
+					iterator.remove();
+
+					NioConnection connection = (NioConnection) key.attachment();
+					try {
+						connection.handle(key, readBuffer);
+					}
+					// a bug in a session only costs its own connection, the others keep going
+					catch (RuntimeException e) {
+						System.err.println("Sorry something went wrong in " + name + ". " + e);
+						close(connection);
+					}
+				}
+
+				runTasks();
+			}
+			catch (IOException e) {
+				System.err.println("Sorry something went wrong in " + name + ". " + e.getMessage());
+			}
+		}
+
+		// close all connections still registered
+		for (SelectionKey key : selector.keys()) {
+			if (key.attachment() instanceof NioConnection) {
+				close((NioConnection) key.attachment());
+			}
+		}
+
+		try {
+			selector.close();
+		} catch (IOException e) {
+			System.err.println("Sorry something went wrong while closing " + name + ". " + e.getMessage());
+		}
+	}
+
+
+	/**
+	 * Helper method that closes the connection. The session may fail again while it is being closed
+	 * @param connection
+	 */
+	private void close(NioConnection connection) {
+		try {
+			connection.close();
+		} catch (RuntimeException e) {
+			System.err.println("Sorry something went wrong while closing a connection in " + name + ". " + e);
+		}
+	}
+
+	private void runTasks() {
+		Runnable task;
+		while ((task = tasks.poll()) != null) {
+			try {
+				task.run();
+			} catch (RuntimeException e) {
+				System.err.println("Sorry something went wrong in " + name + ". " + e.getMessage());
+			}
+		}
+	}
+}
@@ -0,0 +1,923 @@
+package server;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.util.concurrent.CompletableFuture;
+
+import core.Game;
+import core.GameCallback;
+import core.GameCallbackImpl;
+import core.GameManager;
+import core.GameRound;
+import core.RoundCoordinator;
+import metrics.Counter;
+import metrics.Gauge;
+import metrics.Histogram;
+import metrics.MetricsRegistry;
+
+/**
+ * Class that orchestrates how the game will run for 1 client.
+ * You can treat this as the main controller of the game project.
+ *
+ * <p>The game is a state machine. The session remembers which step of the game
+ * the client is in (see {@link State}), and each line the client sends moves the
+ * session to the next step:
+ * <pre>
+ * name -> digits -> wait for match -> wait for players -> guess, guess, ... -> wait for others -> continue or quit
+ *                                           ^                                                        |
+ *                                           +--------------------------------------------------------+
+ * </pre>
+ * The player does not have a room until the {@link Matchmaker} has found one for the number
+ * of digits the player wants. The players sent to a new room together start playing as soon as
+ * they have all signed up, a player sent to a room that is already playing joins the current round.
+ *
+ * <p>Steps that need other players (waiting for a room, waiting for the group, waiting for the others
+ * to finish) wait for a future of the {@link Matchmaker} or the {@link RoundCoordinator}. When the future
+ * completes, the session is resumed on the thread of its {@link SessionDriver}.
+ *
+ * <p>Every question sent to the client has a time limit (see {@link SessionTimeouts}).
+ * A player that takes too long to guess forfeits the round, a client that takes too long
+ * to answer anything else is disconnected.
+ *
+ * <p>When the connection of a player drops, the session is parked for a while (see {@link ParkedSessions}).
+ * A new connection can take it over by entering the token of the player instead of its name,
+ * and carries on from the same step, in the same room and round.
+ *
+ * <p>When the server is shutting down (see {@link ServerDrain}), players finish the round they are playing,
+ * then they are told to reconnect and disconnected.
+ *
+ * <p>The session never blocks, so it does not need a thread of its own. It can be driven by
+ * a thread per client ({@link ServerProcess}) or an event loop ({@link NioSession}).
+ * All methods must be called from the thread of the driver.
+ *
+ * @author user
+ *
+ */
+public class GameSession implements ClientSession {
+
+	/**
+	 * The players sent to a room together normally sign up within milliseconds.
+	 * If one of them is gone before signing up, the round starts without it after this time
+	 */
+	public static final int WAITING_TIME_SECONDS = 5;
+
+	/**
+	 * Longest name a player can sign up with. Names are sent to the whole room in the round summary
+	 */
+	public static final int MAX_NAME_LENGTH = 32;
+
+	// Shared by all sessions. See MetricsRegistry
+	private static final Counter SESSIONS = MetricsRegistry.getDefault().counter("server_sessions_total", "Sessions created");
+	private static final Gauge ACTIVE_SESSIONS = MetricsRegistry.getDefault().gauge("server_sessions_active", "Sessions that are not closed");
+	private static final Counter RESPONSES = MetricsRegistry.getDefault().counter("server_responses_total", "Responses sent to the clients");
+	private static final Histogram EVENT_LATENCY = MetricsRegistry.getDefault().latency("server_event_seconds", "Time to handle a reply of a client or a wake up, including the flush");
+	private static final Histogram LOBBY_WAIT = MetricsRegistry.getDefault().latency("server_lobby_wait_seconds", "Time from entering the lobby until the round starts");
+	private static final Counter TURN_TIMEOUTS = MetricsRegistry.getDefault().counter("server_turn_timeouts_total", "Players that forfeited because they took too long to guess");
+	private static final Counter IDLE_TIMEOUTS = MetricsRegistry.getDefault().counter("server_idle_timeouts_total", "Clients disconnected because they took too long to reply");
+	private static final Counter DRAINED = MetricsRegistry.getDefault().counter("server_sessions_drained_total", "Clients told to reconnect because the server was shutting down");
+
+	/**
+	 * The steps of the game
+	 */
+	public enum State {
+		ENTER_NAME,
+		ENTER_DIGITS,
+		WAIT_FOR_MATCH,
+		WAIT_FOR_PLAYERS,
+		ENTER_GUESS,
+		WAIT_FOR_ROUND_END,
+		CONTINUE_OR_QUIT,
+		WAIT_FOR_NEXT_ROUND,
+		CLOSED
+	}
+
+	private Room room;
+	private Game game;
+	private SessionDriver driver;
+	private ServerCallback cb;
+	private GameManager manager;
+	private RoundCoordinator coordinator;
+	private GameCallback gameLoggerCallback;
+	private SessionTimeouts timeouts;
+	private ParkedSessions parkedSessions;
+	private Matchmaker matchmaker;
+	private ServerDrain drain;
+
+	private State state = State.ENTER_NAME;
+	private boolean closed = false;
+	private SessionDriver.Timeout lobbyTimeout;
+
+	// time limit of the question the client is answering. Increased every time
+	// a question is asked, so a timeout firing late cannot end a later question
+	private SessionDriver.Timeout inputTimeout;
+	private int inputId = 0;
+
+	// increased every time the session starts waiting, so a future
+	// completing late cannot wake the session up in a later step
+	private int waitId = 0;
+
+	// future the session is waiting for, see waitFor()
+	private CompletableFuture<?> waitingFor;
+
+	// name entered by the client, signed up once the player has a room
+	private String playerName;
+
+	// room request of the player, null until the number of digits has been entered
+	private Matchmaker.Ticket ticket;
+
+	// round the player is playing
+	private GameRound playedRound;
+
+	// token of the player, null until signed up or if the session cannot be resumed
+	private String token;
+
+	// step of the game when the connection dropped. Used when the session is resumed
+	private State parkedState;
+
+	// System.nanoTime() when the player entered the lobby, 0 if not in the lobby
+	private long lobbyEnteredAt = 0;
+
+
+	/**
+	 * Creates the session. The session gets a room once the player has entered its name and number of digits
+	 *
+	 * @param driver
+	 * @param callback
+	 * @param gameLoggerCallback Usually a QueuedGameCallback, so the game does not wait for the log
+	 * @param timeouts Time limits shared by all sessions
+	 * @param parkedSessions Sessions of dropped connections, shared by all sessions
+	 * @param matchmaker Finds the rooms, shared by all sessions
+	 * @param drain Shuts the server down without dropping the games, shared by all sessions
+	 */
+	public GameSession(SessionDriver driver, ServerCallback callback, GameCallback gameLoggerCallback, SessionTimeouts timeouts, ParkedSessions parkedSessions, Matchmaker matchmaker, ServerDrain drain) {
+		this.driver = driver;
+		this.cb = callback;
+		this.gameLoggerCallback = gameLoggerCallback;
+		this.timeouts = timeouts;
+		this.parkedSessions = parkedSessions;
+		this.matchmaker = matchmaker;
+		this.drain = drain;
+
+		drain.add(this);
+
+		SESSIONS.increment();
+		ACTIVE_SESSIONS.increment();
+	}
+
+	@Override
+	public Socket getSocket() {
+		return driver.getSocket();
+	}
+
+	@Override
+	public Game getGame() {
+		return game;
+	}
+
+	/**
+	 * Gets the room of the player
+	 * @return null if no room has been found yet
+	 */
+	public Room getRoom() {
+		return room;
+	}
+
+	@Override
+	public GameManager getGameManager() {
+		return manager;
+	}
+
+	public State getState() {
+		return state;
+	}
+
+	/**
+	 * Check if the session is waiting for other players.
+	 * The client is not expected to send anything while waiting.
+	 * @return
+	 */
+	public boolean isWaiting() {
+		return state == State.WAIT_FOR_MATCH
+			|| state == State.WAIT_FOR_PLAYERS
+			|| state == State.WAIT_FOR_ROUND_END
+			|| state == State.WAIT_FOR_NEXT_ROUND;
+	}
+
+	public boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * Gets the token used to resume this session
+	 * @return null if the player has not signed up yet, or resumption is disabled
+	 */
+	public String getToken() {
+		return token;
+	}
+
+
+	/**
+	 * Starts the game by asking for the player name
+	 */
+	public void begin() {
+		// accepted just before the server stopped accepting
+		if (drain.isDraining()) {
+			leaveForRestart();
+			return;
+		}
+
+		readline("Enter your name: ");
+		flush();
+	}
+
+
+	/**
+	 * Client sent a reply. Moves the game to the next step.
+	 */
+	public void onLine(String line) {
+		if (closed) {
+			return;
+		}
+
+		long start = System.nanoTime();
+		cancelInputTimeout();
+		cb.onClientReply(this, line);
+		String reply = line.trim();
+
+		try {
+			switch (state) {
+				case ENTER_NAME:
+					onName(reply);
+					break;
+				case ENTER_DIGITS:
+					onDigits(reply);
+					break;
+				case ENTER_GUESS:
+					onGuess(reply);
+					break;
+				case CONTINUE_OR_QUIT:
+					onContinueOrQuit(reply);
+					break;
+				default:
+					// client is not expected to send anything while waiting
+					break;
+			}
+		}
+		// in case an Exception occurred, fire onException() event
+		catch (Exception e) {
+			cb.onException(this, e);
+			close();
+		}
+		finally {
+			flush();
+			EVENT_LATENCY.record(System.nanoTime() - start);
+		}
+	}
+
+
+	/**
+	 * Helper method that makes the session wait in the given step until the future completes
+	 *
+	 * @param waitState
+	 * @param future
+	 */
+	private void waitFor(State waitState, CompletableFuture<?> future) {
+		cancelInputTimeout();
+		state = waitState;
+		waitingFor = future;
+		int id = ++waitId;
+		future.thenRun(() -> driver.execute(() -> onWake(id)));
+	}
+
+	/**
+	 * The future the session was waiting for has completed.
+	 * Moves the game to the next step.
+	 *
+	 * @param id
+	 */
+	private void onWake(int id) {
+		// the session has already moved on (eg. lobby timeout) or was closed
+		if (id != waitId || closed) {
+			return;
+		}
+
+		long start = System.nanoTime();
+		try {
+			switch (state) {
+				case WAIT_FOR_MATCH:
+					onMatched();
+					break;
+				case WAIT_FOR_NEXT_ROUND:
+					enterLobby(0);
+					break;
+				case WAIT_FOR_PLAYERS:
+					startRound();
+					break;
+				case WAIT_FOR_ROUND_END:
+					finishRound();
+					break;
+				default:
+					break;
+			}
+		}
+		catch (Exception e) {
+			cb.onException(this, e);
+			close();
+		}
+		finally {
+			flush();
+			EVENT_LATENCY.record(System.nanoTime() - start);
+		}
+	}
+
+
+	private void onName(String name) throws Exception {
+		if (name.isEmpty()) {
+			sendError("Please enter non empty input.");
+			readline("Enter your name: ");
+			return;
+		}
+
+		// client is coming back after its connection dropped
+		if (name.startsWith(ParkedSessions.RESUME_COMMAND + " ")) {
+			resume(name.substring(ParkedSessions.RESUME_COMMAND.length()).trim());
+			return;
+		}
+
+		if (name.length() > MAX_NAME_LENGTH) {
+			sendError("Please enter a name of at most " + MAX_NAME_LENGTH + " characters.");
+			readline("Enter your name: ");
+			return;
+		}
+
+		// signed up once the player has a room
+		playerName = name;
+		state = State.ENTER_DIGITS;
+		readline("Enter number of digits: ");
+	}
+
+	private void onDigits(String reply) throws Exception {
+		if (reply.isEmpty()) {
+			sendError("Please enter non empty input.");
+			readline("Enter number of digits: ");
+			return;
+		}
+
+		int numDigits;
+		try {
+			numDigits = Integer.parseInt(reply);
+		} catch (NumberFormatException e) {
+			sendError(reply + " is not a valid number");
+			readline("Enter number of digits: ");
+			return;
+		}
+
+		if (numDigits < Game.MIN_DIGITS || numDigits > Game.MAX_DIGITS) {
+			sendError(String.format("Number of digits must be %d - %d.", Game.MIN_DIGITS, Game.MAX_DIGITS));
+			readline("Enter number of digits: ");
+			return;
+		}
+
+		// every player chooses, the matchmaker sends the player to a room of its number of digits
+		ticket = matchmaker.enqueue(numDigits);
+		if (ticket.getFuture().isDone()) {
+			onMatched();
+			return;
+		}
+
+		reply("Looking for players that want " + numDigits + " digits...");
+		waitFor(State.WAIT_FOR_MATCH, ticket.getFuture());
+	}
+
+	/**
+	 * Helper method that signs the player up in the room found by the matchmaker, then waits for the others of its group
+	 *
+	 * @throws Exception
+	 */
+	private void onMatched() throws Exception {
+		room = ticket.getRoom();
+		game = room.getGame();
+		coordinator = game.getCoordinator();
+		manager = newGameManager();
+		room.enter(this);
+
+		room.getLock().lock();
+		try {
+			manager.setCurrentPlayerName(playerName);
+		} finally {
+			room.getLock().unlock();
+		}
+
+		// no group of the number of digits was formed in time
+		if (manager.getNumDigits() != ticket.getNumDigits()) {
+			reply(String.format("No other players wanted %d digits, you will play with %d digits.",
+				ticket.getNumDigits(), manager.getNumDigits()));
+		}
+
+		if (parkedSessions.isEnabled()) {
+			token = parkedSessions.newToken();
+			reply(String.format("If you get disconnected, reconnect and enter '%s %s' as your name to continue.",
+				ParkedSessions.RESUME_COMMAND, token));
+		}
+
+		enterLobby(ticket.getGroupSize());
+	}
+
+	private void onGuess(String guess) throws Exception {
+		room.getLock().lock();
+		try {
+			manager.addGuess(guess);
+		} finally {
+			room.getLock().unlock();
+		}
+
+		// player wins if it guessed the secret code correctly
+		// otherwise if it guessed the 10th time, the player loses
+		// Player forfeits if it enters 'f'
+		if (! manager.isCurrentPlayerForfeited() && ! manager.playerWins() && ! manager.playerLoses()) {
+			readline("Enter your guess: ");
+			return;
+		}
+
+		// if round has not ended, wait for others to finish until they forfeit, win or lose
+		if (! playedRound.hasEnded()) {
+			reply("Wait for other players to finish...");
+			waitFor(State.WAIT_FOR_ROUND_END, coordinator.whenRoundEnded(playedRound));
+			return;
+		}
+
+		finishRound();
+	}
+
+	private void onContinueOrQuit(String reply) throws Exception {
+		reply = reply.toLowerCase();
+
+		if (reply.isEmpty()) {
+			sendError("Please enter non empty input.");
+			readline("Press (p) to continue to play, or (q) to quit: ");
+			return;
+		}
+
+		// player quits, in that case the others no longer wait for this player
+		if (reply.equals("q")) {
+			token = null;
+			room.getLock().lock();
+			try {
+				manager.quitPlayer();
+			} finally {
+				room.getLock().unlock();
+			}
+			close();
+			return;
+		}
+
+		if (! reply.equals("p")) {
+			sendError("Please enter 'p' or 'q'.");
+			readline("Press (p) to continue to play, or (q) to quit: ");
+			return;
+		}
+
+		// the round cannot move on without this player,
+		// so this is still the future of the round that has just ended
+		CompletableFuture<Void> allPlayersChosen = coordinator.whenAllPlayersChosen();
+		room.getLock().lock();
+		try {
+			manager.chooseToContinue();
+		} finally {
+			room.getLock().unlock();
+		}
+
+		// If there are other players that are not finished, wait for them.
+		// The last player to choose completes the future
+		if (! allPlayersChosen.isDone()) {
+			reply("Please wait for other players to finish before next round begins...");
+			waitFor(State.WAIT_FOR_NEXT_ROUND, allPlayersChosen);
+			return;
+		}
+
+		// if player decided to continue, play the game all over again
+		enterLobby(0);
+	}
+
+
+	/**
+	 * Helper method that waits until the players sent to the room together have signed up.
+	 * Players of a group smaller than {@link Game#MIN_PLAYERS}, players joining a room that
+	 * is already playing and players of the next rounds start right away.
+	 *
+	 * @param groupSize Number of players sent to the room together with this player, 0 if none
+	 * @throws Exception
+	 */
+	private void enterLobby(int groupSize) throws Exception {
+		lobbyEnteredAt = System.nanoTime();
+
+		CompletableFuture<Void> playersJoined = coordinator.whenPlayersJoined();
+		if (groupSize >= Game.MIN_PLAYERS && manager.getNumPlayers() < Game.MIN_PLAYERS) {
+			reply("Waiting for other players...");
+			waitFor(State.WAIT_FOR_PLAYERS, playersJoined);
+			lobbyTimeout = driver.schedule(this::onLobbyTimeout, WAITING_TIME_SECONDS * 1000);
+			return;
+		}
+
+		startRound();
+	}
+
+	private void onLobbyTimeout() {
+		lobbyTimeout = null;
+		if (state != State.WAIT_FOR_PLAYERS || closed) {
+			return;
+		}
+
+		// the players may still join later, ignore them
+		waitId++;
+
+		try {
+			startRound();
+		} catch (Exception e) {
+			cb.onException(this, e);
+			close();
+		} finally {
+			flush();
+		}
+	}
+
+	/**
+	 * The client did not answer the question in time.
+	 * A player that is guessing forfeits the round, otherwise the client is disconnected.
+	 *
+	 * @param id
+	 */
+	private void onInputTimeout(int id) {
+		if (id != inputId || closed) {
+			return;
+		}
+		inputTimeout = null;
+
+		long start = System.nanoTime();
+		try {
+			if (state == State.ENTER_GUESS) {
+				TURN_TIMEOUTS.increment();
+				reply("Time is up, you forfeit this round.");
+				onGuess("f");
+			} else {
+				// the player was there but did not reply, do not keep the seat
+				token = null;
+				IDLE_TIMEOUTS.increment();
+				reply("You have been disconnected for not replying in time.");
+				flush();
+				close();
+			}
+		}
+		catch (Exception e) {
+			cb.onException(this, e);
+			close();
+		}
+		finally {
+			flush();
+			EVENT_LATENCY.record(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Helper method that starts the round, or joins the player if the round has already started
+	 *
+	 * @throws Exception
+	 */
+	private void startRound() throws Exception {
+		if (lobbyTimeout != null) {
+			lobbyTimeout.cancel();
+			lobbyTimeout = null;
+		}
+
+		// no new rounds while the server is shutting down
+		if (drain.isDraining()) {
+			leaveForRestart();
+			return;
+		}
+
+		// players of the previous round may still be choosing to continue or quit
+		CompletableFuture<Void> roundCanStart = coordinator.whenRoundCanStart();
+		if (! roundCanStart.isDone()) {
+			waitFor(State.WAIT_FOR_NEXT_ROUND, roundCanStart);
+			return;
+		}
+
+		// only 1 session of the room at a time is allowed to start a new round
+		room.getLock().lock();
+		try {
+			manager.startNextRound();
+
+			// in case the round had already started,
+			// join the player in the current round
+			manager.joinCurrentPlayer();
+			playedRound = game.getCurrentRound();
+		} finally {
+			room.getLock().unlock();
+		}
+
+		if (lobbyEnteredAt != 0) {
+			LOBBY_WAIT.record(System.nanoTime() - lobbyEnteredAt);
+			lobbyEnteredAt = 0;
+		}
+
+		state = State.ENTER_GUESS;
+		readline("Enter your guess: ");
+	}
+
+	/**
+	 * Helper method that ends the round and asks the player to continue or quit
+	 */
+	private void finishRound() {
+		// when the player reached this point means other players
+		// have won, lost or forfeited
+		room.getLock().lock();
+		try {
+			manager.endCurrentRound();
+		} finally {
+			room.getLock().unlock();
+		}
+
+		// the round has been played, the next one will be on another server
+		if (drain.isDraining()) {
+			leaveForRestart();
+			return;
+		}
+
+		state = State.CONTINUE_OR_QUIT;
+		readline("Press (p) to continue to play, or (q) to quit: ");
+	}
+
+
+	/**
+	 * Close the connection. The player is removed from the game.
+	 */
+	@Override
+	public void close() {
+		driver.close();
+	}
+
+	/**
+	 * Connection was closed by either the client or the server. Called by the driver.
+	 * A player that has signed up is parked, so it can resume the session.
+	 */
+	public void onClosed() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		parkedState = state;
+		state = State.CLOSED;
+		ACTIVE_SESSIONS.decrement();
+
+		if (lobbyTimeout != null) {
+			lobbyTimeout.cancel();
+			lobbyTimeout = null;
+		}
+		cancelInputTimeout();
+		cb.onClientDisconnected(null, getSocket(), this);
+
+		try {
+			// the player has not entered a room
+			if (room == null) {
+				Room matched = ticket != null ? matchmaker.cancel(ticket) : null;
+				if (matched != null) {
+					matched.cancelSeat();
+				}
+				return;
+			}
+
+			// the player keeps its seat, guesses and status for now.
+			// A draining server does not wait for the player to come back
+			if (token != null && ! drain.isDraining()) {
+				parkedSessions.park(token, this);
+				return;
+			}
+
+			leaveGame();
+		} finally {
+			drain.remove(this);
+		}
+	}
+
+	/**
+	 * The server is shutting down. Called by {@link ServerDrain}, the session is told on the thread of its driver
+	 */
+	void requestDrain() {
+		driver.execute(this::onDrain);
+	}
+
+	/**
+	 * The server could not wait any longer for the round to finish. Called by {@link ServerDrain}
+	 */
+	void requestLeave() {
+		driver.execute(() -> {
+			if (! closed) {
+				leaveForRestart();
+			}
+		});
+	}
+
+	/**
+	 * The server is shutting down. A player in a round finishes the round (see finishRound()),
+	 * everyone else is disconnected right away.
+	 */
+	private void onDrain() {
+		if (closed) {
+			return;
+		}
+
+		// the session cannot be resumed on this server anymore
+		token = null;
+
+		if (state == State.ENTER_GUESS || state == State.WAIT_FOR_ROUND_END) {
+			reply("The server is restarting. You can finish this round, then please reconnect to continue playing.");
+			flush();
+			return;
+		}
+
+		leaveForRestart();
+	}
+
+	/**
+	 * Helper method that tells the client to reconnect and closes the connection. The player leaves the game.
+	 */
+	private void leaveForRestart() {
+		token = null;
+		DRAINED.increment();
+		send(Response.quit("The server is restarting, please reconnect to continue playing."));
+		flush();
+		close();
+	}
+
+	/**
+	 * The player did not come back in time. Called by {@link ParkedSessions} on the thread of the timer wheel,
+	 * nothing else uses the session anymore.
+	 */
+	void expire() {
+		leaveGame();
+	}
+
+	/**
+	 * Helper method that removes the player from the game and gives back its seat
+	 */
+	private void leaveGame() {
+		room.getLock().lock();
+		try {
+			manager.removeCurrentPlayer();
+		} finally {
+			room.getLock().unlock();
+		}
+
+		room.leave(this);
+	}
+
+
+	/**
+	 * Helper method that takes over the parked session of the token. The player carries on
+	 * from the step it was in, in its own room and round, using the connection of this session.
+	 *
+	 * @param parkedToken
+	 */
+	private void resume(String parkedToken) {
+		GameSession parked = parkedSessions.resume(parkedToken);
+		if (parked == null) {
+			sendError("The session cannot be resumed anymore.");
+			readline("Enter your name: ");
+			return;
+		}
+
+		// take the seat of the player
+		parked.room.replace(parked, this);
+
+		room = parked.room;
+		game = parked.game;
+		coordinator = parked.coordinator;
+		playedRound = parked.playedRound;
+		lobbyEnteredAt = parked.lobbyEnteredAt;
+		token = parked.token;
+
+		// responses of the game now go to this connection
+		manager = newGameManager();
+		manager.setCurrentPlayer(parked.manager.getCurrentPlayer());
+
+		reply("Welcome back " + manager.getCurrentPlayer().getName() + "!");
+
+		switch (parked.parkedState) {
+			case ENTER_GUESS:
+				state = State.ENTER_GUESS;
+				readline("Enter your guess: ");
+				break;
+			case CONTINUE_OR_QUIT:
+				state = State.CONTINUE_OR_QUIT;
+				readline("Press (p) to continue to play, or (q) to quit: ");
+				break;
+			case WAIT_FOR_PLAYERS:
+				waitFor(State.WAIT_FOR_PLAYERS, parked.waitingFor);
+				long waited = (System.nanoTime() - lobbyEnteredAt) / 1_000_000;
+				lobbyTimeout = driver.schedule(this::onLobbyTimeout, Math.max(0, WAITING_TIME_SECONDS * 1000 - waited));
+				break;
+			default:
+				// waiting for other players, the same future wakes this session up
+				waitFor(parked.parkedState, parked.waitingFor);
+				break;
+		}
+	}
+
+	/**
+	 * Helper method that creates the game manager of this session.
+	 * Responses only go to the outbox while the room is locked,
+	 * the outbox is sent after the event (see flush()), so they are delivered inline
+	 *
+	 * @return
+	 */
+	private GameManager newGameManager() {
+		GameManager gameManager = new GameManager(game);
+		gameManager.addCallback(new GameCallbackImpl(driver.getEncoder(), room.getBroadcast()));
+		gameManager.addCallback(gameLoggerCallback);
+		return gameManager;
+	}
+
+
+	/**
+	 * Helper method that sends a message to the client
+	 * @param message
+	 */
+	private void reply(String message) {
+		send(Response.message(message));
+	}
+
+	/**
+	 * Helper method that asks the client for input. The reply will arrive in onLine(),
+	 * unless the time limit of the question runs out first (see onInputTimeout())
+	 * @param message
+	 */
+	private void readline(String message) {
+		send(Response.readLine(message));
+
+		cancelInputTimeout();
+		long limit = state == State.ENTER_GUESS ? timeouts.getTurnMillis() : timeouts.getIdleMillis();
+		if (limit > 0 && ! driver.isClosed()) {
+			int id = inputId;
+			inputTimeout = driver.schedule(() -> onInputTimeout(id), limit);
+		}
+	}
+
+	/**
+	 * Helper method that stops the time limit of the current question
+	 */
+	private void cancelInputTimeout() {
+		inputId++;
+		if (inputTimeout != null) {
+			inputTimeout.cancel();
+			inputTimeout = null;
+		}
+	}
+
+	/**
+	 * Send a message to the client. Message is prepended with "ERROR: "
+	 * @param message
+	 */
+	private void sendError(String message) {
+		send(Response.message("ERROR: " + message));
+	}
+
+	/**
+	 * Helper method to send responses to the client.
+	 * Uses the encoder of the driver (serialized objects or binary frames).
+	 * The client then unpacks the contents of the response
+	 *
+	 * @param response
+	 */
+	private void send(Response response) {
+		if (driver.isClosed()) {
+			return;
+		}
+
+		try {
+			driver.getEncoder().write(response);
+			RESPONSES.increment();
+			cb.onSendResponse(this, response);
+		} catch (IOException e) {
+			cb.onException(this, e);
+		}
+	}
+
+	/**
+	 * Helper method that is called after each event, once the room is unlocked.
+	 * Hands everything the encoder still buffers for this event to the transport.
+	 * The transport sends it without blocking. A client that is too slow to read
+	 * its responses may be disconnected (see {@link OutboundBuffer}).
+	 */
+	private void flush() {
+		if (driver.isClosed()) {
+			return;
+		}
+
+		try {
+			driver.getEncoder().flush();
+		} catch (IOException e) {
+			cb.onException(this, e);
+			close();
+		}
+	}
+}
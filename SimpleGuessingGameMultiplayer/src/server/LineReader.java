@@ -0,0 +1,87 @@
+package server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Reads the lines sent by a client of the blocking transport ({@link ServerProcess}).
+ *
+ * <p>Unlike BufferedReader, lines are split the same way as {@link NioConnection}: on '\n', without the
+ * carriage return sent by windows clients, and up to {@link NioConnection#MAX_LINE_LENGTH} bytes.
+ * A client sending longer lines is disconnected instead of filling the memory of the server.
+ *
+ * @author user
+ *
+ */
+public class LineReader implements AutoCloseable {
+
+	private final InputStream in;
+	private final byte[] buffer = new byte[1024];
+	private int position = 0;
+	private int limit = 0;
+
+	// bytes of the line currently being received
+	private byte[] line = new byte[64];
+	private int lineLength = 0;
+
+
+	public LineReader(InputStream in) {
+		this.in = in;
+	}
+
+
+	/**
+	 * Reads the next line
+	 *
+	 * @return Line without the line terminator, or null if the client disconnected
+	 * @throws IOException The line is too long, or the connection failed
+	 */
+	public String readLine() throws IOException {
+		while (true) {
+			if (position == limit) {
+				int count = in.read(buffer);
+				if (count < 0) {
+					return null;
+				}
+				position = 0;
+				limit = count;
+			}
+
+			while (position < limit) {
+				byte b = buffer[position++];
+
+				if (b != '\n') {
+					appendToLine(b);
+					continue;
+				}
+
+				// remove the carriage return sent by windows clients
+				int length = lineLength;
+				if (length > 0 && line[length - 1] == '\r') {
+					length--;
+				}
+
+				lineLength = 0;
+				return new String(line, 0, length);
+			}
+		}
+	}
+
+	private void appendToLine(byte b) throws IOException {
+		if (lineLength == NioConnection.MAX_LINE_LENGTH) {
+			throw new IOException("Line is longer than " + NioConnection.MAX_LINE_LENGTH + " bytes");
+		}
+
+		if (lineLength == line.length) {
+			line = Arrays.copyOf(line, Math.min(line.length * 2, NioConnection.MAX_LINE_LENGTH));
+		}
+
+		line[lineLength++] = b;
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+}
@@ -0,0 +1,135 @@
+package server;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free queue used by the {@link AsyncLogWriter}.
+ * Any number of threads can add to the queue, but only 1 thread (the log writer) can take from it.
+ *
+ * <p>Each slot has a sequence number that tells whose turn it is. A producer claims the next
+ * position with a compare and set, stores the element, then publishes it by moving the sequence.
+ * The consumer frees the slot by moving the sequence 1 lap ahead. No locks, so a player thread
+ * that logs never waits for the thread writing the log file.
+ *
+ * @author user
+ *
+ * @param <E>
+ */
+public class LogRingBuffer<E> {
+
+	private final int capacity;
+	private final int mask;
+	private final AtomicReferenceArray<E> elements;
+	private final AtomicLongArray sequences;
+
+	// next position claimed by producers
+	private final AtomicLong tail = new AtomicLong();
+
+	// next position taken by the consumer. Only written by the consumer
+	private volatile long head = 0;
+
+
+	/**
+	 * @param capacity Rounded up to the next power of 2
+	 */
+	public LogRingBuffer(int capacity) {
+		if (capacity < 1 || capacity > (1 << 30)) {
+			throw new IllegalArgumentException("Invalid capacity " + capacity);
+		}
+
+		int size = 1;
+		while (size < capacity) {
+			size <<= 1;
+		}
+
+		this.capacity = size;
+		this.mask = this.capacity - 1;
+		this.elements = new AtomicReferenceArray<>(this.capacity);
+		this.sequences = new AtomicLongArray(this.capacity);
+
+		for (int i = 0; i < this.capacity; i++) {
+			sequences.set(i, i);
+		}
+	}
+
+	public int capacity() {
+		return capacity;
+	}
+
+	/**
+	 * Gets the number of elements waiting. Only an estimate while other threads are adding
+	 * @return
+	 */
+	public int size() {
+		long size = tail.get() - head;
+		return (int) Math.max(0, Math.min(capacity, size));
+	}
+
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+
+	/**
+	 * Adds the element to the queue. Can be called by any thread.
+	 *
+	 * @param element
+	 * @return false if the queue is full
+	 */
+	public boolean offer(E element) {
+		if (element == null) {
+			throw new NullPointerException();
+		}
+
+		long position = tail.get();
+		int index;
+
+		while (true) {
+			index = (int) (position & mask);
+			long difference = sequences.get(index) - position;
+
+			// slot is free, try to claim it
+			if (difference == 0) {
+				if (tail.compareAndSet(position, position + 1)) {
+					break;
+				}
+				position = tail.get();
+			}
+			// slot still holds the element of the previous lap
+			else if (difference < 0) {
+				return false;
+			}
+			// another producer claimed it first
+			else {
+				position = tail.get();
+			}
+		}
+
+		elements.lazySet(index, element);
+		sequences.set(index, position + 1);
+		return true;
+	}
+
+	/**
+	 * Takes the oldest element. Must only be called by the consumer thread.
+	 *
+	 * @return null if the queue is empty
+	 */
+	public E poll() {
+		long position = head;
+		int index = (int) (position & mask);
+
+		// not published yet
+		if (sequences.get(index) != position + 1) {
+			return null;
+		}
+
+		E element = elements.get(index);
+		elements.lazySet(index, null);
+		sequences.set(index, position + capacity);
+		head = position + 1;
+		return element;
+	}
+}
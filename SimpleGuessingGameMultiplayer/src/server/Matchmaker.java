@@ -0,0 +1,253 @@
+package server;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import core.Game;
+import metrics.Counter;
+import metrics.Histogram;
+import metrics.MetricsRegistry;
+
+/**
+ * Decides which {@link Room} a new player joins, based on the number of digits the player wants.
+ *
+ * <p>A player is sent straight to a room of its number of digits that has a free seat.
+ * Otherwise the player is queued with the others that want the same number of digits, and as soon as
+ * {@link Game#MIN_PLAYERS} of them are queued, a new room is created for them and they start playing.
+ *
+ * <p>A player never waits longer than the match wait. When the time is up, the player is grouped
+ * with everyone still queued, whatever number of digits they want (oldest first, up to the size of a room).
+ * If the group is too small to start a game, it joins any room that has enough free seats,
+ * otherwise it plays in a new room with the number of digits of the oldest player.
+ *
+ * <p>Players get a {@link Ticket} whose future completes when a room has been found.
+ * The seats of the room are already taken: the player must enter the room, or give back its seat.
+ * The queues are guarded by this, futures are always completed outside the lock.
+ *
+ * @author user
+ *
+ */
+public class Matchmaker {
+
+	public static final int DEFAULT_WAIT_SECONDS = 5;
+
+	// Shared by all matchmakers. See MetricsRegistry
+	private static final Counter MATCHED = MetricsRegistry.getDefault().counter("server_matched_total", "Players that have been sent to a room");
+	private static final Counter FALLBACKS = MetricsRegistry.getDefault().counter("server_match_fallbacks_total", "Groups formed because the match wait was over");
+	private static final Histogram MATCH_WAIT = MetricsRegistry.getDefault().latency("server_match_wait_seconds", "Time from entering the number of digits until a room is found");
+
+	private final RoomManager rooms;
+	private final TimerWheel wheel;
+	private final long waitMillis;
+
+	// players waiting for a room by number of digits, oldest first
+	private final List<Deque<Ticket>> queues = new ArrayList<>();
+	private int queued = 0;
+
+
+	/**
+	 * @param rooms
+	 * @param wheel Tracks the match wait of the players
+	 * @param waitSeconds Longest time a player waits for players that want the same number of digits
+	 */
+	public Matchmaker(RoomManager rooms, TimerWheel wheel, int waitSeconds) {
+		this.rooms = rooms;
+		this.wheel = wheel;
+		this.waitMillis = waitSeconds * 1000L;
+
+		for (int i = 0; i <= Game.MAX_DIGITS; i++) {
+			queues.add(new ArrayDeque<>());
+		}
+	}
+
+
+	/**
+	 * Looks for a room for a player. Can be called from any thread.
+	 *
+	 * @param numDigits Number of digits the player wants, {@link Game#MIN_DIGITS} - {@link Game#MAX_DIGITS}
+	 * @return
+	 */
+	public Ticket enqueue(int numDigits) {
+		if (numDigits < Game.MIN_DIGITS || numDigits > Game.MAX_DIGITS) {
+			throw new IllegalArgumentException("Invalid number of digits " + numDigits);
+		}
+
+		Ticket ticket = new Ticket(numDigits);
+		List<Ticket> matched;
+
+		synchronized (this) {
+			Room room = rooms.join(numDigits, 1);
+			if (room != null) {
+				matched = assign(room, Collections.singletonList(ticket));
+			} else {
+				Deque<Ticket> queue = queues.get(numDigits);
+				queue.add(ticket);
+				queued++;
+
+				if (queue.size() >= Game.MIN_PLAYERS) {
+					matched = assign(rooms.create(numDigits, queue.size()), new ArrayList<>(queue));
+				} else {
+					matched = Collections.emptyList();
+					ticket.timeout = wheel.schedule(() -> onTimeout(ticket), waitMillis);
+				}
+			}
+		}
+
+		complete(matched);
+		return ticket;
+	}
+
+	/**
+	 * Player left before a room was found
+	 *
+	 * @param ticket
+	 * @return Room found for the player in the meantime, its seat must be given back. Null if still queued
+	 */
+	public synchronized Room cancel(Ticket ticket) {
+		if (ticket.room != null) {
+			return ticket.room;
+		}
+
+		if (queues.get(ticket.numDigits).remove(ticket)) {
+			queued--;
+		}
+		if (ticket.timeout != null) {
+			ticket.timeout.cancel();
+		}
+		return null;
+	}
+
+	/**
+	 * Gets the number of players waiting for a room
+	 * @return
+	 */
+	public synchronized int getQueued() {
+		return queued;
+	}
+
+
+	/**
+	 * The player has waited long enough. Runs on the thread of the timer wheel
+	 *
+	 * @param ticket
+	 */
+	private void onTimeout(Ticket ticket) {
+		List<Ticket> matched;
+
+		synchronized (this) {
+			// already matched or cancelled
+			if (ticket.room != null || ! queues.get(ticket.numDigits).contains(ticket)) {
+				return;
+			}
+
+			// everyone still waiting, the oldest first
+			List<Ticket> group = new ArrayList<>(queued);
+			for (Deque<Ticket> queue : queues) {
+				group.addAll(queue);
+			}
+			group.sort(Comparator.comparingLong(t -> t.enqueuedAt));
+			group.remove(ticket);
+			group.add(0, ticket);
+			group = group.subList(0, Math.min(group.size(), rooms.getCapacity()));
+
+			Room room = null;
+			if (group.size() < Game.MIN_PLAYERS) {
+				room = rooms.joinAny(group.size());
+			}
+			if (room == null) {
+				room = rooms.create(ticket.numDigits, group.size());
+			}
+
+			FALLBACKS.increment();
+			matched = assign(room, new ArrayList<>(group));
+		}
+
+		complete(matched);
+	}
+
+	/**
+	 * Helper method that gives the room to the players and removes them from the queues. Called inside the lock
+	 *
+	 * @param room Seats are already taken for the players
+	 * @param tickets
+	 * @return
+	 */
+	private List<Ticket> assign(Room room, List<Ticket> tickets) {
+		for (Ticket ticket : tickets) {
+			if (queues.get(ticket.numDigits).remove(ticket)) {
+				queued--;
+			}
+			if (ticket.timeout != null) {
+				ticket.timeout.cancel();
+			}
+
+			ticket.room = room;
+			ticket.groupSize = tickets.size();
+		}
+		return tickets;
+	}
+
+	private void complete(List<Ticket> matched) {
+		for (Ticket ticket : matched) {
+			MATCHED.increment();
+			MATCH_WAIT.record(System.nanoTime() - ticket.enqueuedAt);
+			ticket.future.complete(ticket);
+		}
+	}
+
+
+	/**
+	 * A player looking for a room
+	 */
+	public static class Ticket {
+		private final int numDigits;
+		private final long enqueuedAt = System.nanoTime();
+		private final CompletableFuture<Ticket> future = new CompletableFuture<>();
+
+		// guarded by the matchmaker
+		private Room room;
+		private int groupSize;
+		private SessionDriver.Timeout timeout;
+
+		private Ticket(int numDigits) {
+			this.numDigits = numDigits;
+		}
+
+		/**
+		 * Gets the number of digits the player wants
+		 * @return
+		 */
+		public int getNumDigits() {
+			return numDigits;
+		}
+
+		/**
+		 * Completes when a room has been found
+		 * @return
+		 */
+		public CompletableFuture<Ticket> getFuture() {
+			return future;
+		}
+
+		/**
+		 * Gets the room found for the player. Only call once the future has completed
+		 * @return
+		 */
+		public Room getRoom() {
+			return future.isDone() ? room : null;
+		}
+
+		/**
+		 * Gets the number of players sent to the room together with this player
+		 * @return
+		 */
+		public int getGroupSize() {
+			return future.isDone() ? groupSize : 0;
+		}
+	}
+}
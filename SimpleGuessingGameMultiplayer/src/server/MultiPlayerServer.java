@@ -2,26 +2,46 @@ package server;
 
 import java.io.IOException;
 import java.io.ObjectOutputStream;
+import java.net.BindException;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
-import java.net.SocketException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.logging.Logger;
 
+import javax.management.JMException;
+
 import core.Game;
 import core.GameCallback;
 import core.GameCallbackImpl;
 import core.GameCallbackLoggerImpl;
+import core.QueuedGameCallback;
 import core.GameManager;
+import metrics.Counter;
+import metrics.MetricsHttpServer;
+import metrics.MetricsRegistry;
 
 /**
  * Controls the logic and server operations of the Simple Guessing Game.
  * 
- * <p>This server can manage up to 6 client connection only. 
+ * <p>Clients are sent to game rooms ({@link Room}) of up to 6 players each, by the number 
+ * of digits they want to play with. See {@link Matchmaker}. 
+ * <p>Clients can be driven by 1 thread per client (blocking transport) or by a 
+ * small set of event loops (nio transport). See {@link ServerOptions}.
+ * <p>Connections are accepted by a few acceptor threads. Acceptors only accept, check the 
+ * {@link AdmissionControl} and hand the connection over, everything else about a new connection 
+ * (socket options, logging, streams) is done by the thread that will drive it.
+ * <p>The server operator types 'x' to close all connections right away, or 'd' to drain the server: 
+ * it stops listening, lets the running rounds finish, then exits (see {@link ServerDrain}). 
+ * A new server started with --bind-retry-s takes over the port as soon as the old one stops listening, 
+ * so new players can connect while the old server drains.
  * <p> Rules: Player has to the guess  the randomly generated 
  * secret code in order to win. 
  * 
@@ -34,9 +54,38 @@ public class MultiPlayerServer {
 	public static final String GAME_LOG = "game.log";
 	public static final String COMMUNICATIONS_LOG = "communications.log";
 	
+	/**
+	 * How long an acceptor waits after accept() failed (eg. too many open files) before trying again
+	 */
+	public static final long ACCEPT_RETRY_MILLIS = 10;
+	
+	/**
+	 * How often a server waiting for its port tries to bind again
+	 */
+	public static final long BIND_RETRY_MILLIS = 100;
+	
+	// connections accepted by either transport
+	static final Counter ACCEPTED = MetricsRegistry.getDefault().counter("server_connections_accepted_total", "Connections accepted");
+	
+	
+	/**
+	 * Sets up a new connection of the blocking transport. 
+	 * Runs on the thread of the client process, not on the acceptor
+	 */
+	public interface ConnectionHandler {
+		ServerProcess open(Socket socket) throws IOException;
+	}
+	
+	/**
+	 * Listens to the port, see bind()
+	 */
+	private interface Binder {
+		ServerSocket bind() throws IOException;
+	}
+	
 	
 	private int port;
-	private Game game;
+	private RoomManager roomManager;
 	
 	// multiple callbacks needed,  not just one
 	private List<ServerCallback> serverCallbacks = new ArrayList<>();
@@ -45,10 +94,37 @@ public class MultiPlayerServer {
 	// This will not be populated until you call the start() method
 	private ServerSocket serverSocket;
 	
+	// Runs the client processes. If null, a new thread is created per client
+	private ExecutorService executor;
 	
-	public MultiPlayerServer(int port, Game game) {
+	// Decides which connections are served
+	private AdmissionControl admissionControl;
+	
+	// how long start() waits for the port to be free, 0 to fail right away
+	private long bindRetryMillis = 0;
+	
+	// client processes of the blocking transport, until they finish
+	private Map<Socket, ServerProcess> processes = new ConcurrentHashMap<>();
+	
+	
+	/**
+	 * Creates a server that admits any number of connections
+	 * @param port
+	 * @param roomManager
+	 */
+	public MultiPlayerServer(int port, RoomManager roomManager) {
+		this(port, roomManager, new AdmissionControl(ServerOptions.Protocol.OBJECT));
+	}
+	
+	/**
+	 * @param port
+	 * @param roomManager
+	 * @param admissionControl Limits the connections served at the same time
+	 */
+	public MultiPlayerServer(int port, RoomManager roomManager, AdmissionControl admissionControl) {
 		this.port = port;
-		this.game = game;
+		this.roomManager = roomManager;
+		this.admissionControl = admissionControl;
 	}
 	
 	
@@ -58,10 +134,87 @@ public class MultiPlayerServer {
 	 * @throws IOException
 	 */
 	public void start() throws IOException {
-		serverSocket = new ServerSocket(port);
+		serverSocket = bind(() -> {
+			ServerSocket socket = new ServerSocket();
+			try {
+				socket.setReuseAddress(true);
+				socket.bind(new InetSocketAddress(port), admissionControl.getAcceptBacklog());
+			} catch (IOException e) {
+				socket.close();
+				throw e;
+			}
+			return socket;
+		});
+		serverCallbacks.forEach(c -> c.onServerStarted(this, port));
+	}
+	
+	/**
+	 * Starts the server using the non-blocking transport. 
+	 * The server socket will belong to the channel opened by the transport.
+	 * 
+	 * @param transport
+	 * @throws IOException
+	 */
+	public void start(NioTransport transport) throws IOException {
+		serverSocket = bind(() -> transport.bind(port, admissionControl.getAcceptBacklog()).socket());
 		serverCallbacks.forEach(c -> c.onServerStarted(this, port));
 	}
 	
+	/**
+	 * Helper method that listens to the port. If another server (eg. the one being replaced) 
+	 * is still listening, tries again until the bind retry time runs out
+	 * 
+	 * @param binder
+	 * @return
+	 * @throws IOException
+	 */
+	private ServerSocket bind(Binder binder) throws IOException {
+		long deadline = System.currentTimeMillis() + bindRetryMillis;
+		while (true) {
+			try {
+				return binder.bind();
+			} catch (BindException e) {
+				if (System.currentTimeMillis() >= deadline) {
+					throw e;
+				}
+			}
+			
+			try {
+				Thread.sleep(BIND_RETRY_MILLIS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new BindException("Interrupted while waiting for port " + port);
+			}
+		}
+	}
+	
+	/**
+	 * Sets how long start() waits for the port, so a new server can take over 
+	 * the port of a server that is draining
+	 * 
+	 * @param seconds 0 to fail right away if the port is in use
+	 */
+	public void setBindRetry(int seconds) {
+		this.bindRetryMillis = seconds * 1000L;
+	}
+	
+	/**
+	 * Stops accepting connections, so another server can listen to the port right away, 
+	 * and tells the sessions the server is shutting down. 
+	 * The acceptors stop, use {@link ServerDrain#await()} to wait for the running rounds.
+	 * 
+	 * @param drain
+	 */
+	public void drain(ServerDrain drain) {
+		try {
+			if (serverSocket != null) serverSocket.close();
+		} catch (IOException e) {
+			serverCallbacks.forEach(c -> c.onException(null, e));
+		}
+		
+		drain.start();
+	}
+	
 	/**
 	 * Adds a new server callback
 	 * @param callback
@@ -81,11 +234,137 @@ public class MultiPlayerServer {
 	}
 	
 	/**
-	 * Get the game instance
+	 * Get the client processes that are running. 
+	 * A process is forgotten once it finishes
+	 * @return
+	 */
+	public Collection<ServerProcess> getProcesses() {
+		return Collections.unmodifiableCollection(processes.values());
+	}
+	
+	/**
+	 * Sets the executor that runs the client processes. 
+	 * If not set, a new thread is created for each client.
+	 * @param executor
+	 */
+	public void setExecutor(ExecutorService executor) {
+		this.executor = executor;
+	}
+	
+	/**
+	 * Accepts connections on the given number of acceptor threads until the server socket is closed. 
+	 * Each connection gets its own thread (or virtual thread), which sets up the client process and runs it.
+	 * Returns once all acceptors have stopped.
+	 * 
+	 * @param numAcceptors
+	 * @param handler Creates the client process of a new connection
+	 * @throws InterruptedException
+	 */
+	public void acceptLoop(int numAcceptors, ConnectionHandler handler) throws InterruptedException {
+		Thread[] acceptors = new Thread[numAcceptors];
+		for (int i = 0; i < acceptors.length; i++) {
+			acceptors[i] = new Thread(() -> accept(handler), "acceptor-" + (i + 1));
+			acceptors[i].start();
+		}
+		
+		for (Thread acceptor : acceptors) {
+			acceptor.join();
+		}
+	}
+	
+	/**
+	 * Body of an acceptor thread. Only accepts and hands over, so the next client is accepted right away
+	 * @param handler
+	 */
+	private void accept(ConnectionHandler handler) {
+		while (true) {
+			Socket socket;
+			try {
+				socket = serverSocket.accept();
+			} catch (IOException e) {
+				// server operator closed the server
+				if (serverSocket.isClosed()) {
+					return;
+				}
+				
+				// the server keeps accepting, eg. once there are file descriptors again
+				serverCallbacks.forEach(c -> c.onException(null, e));
+				try {
+					Thread.sleep(ACCEPT_RETRY_MILLIS);
+				} catch (InterruptedException interrupted) {
+					return;
+				}
+				continue;
+			}
+			
+			// the server is full, the client is told to come back later
+			if (! admissionControl.tryAdmit()) {
+				admissionControl.reject(socket);
+				continue;
+			}
+			
+			ACCEPTED.increment();
+			execute(() -> serve(socket, handler));
+		}
+	}
+	
+	/**
+	 * Helper method that sets up the connection and runs its client process. 
+	 * The connection slot is given back, and the process forgotten, when the process ends
+	 * 
+	 * @param socket
+	 * @param handler
+	 */
+	private void serve(Socket socket, ConnectionHandler handler) {
+		try {
+			ServerProcess process;
+			try {
+				process = handler.open(socket);
+			} catch (IOException e) {
+				serverCallbacks.forEach(c -> c.onException(null, e));
+				try {
+					socket.close();
+				} catch (IOException closeException) {
+					// client is gone already
+				}
+				return;
+			}
+			
+			processes.put(socket, process);
+			process.run();
+		} finally {
+			processes.remove(socket);
+			admissionControl.release();
+		}
+	}
+	
+	/**
+	 * Helper method that runs a task using the executor of this server. 
+	 * If there is no executor, a new thread is created
+	 * @param task
+	 */
+	private void execute(Runnable task) {
+		if (executor != null) {
+			executor.execute(task);
+		} else {
+			new Thread(task).start();
+		}
+	}
+	
+	/**
+	 * Get the room manager. Each room has its own game
+	 * @return
+	 */
+	public RoomManager getRoomManager() {
+		return roomManager;
+	}
+	
+	/**
+	 * Get the admission control of the accept loop
 	 * @return
 	 */
-	public Game getGame() {
-		return game;
+	public AdmissionControl getAdmissionControl() {
+		return admissionControl;
 	}
 	
 	
@@ -118,47 +397,132 @@ public class MultiPlayerServer {
 		} catch (IOException e) {
 			serverCallbacks.forEach(c -> c.onException(null, e));
 		}
+		
+		if (executor != null) {
+			executor.shutdown();
+		}
 	}
 
 	
 	public static void main(String[] args) throws IOException {
 		
-		// Create new game. 
-		// Game should never be created inside other classes
-		Game game = new Game();
+		// port number and transport can be passed as arguments
+		ServerOptions options = ServerOptions.parse(args);
+		
+		// Games are created by the room manager, 1 game per room. 
+		// Game should never be created inside other classes.
+		// The secret code generator is shared by all games
+		RoomManager roomManager = new RoomManager(options.getRoomCapacity(), options.getSecretCodes().newGenerator());
+		
+		// Connections over the limit are turned away before they cost a thread or a session
+		AdmissionControl admissionControl = options.newAdmissionControl();
+		
+		// Logs are written by a background thread, so players do not wait for the log files
+		AsyncLogWriter logWriter = new AsyncLogWriter(AsyncLogWriter.DEFAULT_CAPACITY, options.getLogOverflow());
 		
 		// Setup server logs
-		Logger commLog = Utils.createLogger(COMMUNICATIONS_LOG, ServerCallbackImpl.class);
+		Logger commLog = Utils.createLogger(COMMUNICATIONS_LOG, ServerCallbackImpl.class, logWriter);
 		ServerCallback serverCallback = new ServerCallbackImpl(commLog);
 		
 		// Game log
-		Logger gameLog = Utils.createLogger(GAME_LOG, GameCallbackLoggerImpl.class);
-		GameCallbackLoggerImpl gameCallbackLogger = new GameCallbackLoggerImpl(gameLog);
+		Logger gameLog = Utils.createLogger(GAME_LOG, GameCallbackLoggerImpl.class, logWriter);
+		// Game events are logged by their own thread, so the game does not wait for the log while the room is locked
+		QueuedGameCallback gameCallbackLogger = new QueuedGameCallback(
+			new GameCallbackLoggerImpl(gameLog), QueuedGameCallback.DEFAULT_CAPACITY, options.getCallbackOverflow());
+		
+		// Timeouts of all sessions (lobby, turn, idle) are tracked by a single thread
+		TimerWheel timerWheel = new TimerWheel();
+		SessionTimeouts timeouts = new SessionTimeouts(timerWheel, options.getTurnTimeoutSeconds(), options.getIdleTimeoutSeconds());
+		
+		// Players whose connection dropped keep their seat for a while, so they can come back
+		ParkedSessions parkedSessions = new ParkedSessions(timerWheel, options.getResumeGraceSeconds());
 		
-		// Client processes are saved here
-		Map<Socket, ServerProcess> processes = new ConcurrentHashMap<>();
+		// Players are grouped in rooms by the number of digits they want
+		Matchmaker matchmaker = new Matchmaker(roomManager, timerWheel, options.getMatchWaitSeconds());
+		
+		// Running rounds can finish before the server exits
+		ServerDrain drain = new ServerDrain(parkedSessions, options.getDrainTimeoutSeconds());
+		
+		// Metrics can be seen with jconsole, and on http://localhost:port/metrics if a port is given
+		MetricsRegistry metrics = MetricsRegistry.getDefault();
+		metrics.gauge("server_rooms", "Rooms created", () -> roomManager.getRooms().size());
+		metrics.gauge("log_records_pending", "Log records waiting to be written", logWriter::getPending);
+		metrics.gauge("log_records_dropped", "Log records dropped because the log buffer was full", logWriter::getDropped);
+		metrics.gauge("game_events_pending", "Game events waiting for the game log callback", gameCallbackLogger::getPending);
+		metrics.gauge("game_events_dropped", "Game events dropped because the game log callback was behind", gameCallbackLogger::getDropped);
+		metrics.gauge("server_timers_pending", "Timeouts of the sessions waiting in the timer wheel", timerWheel::getPending);
+		metrics.gauge("server_sessions_parked", "Sessions waiting for their player to reconnect", parkedSessions::size);
+		metrics.gauge("server_match_queue", "Players waiting for a room", matchmaker::getQueued);
+		metrics.gauge("server_connections_open", "Connections being served", admissionControl::getOpen);
+		metrics.gauge("server_drain_remaining", "Sessions the server waits for before it exits", drain::getRemaining);
+		try {
+			metrics.registerMBean();
+		} catch (JMException e) {
+			serverCallback.onException(null, e);
+		}
+		
+		MetricsHttpServer metricsServer = null;
+		if (options.getMetricsPort() > 0) {
+			metricsServer = new MetricsHttpServer(metrics);
+			try {
+				metricsServer.start(options.getMetricsPort());
+				System.out.printf("Metrics are available on http://localhost:%d%s\n", metricsServer.getPort(), MetricsHttpServer.PATH);
+			} catch (IOException e) {
+				serverCallback.onException(null, e);
+				metricsServer = null;
+			}
+		}
 		
 		// Create the server
-		MultiPlayerServer multiPlayerServer = new MultiPlayerServer(DEFAULT_PORT, game);
+		MultiPlayerServer multiPlayerServer = new MultiPlayerServer(options.getPort(), roomManager, admissionControl);
 		multiPlayerServer.addServerCallback(serverCallback);
+		multiPlayerServer.setBindRetry(options.getBindRetrySeconds());
+		
+		// client processes can run on virtual threads instead of a new thread per client
+		if (options.getExecution() == ServerOptions.Execution.VIRTUAL) {
+			multiPlayerServer.setExecutor(SessionExecutors.newVirtualThreadPerTaskExecutor("server-process"));
+		}
+		
+		// Responses and timeouts of the blocking transport are handled by tasks shared by all clients, not a thread per client
+		ExecutorService sessionTasks = SessionExecutors.newTaskExecutor("server-process-task");
+		
+		// Event loops are only created when using the nio transport
+		NioTransport nioTransport = options.getTransport() == ServerOptions.Transport.NIO
+			? new NioTransport(multiPlayerServer, serverCallback, gameCallbackLogger, options.getProtocol(), timeouts, options::newOutboundBuffer, parkedSessions, matchmaker, drain, options.getEventLoops())
+			: null;
 		
 		try {
 			// start the server
-			multiPlayerServer.start();
+			if (nioTransport != null) {
+				multiPlayerServer.start(nioTransport);
+			} else {
+				multiPlayerServer.start();
+			}
 			ServerSocket serverSocket = multiPlayerServer.getServerSocket();
-			game.start();
 
-			// close the server using 'x'
+			// close the server using 'x', or let the running rounds finish first using 'd'
 			Thread background = new Thread(() -> {
 				Scanner scanner = new Scanner(System.in);
 				String line = "";
-				System.out.println("Press 'x' to exit the server.");
+				System.out.println("Press 'x' to exit the server, or 'd' to exit once the running rounds have finished.");
 				do {
 					line = scanner.nextLine();
-				} while (!line.equals("x"));
+				} while (!line.equals("x") && !line.equals("d"));
+				
+				// the port is free for the next server right away
+				if (line.equals("d")) {
+					System.out.println("Draining, the server is no longer accepting players.");
+					multiPlayerServer.drain(drain);
+					scanner.close();
+					return;
+				}
 				
+				// nio sessions are closed by their own event loop
+				if (nioTransport != null) {
+					nioTransport.closeSessions();
+				}
 				try {
-					for (ServerProcess process : processes.values()) {
+					for (ServerProcess process : multiPlayerServer.getProcesses()) {
 						try {
 							Socket socket = process.getSocket();
 							socket.close();
@@ -175,31 +539,38 @@ public class MultiPlayerServer {
 			});
 			background.start();
 			
+			// event loops will drive the connections, the acceptors only accept them
+			if (nioTransport != null) {
+				nioTransport.acceptLoop(options.getAcceptors());
+			} else {
+				// process the game in a new thread (or virtual thread) per client connected.
+				// The connection is set up by that thread, not by the acceptor
+				multiPlayerServer.acceptLoop(options.getAcceptors(), socket -> {
+					// keep alive
+					socket.setKeepAlive(true);
+					
+					serverCallback.onClientConnected(multiPlayerServer, socket);
+					
+					// the client is sent to a room once it has entered its number of digits
+					ServerProcess process = new ServerProcess(socket, options.getProtocol(), serverCallback, gameCallbackLogger, timeouts, options.newOutboundBuffer(), sessionTasks, parkedSessions, matchmaker, drain);
+					return process;
+				});
+			}
 			
-			do {
-				// listen for new connections
-				Socket socket = serverSocket.accept();
-				
-				// keep alive
-				socket.setKeepAlive(true);
-				
-				serverCallback.onClientConnected(multiPlayerServer, socket);
-				
-				// process the game in a new thread per client connected
-				ServerProcess process = new ServerProcess(game, socket, serverCallback, gameCallbackLogger);
-				Thread thread = new Thread(process);
-				thread.start();
-				
-				// save this process for future reference
-				processes.put(socket, process);
-
-			} 
-			while (true);
-		}
-		// server operator closed the server
-		catch (SocketException e) {
+			// the acceptors have stopped. A draining server waits for the running rounds
+			if (drain.isDraining()) {
+				if (drain.await()) {
+					System.out.println("All rounds have finished.");
+				} else {
+					System.out.println("Drain timeout, the remaining players have been disconnected.");
+				}
+			}
 			System.out.println("Server closed.");
 		}
+		// the main thread was interrupted while the acceptors were running
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
 		// when something wrong happens, trigger an onException() event
 		catch (IOException e) {
 			serverCallback.onException(null, e);
@@ -207,6 +578,18 @@ public class MultiPlayerServer {
 		// close the server
 		finally {
 			multiPlayerServer.close();
+			if (nioTransport != null) {
+				nioTransport.shutdown();
+			}
+			timerWheel.close();
+			
+			if (metricsServer != null) {
+				metricsServer.stop();
+			}
+			
+			// write the remaining logs. Later records are written without the background threads
+			gameCallbackLogger.close();
+			logWriter.close();
 		}
 	}
 
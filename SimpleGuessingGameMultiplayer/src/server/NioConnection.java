@@ -0,0 +1,283 @@
+package server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+
+/**
+ * Non-blocking connection to a client, driven by an {@link EventLoop}.
+ *
+ * <p>Incoming bytes are split into lines (the client sends plain text lines)
+ * and handed to the {@link Handler}. Outgoing data is written through
+ * an output stream (see getOutputStream()) so the same encoders ({@link ResponseEncoder})
+ * as the blocking transport can be used. Writes never block: data the socket does not accept
+ * yet waits in an {@link OutboundBuffer}, which also decides what happens to slow clients.
+ *
+ * <p>Instances of this class are not thread safe. Everything
+ * must be called from the event loop that owns the connection.
+ *
+ * @author user
+ *
+ */
+public class NioConnection {
+
+	/**
+	 * Lines longer than this will close the connection
+	 */
+	public static final int MAX_LINE_LENGTH = 4096;
+
+	/**
+	 * Receives the events of the connection
+	 */
+	public interface Handler {
+
+		/**
+		 * A full line was received from the client
+		 * @param line Line without the line terminator
+		 */
+		void onLine(String line);
+
+		/**
+		 * The connection was closed, by either the client or the server
+		 */
+		void onClosed();
+	}
+
+	private final SocketChannel channel;
+	private final EventLoop loop;
+	private final OutputStream stream = new ChannelOutputStream();
+	private SelectionKey key;
+	private Handler handler;
+
+	// bytes of the line currently being received
+	private byte[] line = new byte[64];
+	private int lineLength = 0;
+
+	// data that the socket did not accept yet
+	private final OutboundBuffer outbound;
+
+	private boolean closed = false;
+
+
+	/**
+	 * Creates the connection. Should be called inside the event loop.
+	 *
+	 * @param channel
+	 * @param loop
+	 * @param outbound Buffer of the data waiting to be sent
+	 */
+	public NioConnection(SocketChannel channel, EventLoop loop, OutboundBuffer outbound) {
+		this.channel = channel;
+		this.loop = loop;
+		this.outbound = outbound;
+	}
+
+
+	/**
+	 * Registers this connection to the selector and starts reading
+	 * @param selector
+	 * @throws IOException
+	 */
+	void register(Selector selector) throws IOException {
+		key = channel.register(selector, SelectionKey.OP_READ, this);
+		flushOutbound();
+	}
+
+	public void setHandler(Handler handler) {
+		this.handler = handler;
+	}
+
+	public EventLoop getLoop() {
+		return loop;
+	}
+
+	public Socket getSocket() {
+		return channel.socket();
+	}
+
+	/**
+	 * Stream used to send data to the client. Data that the socket 
+	 * does not accept yet is queued and sent later by the event loop
+	 * @return
+	 */
+	public OutputStream getOutputStream() {
+		return stream;
+	}
+
+	public boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * Gets the number of bytes the client has not received yet
+	 * @return
+	 */
+	public int getPendingBytes() {
+		return outbound.size();
+	}
+
+
+	/**
+	 * Called by the event loop when the channel is ready
+	 *
+	 * @param key
+	 * @param readBuffer Buffer shared by all connections of the event loop
+	 */
+	void handle(SelectionKey key, ByteBuffer readBuffer) {
+		try {
+			if (key.isValid() && key.isReadable()) {
+				read(readBuffer);
+			}
+
+			if (key.isValid() && key.isWritable()) {
+				flushOutbound();
+			}
+		}
+		// client disconnected for some reason
+		catch (IOException e) {
+			close();
+		}
+	}
+
+
+	/**
+	 * Helper method that reads the available bytes and hands over every complete line
+	 *
+	 * @param buffer
+	 * @throws IOException
+	 */
+	private void read(ByteBuffer buffer) throws IOException {
+		buffer.clear();
+
+		// end of stream. In that case, close the connection
+		int count = channel.read(buffer);
+		if (count < 0) {
+			close();
+			return;
+		}
+
+		buffer.flip();
+		while (buffer.hasRemaining() && ! closed) {
+			byte b = buffer.get();
+
+			if (b != '\n') {
+				appendToLine(b);
+				continue;
+			}
+
+			// remove the carriage return sent by windows clients
+			int length = lineLength;
+			if (length > 0 && line[length - 1] == '\r') {
+				length--;
+			}
+
+			String text = new String(line, 0, length);
+			lineLength = 0;
+
+			if (handler != null) {
+				handler.onLine(text);
+			}
+		}
+	}
+
+	private void appendToLine(byte b) {
+		if (lineLength == MAX_LINE_LENGTH) {
+			close();
+			return;
+		}
+
+		if (lineLength == line.length) {
+			line = Arrays.copyOf(line, Math.min(line.length * 2, MAX_LINE_LENGTH));
+		}
+
+		line[lineLength++] = b;
+	}
+
+
+	/**
+	 * Helper method that writes the pending data until the socket stops accepting.
+	 * If there is still pending data, the event loop will tell us when we can write again.
+	 *
+	 * @throws IOException
+	 */
+	private void flushOutbound() throws IOException {
+		if (key == null || ! key.isValid()) {
+			return;
+		}
+
+		ByteBuffer buffer;
+		while ((buffer = outbound.peek()) != null) {
+			int count = channel.write(buffer);
+			outbound.sent(count);
+
+			if (buffer.hasRemaining()) {
+				key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+				return;
+			}
+		}
+
+		key.interestOps(SelectionKey.OP_READ);
+	}
+
+
+	/**
+	 * Close the connection. The handler will be notified once.
+	 */
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+
+		try {
+			if (key != null) key.cancel();
+			channel.close();
+		} catch (IOException e) {
+			System.err.println("Sorry, something went wrong while closing the connection. " + e.getMessage());
+		}
+
+		outbound.clear();
+
+		if (handler != null) {
+			handler.onClosed();
+		}
+	}
+
+
+	/**
+	 * Output stream that queues the written bytes to the connection.
+	 * Sessions write through an {@link Outbox}, so there is one write per event.
+	 */
+	private class ChannelOutputStream extends OutputStream {
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			if (closed) {
+				throw new IOException("Connection closed");
+			}
+
+			// do not close while the caller is still writing, let the event loop do it
+			if (! outbound.add(b, off, len)) {
+				loop.execute(NioConnection.this::close);
+				return;
+			}
+
+			try {
+				flushOutbound();
+			} catch (IOException e) {
+				loop.execute(NioConnection.this::close);
+				throw e;
+			}
+		}
+	}
+}
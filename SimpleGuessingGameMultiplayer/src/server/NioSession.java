@@ -0,0 +1,133 @@
+package server;
+
+import java.io.IOException;
+import java.net.Socket;
+
+import core.GameCallback;
+
+/**
+ * Drives a {@link GameSession} using the {@link EventLoop} of a {@link NioConnection}.
+ * Used by the {@link NioTransport}.
+ *
+ * <p>Lines received by the connection are handed over to the session, and the tasks
+ * of the session run inside the event loop, so many sessions share a few threads.
+ *
+ * <p>All methods except execute() must be called from the event loop of the connection.
+ *
+ * @author user
+ *
+ */
+public class NioSession implements SessionDriver, NioConnection.Handler {
+
+	private NioConnection connection;
+	private NioTransport transport;
+	private ResponseEncoder encoder;
+	private GameSession session;
+	private TimerWheel wheel;
+
+
+	/**
+	 * This will queue the header of the protocol. It is sent with the first prompt
+	 *
+	 * @param connection
+	 * @param transport
+	 * @param protocol
+	 * @param callback
+	 * @param gameLoggerCallback
+	 * @param timeouts
+	 * @param parkedSessions
+	 * @param matchmaker
+	 * @param drain
+	 * @throws IOException
+	 */
+	public NioSession(NioConnection connection, NioTransport transport, ServerOptions.Protocol protocol, ServerCallback callback, GameCallback gameLoggerCallback, SessionTimeouts timeouts, ParkedSessions parkedSessions, Matchmaker matchmaker, ServerDrain drain) throws IOException {
+		this.connection = connection;
+		this.transport = transport;
+		this.wheel = timeouts.getWheel();
+		this.encoder = protocol.newEncoder(new Outbox(connection.getOutputStream()));
+		this.session = new GameSession(this, callback, gameLoggerCallback, timeouts, parkedSessions, matchmaker, drain);
+	}
+
+	/**
+	 * Gets the game session driven by this class
+	 * @return
+	 */
+	public GameSession getSession() {
+		return session;
+	}
+
+	@Override
+	public Socket getSocket() {
+		return connection.getSocket();
+	}
+
+	@Override
+	public ResponseEncoder getEncoder() {
+		return encoder;
+	}
+
+	public EventLoop getLoop() {
+		return connection.getLoop();
+	}
+
+	@Override
+	public void execute(Runnable task) {
+		getLoop().execute(task);
+	}
+
+	/**
+	 * The timer wheel of the server hands the task over to the event loop when it is due
+	 */
+	@Override
+	public Timeout schedule(Runnable task, long delayMillis) {
+		return wheel.schedule(() -> execute(task), delayMillis);
+	}
+
+	@Override
+	public boolean isClosed() {
+		return connection.isClosed();
+	}
+
+
+	/**
+	 * Starts the game by asking for the player name
+	 */
+	public void begin() {
+		session.begin();
+	}
+
+	/**
+	 * Client sent a reply
+	 */
+	@Override
+	public void onLine(String line) {
+		session.onLine(line);
+	}
+
+	/**
+	 * Close the connection. The player is removed from the game.
+	 * Whatever is left in the outbox (eg. the goodbye message) is sent first.
+	 */
+	@Override
+	public void close() {
+		if (connection.isClosed()) {
+			return;
+		}
+
+		try {
+			encoder.flush();
+		} catch (IOException e) {
+			// client is gone already, nothing left to send
+		}
+		connection.close();
+	}
+
+	/**
+	 * Connection was closed by either the client or the server
+	 */
+	@Override
+	public void onClosed() {
+		transport.remove(this);
+		session.onClosed();
+	}
+}
@@ -0,0 +1,218 @@
+package server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import core.GameCallback;
+
+/**
+ * Non-blocking transport of the {@link MultiPlayerServer}.
+ *
+ * <p>Connections are accepted by a few acceptor threads (see acceptLoop()) and handed over
+ * to a small fixed set of {@link EventLoop} threads in round robin. The event loop sets up
+ * the connection, so the acceptors can accept the next client right away. Each event loop
+ * drives the reads, writes and game steps ({@link NioSession}, {@link GameSession}) of its connections, so
+ * the number of threads does not grow with the number of players.
+ *
+ * @author user
+ *
+ */
+public class NioTransport {
+
+	private MultiPlayerServer server;
+	private ServerCallback serverCallback;
+	private GameCallback gameCallbackLogger;
+	private ServerOptions.Protocol protocol;
+	private SessionTimeouts timeouts;
+	private Supplier<OutboundBuffer> outboundBuffers;
+	private ParkedSessions parkedSessions;
+	private Matchmaker matchmaker;
+	private ServerDrain drain;
+	private EventLoop[] loops;
+
+	// This will not be populated until you call the bind() method
+	private ServerSocketChannel serverChannel;
+
+	// connected clients
+	private Map<NioSession, Boolean> sessions = new ConcurrentHashMap<>();
+	private AtomicInteger nextLoop = new AtomicInteger(0);
+
+
+	public NioTransport(MultiPlayerServer server, ServerCallback serverCallback, GameCallback gameCallbackLogger, ServerOptions.Protocol protocol, SessionTimeouts timeouts, Supplier<OutboundBuffer> outboundBuffers, ParkedSessions parkedSessions, Matchmaker matchmaker, ServerDrain drain, int numEventLoops) {
+		this.server = server;
+		this.protocol = protocol;
+		this.timeouts = timeouts;
+		this.outboundBuffers = outboundBuffers;
+		this.parkedSessions = parkedSessions;
+		this.matchmaker = matchmaker;
+		this.drain = drain;
+		this.serverCallback = serverCallback;
+		this.gameCallbackLogger = gameCallbackLogger;
+		this.loops = new EventLoop[numEventLoops];
+	}
+
+
+	/**
+	 * Listens to the port and starts the event loops.
+	 * The event loops are not started if the port is in use, so this can be called again
+	 *
+	 * @param port
+	 * @param backlog Connections waiting to be accepted
+	 * @return
+	 * @throws IOException
+	 */
+	public ServerSocketChannel bind(int port, int backlog) throws IOException {
+		serverChannel = ServerSocketChannel.open();
+		serverChannel.socket().setReuseAddress(true);
+		try {
+			serverChannel.bind(new InetSocketAddress(port), backlog);
+		} catch (IOException e) {
+			serverChannel.close();
+			throw e;
+		}
+
+		for (int i = 0; i < loops.length; i++) {
+			loops[i] = new EventLoop("event-loop-" + (i + 1));
+			loops[i].start();
+		}
+
+		return serverChannel;
+	}
+
+
+	/**
+	 * Accepts new connections until the server channel is closed.
+	 * The accepted connections are handed over to the event loops.
+	 * Returns once all acceptors have stopped. The event loops keep driving the connections
+	 * (eg. while the server drains, see {@link ServerDrain}) until shutdown() is called.
+	 *
+	 * @param numAcceptors Number of acceptor threads
+	 * @throws InterruptedException
+	 */
+	public void acceptLoop(int numAcceptors) throws InterruptedException {
+		Thread[] acceptors = new Thread[numAcceptors];
+		for (int i = 0; i < acceptors.length; i++) {
+			acceptors[i] = new Thread(this::accept, "nio-acceptor-" + (i + 1));
+			acceptors[i].start();
+		}
+
+		for (Thread acceptor : acceptors) {
+			acceptor.join();
+		}
+	}
+
+	/**
+	 * Body of an acceptor thread. Only accepts and hands over, so the next client is accepted right away
+	 */
+	private void accept() {
+		while (true) {
+			SocketChannel channel;
+			try {
+				channel = serverChannel.accept();
+			}
+			// server operator closed the server
+			catch (ClosedChannelException e) {
+				return;
+			}
+			// the server keeps accepting, eg. once there are file descriptors again
+			catch (IOException e) {
+				serverCallback.onException(null, e);
+				try {
+					Thread.sleep(MultiPlayerServer.ACCEPT_RETRY_MILLIS);
+				} catch (InterruptedException interrupted) {
+					return;
+				}
+				continue;
+			}
+
+			// the server is full, the client is told to come back later
+			if (! server.getAdmissionControl().tryAdmit()) {
+				server.getAdmissionControl().reject(channel);
+				continue;
+			}
+
+			MultiPlayerServer.ACCEPTED.increment();
+			EventLoop loop = loops[Math.floorMod(nextLoop.getAndIncrement(), loops.length)];
+			loop.execute(() -> open(channel, loop));
+		}
+	}
+
+
+	/**
+	 * Helper method that sets up the connection and creates the session. Runs inside the event loop.
+	 *
+	 * @param channel
+	 * @param loop
+	 */
+	private void open(SocketChannel channel, EventLoop loop) {
+		try {
+			channel.configureBlocking(false);
+			channel.socket().setKeepAlive(true);
+			channel.socket().setTcpNoDelay(true);
+			serverCallback.onClientConnected(server, channel.socket());
+
+			// the room is found by the matchmaker once the client has entered its number of digits
+			NioConnection connection = new NioConnection(channel, loop, outboundBuffers.get());
+			NioSession session = new NioSession(connection, this, protocol, serverCallback, gameCallbackLogger, timeouts, parkedSessions, matchmaker, drain);
+			connection.setHandler(session);
+			sessions.put(session, Boolean.TRUE);
+
+			loop.register(connection);
+			session.begin();
+		}
+		catch (IOException e) {
+			server.getAdmissionControl().release();
+			serverCallback.onException(null, e);
+			try {
+				channel.close();
+			} catch (IOException closeException) {
+				serverCallback.onException(null, closeException);
+			}
+		}
+	}
+
+
+	/**
+	 * Forget the session. Called when the connection is closed.
+	 * @param session
+	 */
+	void remove(NioSession session) {
+		if (sessions.remove(session) != null) {
+			server.getAdmissionControl().release();
+		}
+	}
+
+
+	/**
+	 * Closes the connection of every client. 
+	 * Each session is closed by its own event loop, as connections are not thread safe
+	 */
+	public void closeSessions() {
+		for (NioSession session : sessions.keySet()) {
+			session.execute(session::close);
+		}
+	}
+
+
+	/**
+	 * Closes all connections and stops the event loops
+	 */
+	public void shutdown() {
+		try {
+			if (serverChannel != null) serverChannel.close();
+		} catch (IOException e) {
+			serverCallback.onException(null, e);
+		}
+
+		for (EventLoop loop : loops) {
+			if (loop != null) loop.shutdown();
+		}
+	}
+}
@@ -0,0 +1,71 @@
+package server;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+
+/**
+ * Legacy protocol. Sends serialized {@link Response} objects to the client using an
+ * {@link ObjectOutputStream}. Scores and round summaries are sent as text messages.
+ *
+ * @author user
+ *
+ */
+public class ObjectResponseEncoder implements ResponseEncoder {
+
+	private OutputStream out;
+	private ObjectOutputStream stream;
+
+	/**
+	 * This will write the serialization stream header to the client
+	 *
+	 * @param out
+	 * @throws IOException
+	 */
+	public ObjectResponseEncoder(OutputStream out) throws IOException {
+		this.out = out;
+		this.stream = new ObjectOutputStream(out);
+	}
+
+	@Override
+	public void write(Response response) throws IOException {
+		stream.writeObject(response);
+	}
+
+	@Override
+	public void writeScore(Score score) throws IOException {
+		write(Response.message(score.toString()));
+	}
+
+	@Override
+	public void writeRoundSummary(RoundSummary summary) throws IOException {
+		write(Response.message(summary.toString()));
+	}
+
+	/**
+	 * The serialization stream refers back to the objects and classes it has already written. 
+	 * The stream is reset before the shared bytes, so they do not depend on what was written before. 
+	 * The shared bytes end with a reset too (see SharedMessage), so the client forgets them as well
+	 */
+	@Override
+	public void writeShared(SharedMessage message) throws IOException {
+		stream.reset();
+		stream.flush();
+		out.write(message.getBytes(ServerOptions.Protocol.OBJECT));
+	}
+
+	/**
+	 * Forgets the objects written so far, so the stream does not keep
+	 * a reference to every response sent.
+	 */
+	@Override
+	public void flush() throws IOException {
+		stream.reset();
+		stream.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		stream.close();
+	}
+}
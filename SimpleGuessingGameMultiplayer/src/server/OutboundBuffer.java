@@ -0,0 +1,183 @@
+package server;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+import metrics.Counter;
+import metrics.Gauge;
+import metrics.MetricsRegistry;
+
+/**
+ * Bytes waiting to be sent to 1 client, with a high and a low watermark.
+ * Used by both transports ({@link NioConnection}, {@link QueuedSocketOutputStream}),
+ * so the thread of a session only copies its responses here and never waits for a slow client.
+ *
+ * <p>Each {@link Outbox} batch (all responses of 1 event) is added as a whole.
+ * Once the queued bytes go above the high watermark, the client is a slow consumer and
+ * the {@link SlowConsumerPolicy} decides what happens:<ul>
+ * <li>DISCONNECT - add() returns false and the connection should be closed</li>
+ * <li>DROP - new batches are dropped until the client has read enough to be below the low watermark</li>
+ * </ul>
+ * Dropping whole batches keeps both protocols readable: binary frames never span 2 batches,
+ * and the object stream is reset at the end of each batch (see {@link ObjectResponseEncoder#flush()}).
+ *
+ * <p>All methods are synchronized, the bytes are added by the session and sent by
+ * the thread writing to the socket.
+ *
+ * @author user
+ *
+ */
+public class OutboundBuffer {
+
+	/**
+	 * What happens when a client does not read its responses fast enough
+	 */
+	public enum SlowConsumerPolicy {
+		/**
+		 * Close the connection
+		 */
+		DISCONNECT,
+
+		/**
+		 * Drop new responses until the client catches up
+		 */
+		DROP
+	}
+
+	public static final int DEFAULT_HIGH_WATERMARK = 256 * 1024;
+
+	// Shared by all connections. See MetricsRegistry
+	private static final Gauge QUEUED_BYTES = MetricsRegistry.getDefault().gauge("server_outbound_bytes", "Bytes waiting to be sent to the clients");
+	private static final Counter DROPPED = MetricsRegistry.getDefault().counter("server_outbound_dropped_total", "Batches of responses dropped because the client was too slow");
+	private static final Counter SLOW_CONSUMERS = MetricsRegistry.getDefault().counter("server_slow_consumers_total", "Clients that went above the high watermark");
+
+	private final int lowWatermark;
+	private final int highWatermark;
+	private final SlowConsumerPolicy policy;
+
+	private final Queue<ByteBuffer> batches = new ArrayDeque<>();
+	private int size = 0;
+
+	// true from going above the high watermark until going below the low watermark
+	private boolean slow = false;
+
+
+	/**
+	 * Creates a buffer with the low watermark at a quarter of the high watermark
+	 *
+	 * @param highWatermark
+	 * @param policy
+	 */
+	public OutboundBuffer(int highWatermark, SlowConsumerPolicy policy) {
+		this(highWatermark / 4, highWatermark, policy);
+	}
+
+	public OutboundBuffer(int lowWatermark, int highWatermark, SlowConsumerPolicy policy) {
+		if (lowWatermark < 0 || highWatermark < 1 || lowWatermark > highWatermark) {
+			throw new IllegalArgumentException("Invalid watermarks " + lowWatermark + " - " + highWatermark);
+		}
+
+		this.lowWatermark = lowWatermark;
+		this.highWatermark = highWatermark;
+		this.policy = policy;
+	}
+
+
+	/**
+	 * Adds a copy of the batch
+	 *
+	 * @param b
+	 * @param off
+	 * @param len
+	 * @return false if the client is too slow and must be disconnected (DISCONNECT policy)
+	 */
+	public synchronized boolean add(byte[] b, int off, int len) {
+		if (slow && policy == SlowConsumerPolicy.DROP) {
+			DROPPED.increment();
+			return true;
+		}
+
+		byte[] copy = new byte[len];
+		System.arraycopy(b, off, copy, 0, len);
+		batches.add(ByteBuffer.wrap(copy));
+		size += len;
+		QUEUED_BYTES.add(len);
+
+		if (size > highWatermark && ! slow) {
+			slow = true;
+			SLOW_CONSUMERS.increment();
+		}
+
+		return ! slow || policy != SlowConsumerPolicy.DISCONNECT;
+	}
+
+	/**
+	 * Gets the oldest batch. Its position tells how much of it has been sent
+	 * @return null if there is nothing to send
+	 */
+	public synchronized ByteBuffer peek() {
+		return batches.peek();
+	}
+
+	/**
+	 * Tells the buffer that some bytes of the oldest batch have been sent.
+	 * The batch is removed once all of it has been sent.
+	 *
+	 * @param count
+	 */
+	public synchronized void sent(int count) {
+		size -= count;
+		QUEUED_BYTES.add(-count);
+
+		ByteBuffer batch = batches.peek();
+		if (batch != null && ! batch.hasRemaining()) {
+			batches.poll();
+		}
+
+		if (slow && size <= lowWatermark) {
+			slow = false;
+		}
+	}
+
+	/**
+	 * Forgets everything that has not been sent. Called when the connection is closed
+	 */
+	public synchronized void clear() {
+		QUEUED_BYTES.add(-size);
+		batches.clear();
+		size = 0;
+	}
+
+	/**
+	 * Gets the number of bytes waiting to be sent
+	 * @return
+	 */
+	public synchronized int size() {
+		return size;
+	}
+
+	public synchronized boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Check if the client is between the high and the low watermark
+	 * @return
+	 */
+	public synchronized boolean isSlow() {
+		return slow;
+	}
+
+	public SlowConsumerPolicy getPolicy() {
+		return policy;
+	}
+
+	public int getLowWatermark() {
+		return lowWatermark;
+	}
+
+	public int getHighWatermark() {
+		return highWatermark;
+	}
+}
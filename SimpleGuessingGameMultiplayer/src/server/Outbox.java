@@ -0,0 +1,111 @@
+package server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Collects everything sent to a client while the server handles 1 event of the client
+ * (eg. a guess) and sends it with a single write when flush() is called.
+ *
+ * <p>A single guess produces several messages (guess added, score, won or lost, next prompt).
+ * Without the outbox each of them would be a separate write to the socket.
+ * {@link GameSession} flushes the outbox once at the end of each event, after the room is unlocked,
+ * so nothing is sent to a client while a room lock is held.
+ *
+ * <p>Instances of this class are not thread safe. They must only be used
+ * by the thread driving the client (see {@link SessionDriver}).
+ *
+ * @author user
+ *
+ */
+public class Outbox extends OutputStream {
+
+	/**
+	 * Initial size of the buffer. Most events fit in this size
+	 */
+	public static final int INITIAL_CAPACITY = 1024;
+
+	/**
+	 * After a flush, buffers that grew bigger than this are replaced by a small one
+	 */
+	public static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+	private final OutputStream out;
+	private byte[] buffer = new byte[INITIAL_CAPACITY];
+	private int count = 0;
+	private boolean closed = false;
+
+
+	/**
+	 * @param out Stream the batches are written to. Usually the socket
+	 */
+	public Outbox(OutputStream out) {
+		this.out = out;
+	}
+
+	/**
+	 * Gets the number of bytes waiting to be sent
+	 * @return
+	 */
+	public int size() {
+		return count;
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		ensureCapacity(1);
+		buffer[count++] = (byte) b;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		ensureCapacity(len);
+		System.arraycopy(b, off, buffer, count, len);
+		count += len;
+	}
+
+	/**
+	 * Sends everything collected so far with a single write
+	 */
+	@Override
+	public void flush() throws IOException {
+		if (count > 0) {
+			int length = count;
+			count = 0;
+			out.write(buffer, 0, length);
+		}
+		out.flush();
+
+		if (buffer.length > MAX_RETAINED_CAPACITY) {
+			buffer = new byte[INITIAL_CAPACITY];
+		}
+	}
+
+	/**
+	 * Sends what is left and closes the stream
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+
+		try {
+			flush();
+		} finally {
+			out.close();
+		}
+	}
+
+	private void ensureCapacity(int length) throws IOException {
+		if (closed) {
+			throw new IOException("Outbox closed");
+		}
+
+		if (count + length > buffer.length) {
+			buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, count + length));
+		}
+	}
+}
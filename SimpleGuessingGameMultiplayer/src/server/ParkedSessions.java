@@ -0,0 +1,152 @@
+package server;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import metrics.Counter;
+import metrics.MetricsRegistry;
+
+/**
+ * Keeps the {@link GameSession}s of players whose connection dropped, so they can come back.
+ *
+ * <p>Each player gets a random token when signing up. When the connection drops, the session is
+ * parked under its token: the player keeps the seat in the room, the guesses and the status in the round.
+ * A client that reconnects within the grace period enters <pre>/resume token</pre> instead of
+ * its name, and the new connection takes over the parked session (see {@link GameSession}).
+ * When the grace period runs out, the player is removed from the game as if it had just left.
+ *
+ * <p>A session is either resumed or expired, never both: whoever removes it from the map first wins.
+ * 1 instance is shared by all sessions of the server.
+ *
+ * @author user
+ *
+ */
+public class ParkedSessions {
+
+	public static final int DEFAULT_GRACE_SECONDS = 30;
+
+	/**
+	 * What the client enters instead of its name to resume a session
+	 */
+	public static final String RESUME_COMMAND = "/resume";
+
+	// Shared by all sessions. See MetricsRegistry
+	private static final Counter PARKED = MetricsRegistry.getDefault().counter("server_sessions_parked_total", "Sessions kept after the connection dropped");
+	private static final Counter RESUMED = MetricsRegistry.getDefault().counter("server_sessions_resumed_total", "Parked sessions taken over by a new connection");
+	private static final Counter EXPIRED = MetricsRegistry.getDefault().counter("server_sessions_expired_total", "Parked sessions removed after the grace period");
+
+	private final TimerWheel wheel;
+	private final long graceMillis;
+	private final SecureRandom random = new SecureRandom();
+	private final Map<String, Parked> sessions = new ConcurrentHashMap<>();
+
+
+	/**
+	 * @param wheel Tracks the grace periods
+	 * @param graceSeconds 0 to disable resumption
+	 */
+	public ParkedSessions(TimerWheel wheel, int graceSeconds) {
+		this.wheel = wheel;
+		this.graceMillis = graceSeconds * 1000L;
+	}
+
+	/**
+	 * Check if sessions can be resumed at all
+	 * @return
+	 */
+	public boolean isEnabled() {
+		return graceMillis > 0;
+	}
+
+	/**
+	 * Creates a token for a new player. Tokens cannot be guessed
+	 * @return
+	 */
+	public String newToken() {
+		byte[] bytes = new byte[18];
+		random.nextBytes(bytes);
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+	}
+
+	/**
+	 * Parks the session until it is resumed or the grace period runs out.
+	 * Called on the thread of the session, after its connection has been closed.
+	 *
+	 * @param token
+	 * @param session
+	 */
+	public void park(String token, GameSession session) {
+		Parked parked = new Parked(session);
+		sessions.put(token, parked);
+		parked.expiry = wheel.schedule(() -> expire(token, parked), graceMillis);
+		PARKED.increment();
+	}
+
+	/**
+	 * Takes the parked session of the token. Can be called from any thread.
+	 *
+	 * @param token
+	 * @return null if there is no such session, or it has already expired
+	 */
+	public GameSession resume(String token) {
+		Parked parked = sessions.remove(token);
+		if (parked == null) {
+			return null;
+		}
+
+		// the expiry may not be scheduled yet, in that case it will find nothing to remove
+		if (parked.expiry != null) {
+			parked.expiry.cancel();
+		}
+		RESUMED.increment();
+		return parked.session;
+	}
+
+	/**
+	 * Removes all parked players from their games right away, eg. when the server is draining
+	 * (see {@link ServerDrain}). Can be called from any thread.
+	 */
+	public void expireAll() {
+		for (Map.Entry<String, Parked> entry : sessions.entrySet()) {
+			Parked parked = entry.getValue();
+			if (parked.expiry != null) {
+				parked.expiry.cancel();
+			}
+			expire(entry.getKey(), parked);
+		}
+	}
+
+	/**
+	 * Gets the number of sessions waiting to be resumed
+	 * @return
+	 */
+	public int size() {
+		return sessions.size();
+	}
+
+
+	/**
+	 * Grace period has run out. Runs on the thread of the timer wheel
+	 *
+	 * @param token
+	 * @param parked
+	 */
+	private void expire(String token, Parked parked) {
+		if (sessions.remove(token, parked)) {
+			EXPIRED.increment();
+			parked.session.expire();
+		}
+	}
+
+
+	private static class Parked {
+		private final GameSession session;
+		private volatile SessionDriver.Timeout expiry;
+
+		private Parked(GameSession session) {
+			this.session = session;
+		}
+	}
+}
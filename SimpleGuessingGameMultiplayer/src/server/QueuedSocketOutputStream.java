@@ -0,0 +1,168 @@
+package server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Output stream of a client of the blocking transport ({@link ServerProcess}).
+ *
+ * <p>Writes only add the bytes to an {@link OutboundBuffer}. A writer task sends them to the socket,
+ * so the thread of the session never waits for a client that stopped reading. The task runs on
+ * an executor shared by all clients (see {@link SessionExecutors}) and only while there is something
+ * to send, so an idle client does not hold a thread for its writes. When the client is too slow, the buffer decides what happens
+ * (see {@link OutboundBuffer.SlowConsumerPolicy}): new batches are dropped, or writes
+ * fail and the process closes the connection.
+ *
+ * @author user
+ *
+ */
+public class QueuedSocketOutputStream extends OutputStream {
+
+	/**
+	 * How long close() waits for the remaining bytes (eg. the goodbye message) to be sent
+	 */
+	public static final long LINGER_MILLIS = 1000;
+
+	private final OutputStream out;
+	private final OutboundBuffer outbound;
+	private final Executor writers;
+
+	// guarded by outbound
+	private boolean closed = false;
+	private boolean writing = false;
+	private IOException failure;
+
+
+	/**
+	 * @param out Stream of the socket
+	 * @param outbound
+	 * @param writers Runs the writer task, shared by all clients
+	 */
+	public QueuedSocketOutputStream(OutputStream out, OutboundBuffer outbound, Executor writers) {
+		this.out = out;
+		this.outbound = outbound;
+		this.writers = writers;
+	}
+
+	/**
+	 * Gets the number of bytes the client has not received yet
+	 * @return
+	 */
+	public int getPendingBytes() {
+		return outbound.size();
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		write(new byte[] { (byte) b }, 0, 1);
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		synchronized (outbound) {
+			if (failure != null) {
+				throw failure;
+			}
+			if (closed) {
+				throw new IOException("Connection closed");
+			}
+
+			if (! outbound.add(b, off, len)) {
+				failure = new IOException("Client is not reading its responses");
+				throw failure;
+			}
+
+			// the running task sends these bytes as well
+			if (writing) {
+				return;
+			}
+			writing = true;
+		}
+
+		try {
+			writers.execute(this::writeLoop);
+		}
+		// the server is shutting down
+		catch (RejectedExecutionException e) {
+			IOException shutdown = new IOException("Server is shutting down", e);
+			synchronized (outbound) {
+				writing = false;
+				failure = shutdown;
+				outbound.notifyAll();
+			}
+			throw shutdown;
+		}
+	}
+
+	/**
+	 * Does not wait, the writer task sends the bytes as soon as possible
+	 */
+	@Override
+	public void flush() throws IOException {
+	}
+
+	/**
+	 * Gives the writer task a moment to send what is left, then closes the socket stream
+	 */
+	@Override
+	public void close() throws IOException {
+		synchronized (outbound) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+
+			long deadline = System.currentTimeMillis() + LINGER_MILLIS;
+			long remaining;
+			try {
+				while (writing && (remaining = deadline - System.currentTimeMillis()) > 0) {
+					outbound.wait(remaining);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		// a task still stuck on the socket fails and ends
+		outbound.clear();
+		out.close();
+	}
+
+
+	/**
+	 * Body of the writer task. Ends once everything has been sent, the next write starts a new one
+	 */
+	private void writeLoop() {
+		try {
+			while (true) {
+				ByteBuffer batch;
+				synchronized (outbound) {
+					batch = outbound.peek();
+					if (batch == null || failure != null) {
+						writing = false;
+						outbound.notifyAll();
+						return;
+					}
+				}
+
+				// the only place the socket is written to
+				int count = batch.remaining();
+				out.write(batch.array(), batch.arrayOffset() + batch.position(), count);
+				out.flush();
+				batch.position(batch.limit());
+				outbound.sent(count);
+			}
+		}
+		// client is gone, the next write of the session fails
+		catch (IOException e) {
+			synchronized (outbound) {
+				failure = e;
+				writing = false;
+				outbound.notifyAll();
+			}
+		}
+	}
+}
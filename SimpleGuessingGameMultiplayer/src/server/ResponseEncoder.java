@@ -0,0 +1,57 @@
+package server;
+
+import java.io.IOException;
+
+/**
+ * Writes the messages of the server to a client.
+ *
+ * <p>There are 2 protocols (see {@link ServerOptions.Protocol}):<ul>
+ * <li>{@link ObjectResponseEncoder} - serialized {@link Response} objects (legacy)</li>
+ * <li>{@link BinaryResponseEncoder} - length prefixed binary frames</li>
+ * </ul>
+ *
+ * <p>Instances of this class are not thread safe. They must only be used
+ * by the thread driving the client (see {@link SessionDriver}).
+ *
+ * @author user
+ *
+ */
+public interface ResponseEncoder {
+
+	/**
+	 * Sends a message, a prompt or a QUIT command to the client
+	 * @param response
+	 * @throws IOException
+	 */
+	void write(Response response) throws IOException;
+
+	/**
+	 * Sends the score of an incorrect guess to the client
+	 * @param score
+	 * @throws IOException
+	 */
+	void writeScore(Score score) throws IOException;
+
+	/**
+	 * Sends the winners, losers and players forfeited of a round to the client
+	 * @param summary
+	 * @throws IOException
+	 */
+	void writeRoundSummary(RoundSummary summary) throws IOException;
+
+	/**
+	 * Sends a message that was encoded once for many clients
+	 * @param message
+	 * @throws IOException
+	 */
+	void writeShared(SharedMessage message) throws IOException;
+
+	/**
+	 * Called after each event the client has been sent messages for
+	 * (eg. after each guess). Sends anything that is still buffered.
+	 * @throws IOException
+	 */
+	void flush() throws IOException;
+
+	void close() throws IOException;
+}
@@ -0,0 +1,175 @@
+package server;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import core.Game;
+
+/**
+ * A room hosts 1 independent {@link Game}. Rooms are created by the {@link RoomManager}.
+ *
+ * <p>Each room has its own lock, so players of different rooms never wait for each other.
+ * Players in the same room wait for each other (eg. waiting for the 3rd player, 
+ * waiting for the others to finish) using the {@link core.RoundCoordinator} of the game.
+ *
+ * @author user
+ *
+ */
+public class Room {
+
+	private final int id;
+	private final Game game;
+	private final int capacity;
+	private final RoomManager manager;
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	// messages sent to all players of the room
+	private final RoomBroadcast broadcast = new RoomBroadcast();
+
+	/**
+	 * Number of seats taken. -1 means the room is closed and cannot be joined anymore
+	 */
+	private final AtomicInteger seats = new AtomicInteger(0);
+
+	// true while the room is in the list of rooms with free seats
+	final AtomicBoolean listed = new AtomicBoolean(false);
+
+	// clients currently in this room
+	private final Map<ClientSession, Boolean> members = new ConcurrentHashMap<>();
+
+
+	Room(int id, Game game, int capacity, RoomManager manager) {
+		this.id = id;
+		this.game = game;
+		this.capacity = capacity;
+		this.manager = manager;
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	public Game getGame() {
+		return game;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Lock that must be held while changing the game of this room
+	 * @return
+	 */
+	public ReentrantLock getLock() {
+		return lock;
+	}
+
+	/**
+	 * Gets the messages shared by the players of this room
+	 * @return
+	 */
+	public RoomBroadcast getBroadcast() {
+		return broadcast;
+	}
+
+	/**
+	 * Gets the number of seats taken
+	 * @return
+	 */
+	public int getNumSeatsTaken() {
+		return Math.max(0, seats.get());
+	}
+
+	public boolean hasFreeSeat() {
+		int taken = seats.get();
+		return taken >= 0 && taken < capacity;
+	}
+
+	public boolean isClosed() {
+		return seats.get() < 0;
+	}
+
+	/**
+	 * Gets the clients in this room
+	 * @return
+	 */
+	public Collection<ClientSession> getMembers() {
+		return members.keySet();
+	}
+
+
+	/**
+	 * Takes seats if the room has enough free seats and is not closed
+	 * @param count
+	 * @return
+	 */
+	boolean tryReserveSeats(int count) {
+		while (true) {
+			int taken = seats.get();
+			if (taken < 0 || taken + count > capacity) {
+				return false;
+			}
+
+			if (seats.compareAndSet(taken, taken + count)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Gives back a seat. The last client leaving closes the room.
+	 * @return true if the room has been closed
+	 */
+	boolean releaseSeat() {
+		int taken = seats.decrementAndGet();
+		return taken == 0 && seats.compareAndSet(0, -1);
+	}
+
+
+	/**
+	 * Gives back the seat taken by the {@link Matchmaker}
+	 * for a client that never entered this room
+	 */
+	void cancelSeat() {
+		manager.leave(this);
+	}
+
+	/**
+	 * Adds the client to the members of this room
+	 * @param session
+	 */
+	public void enter(ClientSession session) {
+		members.put(session, Boolean.TRUE);
+	}
+
+	/**
+	 * A new connection takes over the session of a client, see {@link ParkedSessions}.
+	 * The seat stays taken.
+	 *
+	 * @param session
+	 * @param replacement
+	 */
+	public void replace(ClientSession session, ClientSession replacement) {
+		if (members.remove(session) != null) {
+			members.put(replacement, Boolean.TRUE);
+		}
+	}
+
+	/**
+	 * Client has disconnected. Removes the client from the members
+	 * and gives back its seat.
+	 *
+	 * @param session
+	 */
+	public void leave(ClientSession session) {
+		if (members.remove(session) != null) {
+			manager.leave(this);
+		}
+	}
+}
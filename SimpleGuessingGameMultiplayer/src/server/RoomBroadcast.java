@@ -0,0 +1,40 @@
+package server;
+
+import java.util.function.Supplier;
+
+import core.GameRound;
+
+/**
+ * Messages that every player of a {@link Room} is sent with the same content.
+ *
+ * <p>The message is built and encoded once (see {@link SharedMessage}), and each player
+ * writes the same bytes to its own connection. Each player writes on the thread of its
+ * {@link SessionDriver}, when the player gets to that step of the game, because
+ * the encoders are not thread safe and the message has to come before the next prompt of the player.
+ *
+ * @author user
+ *
+ */
+public class RoomBroadcast {
+
+	// summary of the last round that has ended. Guarded by this
+	private GameRound summaryRound;
+	private SharedMessage summary;
+
+
+	/**
+	 * Gets the summary of the round. The first player asking builds it, 
+	 * the other players of the round get the same message.
+	 *
+	 * @param round
+	 * @param builder Builds the summary, only called once per round
+	 * @return
+	 */
+	public synchronized SharedMessage getRoundSummary(GameRound round, Supplier<RoundSummary> builder) {
+		if (summaryRound != round) {
+			summary = SharedMessage.of(builder.get());
+			summaryRound = round;
+		}
+		return summary;
+	}
+}
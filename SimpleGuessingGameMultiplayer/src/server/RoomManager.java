@@ -0,0 +1,188 @@
+package server;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import core.Game;
+import core.SecretCodeGenerator;
+import core.ShuffleCodeGenerator;
+
+/**
+ * Creates the game rooms ({@link Room}) and keeps track of their free seats.
+ *
+ * <p>Each room plays with a fixed number of digits. The {@link Matchmaker} decides
+ * which room a new client joins: a room of its number of digits that still has a free seat,
+ * or a new room created for a group of clients. Rooms are closed
+ * (and forgotten) when their last client leaves.
+ *
+ * @author user
+ *
+ */
+public class RoomManager {
+
+	private final int capacity;
+	private final SecretCodeGenerator codeGenerator;
+	private final AtomicInteger nextId = new AtomicInteger(0);
+
+	// all rooms that are still open
+	private final Map<Integer, Room> rooms = new ConcurrentHashMap<>();
+
+	// rooms that may still have a free seat by number of digits, oldest first
+	private final Map<Integer, Queue<Room>> openRooms = new ConcurrentHashMap<>();
+
+
+	/**
+	 * Rooms will have {@link Game#MAX_PLAYERS} seats
+	 */
+	public RoomManager() {
+		this(Game.MAX_PLAYERS);
+	}
+
+	/**
+	 * @param capacity Number of seats per room
+	 */
+	public RoomManager(int capacity) {
+		this(capacity, new ShuffleCodeGenerator());
+	}
+
+	/**
+	 * @param capacity Number of seats per room
+	 * @param codeGenerator Creates the secret codes. Shared by the games of all rooms
+	 */
+	public RoomManager(int capacity, SecretCodeGenerator codeGenerator) {
+		this.capacity = capacity;
+		this.codeGenerator = codeGenerator;
+	}
+
+
+	/**
+	 * Takes seats in a room of the number of digits that has enough free seats.
+	 * <p>Each client must call {@link Room#enter(ClientSession)} and later {@link Room#leave(ClientSession)}.
+	 *
+	 * @param numDigits
+	 * @param seats
+	 * @return null if all rooms of the number of digits are full
+	 */
+	public Room join(int numDigits, int seats) {
+		Queue<Room> queue = openRooms.get(numDigits);
+		if (queue == null) {
+			return null;
+		}
+
+		for (Room room : queue) {
+			if (room.tryReserveSeats(seats)) {
+				// the last seat was taken, do not send other clients here
+				if (! room.hasFreeSeat()) {
+					unlist(room);
+				}
+				return room;
+			}
+
+			// full or closed
+			if (! room.hasFreeSeat()) {
+				unlist(room);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Takes seats in a room of any number of digits, the oldest first
+	 *
+	 * @param seats
+	 * @return null if no room has enough free seats
+	 */
+	public Room joinAny(int seats) {
+		for (int numDigits = Game.MIN_DIGITS; numDigits <= Game.MAX_DIGITS; numDigits++) {
+			Room room = join(numDigits, seats);
+			if (room != null) {
+				return room;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Creates a room for a group of clients. The seats of the group are already taken.
+	 *
+	 * @param numDigits
+	 * @param seats Number of clients in the group
+	 * @return
+	 */
+	public Room create(int numDigits, int seats) {
+		Room room = createRoom(numDigits);
+		room.tryReserveSeats(seats);
+		list(room);
+		return room;
+	}
+
+
+	/**
+	 * Gives back a seat taken by join() or create(). Called by {@link Room#leave(ClientSession)}
+	 * @param room
+	 */
+	void leave(Room room) {
+		if (room.releaseSeat()) {
+			rooms.remove(room.getId());
+			unlist(room);
+			return;
+		}
+
+		// send new clients to this room again
+		list(room);
+	}
+
+
+	/**
+	 * Helper method that creates a room with a new game
+	 * @param numDigits
+	 * @return
+	 */
+	private Room createRoom(int numDigits) {
+		Game game = new Game(codeGenerator);
+		game.setNumDigits(numDigits);
+		game.start();
+
+		Room room = new Room(nextId.incrementAndGet(), game, capacity, this);
+		rooms.put(room.getId(), room);
+		return room;
+	}
+
+	private void list(Room room) {
+		if (room.hasFreeSeat() && room.listed.compareAndSet(false, true)) {
+			openRooms.computeIfAbsent(room.getGame().getNumDigits(), d -> new ConcurrentLinkedQueue<>()).add(room);
+		}
+	}
+
+	private void unlist(Room room) {
+		if (room.listed.compareAndSet(true, false)) {
+			openRooms.get(room.getGame().getNumDigits()).remove(room);
+		}
+	}
+
+
+	/**
+	 * Gets the room by id. Returns null if the room has been closed.
+	 * @param id
+	 * @return
+	 */
+	public Room getRoom(int id) {
+		return rooms.get(id);
+	}
+
+	/**
+	 * Gets all open rooms
+	 * @return
+	 */
+	public Collection<Room> getRooms() {
+		return rooms.values();
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+}
@@ -0,0 +1,105 @@
+package server;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable summary of a round that has ended: the winners (with their number of guesses),
+ * the losers and the players that forfeited.
+ *
+ * @author user
+ *
+ */
+public class RoundSummary {
+
+	/**
+	 * A player that won the round
+	 */
+	public static class Winner {
+		private final String name;
+		private final int numGuesses;
+
+		public Winner(String name, int numGuesses) {
+			this.name = name;
+			this.numGuesses = numGuesses;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public int getNumGuesses() {
+			return numGuesses;
+		}
+	}
+
+	private final List<Winner> winners;
+	private final List<String> losers;
+	private final List<String> forfeiters;
+
+
+	/**
+	 * @param winners Winners, in the order they are announced
+	 * @param losers Names of the losers
+	 * @param forfeiters Names of the players that forfeited
+	 */
+	public RoundSummary(List<Winner> winners, List<String> losers, List<String> forfeiters) {
+		this.winners = Collections.unmodifiableList(new ArrayList<>(winners));
+		this.losers = Collections.unmodifiableList(new ArrayList<>(losers));
+		this.forfeiters = Collections.unmodifiableList(new ArrayList<>(forfeiters));
+	}
+
+	public List<Winner> getWinners() {
+		return winners;
+	}
+
+	public List<String> getLosers() {
+		return losers;
+	}
+
+	public List<String> getForfeiters() {
+		return forfeiters;
+	}
+
+	/**
+	 * Message printed by the client. Announces the winners, the losers and players that forfeited
+	 */
+	@Override
+	public String toString() {
+		StringBuilder response = new StringBuilder("----------------ROUND ENDED----------------\n");
+
+		// winners
+		response.append("WINNERS: \n");
+		if (winners.size() > 0) {
+			for (int i = 0; i < winners.size(); i++) {
+				response.append(String.format(" %d. %s (%d guesses)\n", i + 1, winners.get(i).getName(), winners.get(i).getNumGuesses()));
+			}
+		} else {
+			response.append(" * There are no winners for this round *\n");
+		}
+
+		// losers
+		response.append("LOSERS: \n");
+		if (losers.size() > 0) {
+			for (String loser : losers) {
+				response.append(String.format(" - %s\n", loser));
+			}
+		} else {
+			response.append(" * There are no losers for this round *\n");
+		}
+
+		// forfeiters
+		response.append("FORFEITED: \n");
+		if (forfeiters.size() > 0) {
+			for (String forfeiter : forfeiters) {
+				response.append(String.format("- %s\n", forfeiter));
+			}
+		} else {
+			response.append(" * There are no players forfeited for this round *");
+		}
+
+		response.append("\n");
+		return response.toString();
+	}
+}
@@ -0,0 +1,38 @@
+package server;
+
+/**
+ * Immutable score of an incorrect guess, sent to the client that made the guess.
+ *
+ * @author user
+ *
+ */
+public class Score {
+
+	private final int numCorrect;
+	private final int numIncorrect;
+
+	/**
+	 * @param numCorrect Number of digits in the correct position
+	 * @param numIncorrect Number of digits in the secret code but not in the correct position
+	 */
+	public Score(int numCorrect, int numIncorrect) {
+		this.numCorrect = numCorrect;
+		this.numIncorrect = numIncorrect;
+	}
+
+	public int getNumCorrect() {
+		return numCorrect;
+	}
+
+	public int getNumIncorrect() {
+		return numIncorrect;
+	}
+
+	/**
+	 * Message printed by the client
+	 */
+	@Override
+	public String toString() {
+		return String.format("INCORRECT GUESS. Correct: %s, Incorrect: %s\n", numCorrect, numIncorrect);
+	}
+}
@@ -32,14 +32,14 @@ public interface ServerCallback {
 	 * @param process
 	 * @param response
 	 */
-	void onSendResponse(ServerProcess process, Response response);
+	void onSendResponse(ClientSession process, Response response);
 	
 	/**
 	 * 
 	 * @param process
 	 * @param clientReply
 	 */
-	void onClientReply(ServerProcess process, String clientReply);
+	void onClientReply(ClientSession process, String clientReply);
 	
 	/**
 	 * Call back when server closes the connection to the client or 
@@ -49,7 +49,7 @@ public interface ServerCallback {
 	 * @param socket
 	 * @param process
 	 */
-	void onClientDisconnected(MultiPlayerServer server, Socket socket, ServerProcess process);
+	void onClientDisconnected(MultiPlayerServer server, Socket socket, ClientSession process);
 	
 	/**
 	 * Callback when an exception occurs
@@ -57,5 +57,5 @@ public interface ServerCallback {
 	 * @param process
 	 * @param e
 	 */
-	void onException(ServerProcess process, Exception e);
+	void onException(ClientSession process, Exception e);
 }
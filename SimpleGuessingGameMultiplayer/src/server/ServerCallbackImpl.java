@@ -17,6 +17,8 @@ import java.util.logging.Logger;
  */
 public class ServerCallbackImpl implements ServerCallback {
 	
+	private static final String CLASS_NAME = ServerCallbackImpl.class.getName();
+	
 	private Logger logger;
 	
 	/**
@@ -37,8 +39,7 @@ public class ServerCallbackImpl implements ServerCallback {
 		SERVER_STARTED("Server started on port " + port);
 	}
 	private void SERVER_STARTED(String message) {
-		System.out.println("SERVER STARTED - " + message);
-		logger.log(Level.INFO, message);
+		log("SERVER_STARTED", message);
 	}
 	
 
@@ -50,8 +51,7 @@ public class ServerCallbackImpl implements ServerCallback {
 		CLIENT_CONNECTED("Client " + socket.getInetAddress().toString() + " connected.");
 	}
 	private void CLIENT_CONNECTED(String message) {
-		System.out.println("CLIENT CONNECTED - " + message);
-		logger.log(Level.INFO, message);
+		log("CLIENT_CONNECTED", message);
 	}
 
 	
@@ -59,12 +59,11 @@ public class ServerCallbackImpl implements ServerCallback {
 	 * SERVER RESPONDED event
 	 */
 	@Override
-	public void onSendResponse(ServerProcess process, Response response) {
+	public void onSendResponse(ClientSession process, Response response) {
 		SERVER_RESPONDED("Server: " + response.getMessage());
 	}
 	private void SERVER_RESPONDED(String message) {
-		System.out.println("SERVER RESPONDED - " + message);
-		logger.log(Level.INFO, message);
+		log("SERVER_RESPONDED", message);
 	}
 
 	
@@ -72,13 +71,12 @@ public class ServerCallbackImpl implements ServerCallback {
 	 * CLIENT REPLIED event
 	 */
 	@Override
-	public void onClientReply(ServerProcess process, String clientReply) {
+	public void onClientReply(ClientSession process, String clientReply) {
 		String address = process.getSocket().getInetAddress().toString();
 		CLIENT_REPLIED(String.format("%s: %s\n", address, clientReply));
 	}
 	private void CLIENT_REPLIED(String message) {
-		System.out.println("CLIENT REPLIED - " + message);
-		logger.log(Level.INFO, message);
+		log("CLIENT_REPLIED", message);
 	}
 	
 	
@@ -87,13 +85,12 @@ public class ServerCallbackImpl implements ServerCallback {
 	 * CLIENT DISCONNECTED event
 	 */
 	@Override
-	public void onClientDisconnected(MultiPlayerServer server, Socket socket, ServerProcess process) {
+	public void onClientDisconnected(MultiPlayerServer server, Socket socket, ClientSession process) {
 		String address = socket.getInetAddress().toString();
 		CLIENT_DISCONNECTED(String.format("CLIENT DISCONNECTED: %s disconnected.", address));
 	}
 	private void CLIENT_DISCONNECTED(String message) {
-		System.out.println("CLIENT DISCONNECTED - " + message);
-		logger.log(Level.INFO, message);
+		log("CLIENT_DISCONNECTED", message);
 	}
 
 	
@@ -101,13 +98,25 @@ public class ServerCallbackImpl implements ServerCallback {
 	 * EXCEPTION THROWN event
 	 */
 	@Override
-	public void onException(ServerProcess process, Exception e) {
+	public void onException(ClientSession process, Exception e) {
 		EXCEPTION_THROWN(e);
 	}
 	public void EXCEPTION_THROWN(Exception e) {
 		System.err.println("EXCEPTION: " + e.getMessage());
 		e.printStackTrace();
-		logger.log(Level.SEVERE, e.getMessage(), e);
+		logger.logp(Level.SEVERE, CLASS_NAME, "EXCEPTION_THROWN", e.getMessage(), e);
+	}
+	
+	
+	/**
+	 * Helper method that logs the event. The event name is logged as the method name,
+	 * so the logger does not have to look it up. The log writer also prints it to the console.
+	 * 
+	 * @param event
+	 * @param message
+	 */
+	private void log(String event, String message) {
+		logger.logp(Level.INFO, CLASS_NAME, event, message);
 	}
 	
 }
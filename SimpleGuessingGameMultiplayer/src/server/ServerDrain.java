@@ -0,0 +1,143 @@
+package server;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import metrics.Counter;
+import metrics.MetricsRegistry;
+
+/**
+ * Shuts the server down without dropping the games that are being played.
+ *
+ * <p>When the server starts draining, it stops accepting connections (see {@link MultiPlayerServer}) and every
+ * {@link GameSession} is told on the thread of its driver:<ul>
+ * <li>Players in a round finish the round. Instead of asking them to continue,
+ * they are told to reconnect and disconnected</li>
+ * <li>Everyone else (signing up, waiting for a room, for players or for the next round) is told to reconnect
+ * and disconnected right away</li>
+ * </ul>
+ * Sessions cannot be resumed on a draining server, so players whose connection has dropped leave the game
+ * straight away instead of holding up the round until their grace period runs out.
+ *
+ * <p>Players still connected when the drain timeout runs out are told to reconnect and disconnected,
+ * even in the middle of a round.
+ *
+ * <p>1 instance is shared by all sessions of the server. Thread safe.
+ *
+ * @author user
+ *
+ */
+public class ServerDrain {
+
+	public static final int DEFAULT_TIMEOUT_SECONDS = 120;
+
+	// Shared by all sessions. See MetricsRegistry
+	private static final Counter CUT_OFF = MetricsRegistry.getDefault().counter("server_drain_cut_off_total", "Sessions disconnected because the drain timeout ran out");
+
+	private final ParkedSessions parkedSessions;
+	private final long timeoutMillis;
+
+	// sessions that are not closed yet
+	private final Set<GameSession> sessions = ConcurrentHashMap.newKeySet();
+
+	private volatile boolean draining = false;
+
+
+	/**
+	 * @param parkedSessions
+	 * @param timeoutSeconds Longest time the running rounds have to finish
+	 */
+	public ServerDrain(ParkedSessions parkedSessions, int timeoutSeconds) {
+		this.parkedSessions = parkedSessions;
+		this.timeoutMillis = timeoutSeconds * 1000L;
+	}
+
+
+	/**
+	 * Check if the server is shutting down. New rounds are not started anymore
+	 * @return
+	 */
+	public boolean isDraining() {
+		return draining;
+	}
+
+	/**
+	 * Gets the number of sessions that are not closed yet
+	 * @return
+	 */
+	public int getRemaining() {
+		return sessions.size();
+	}
+
+	/**
+	 * Starts draining. Called once the server has stopped accepting connections
+	 */
+	public void start() {
+		draining = true;
+		parkedSessions.expireAll();
+
+		// sessions created from now on see the flag (see GameSession.begin())
+		for (GameSession session : sessions) {
+			session.requestDrain();
+		}
+	}
+
+	/**
+	 * Waits until all sessions are closed, or the drain timeout runs out.
+	 * Sessions that are still open then are disconnected.
+	 *
+	 * @return true if all rounds could finish in time
+	 * @throws InterruptedException
+	 */
+	public boolean await() throws InterruptedException {
+		long deadline = System.currentTimeMillis() + timeoutMillis;
+		if (awaitSessions(deadline)) {
+			return true;
+		}
+
+		for (GameSession session : sessions) {
+			CUT_OFF.increment();
+			session.requestLeave();
+		}
+
+		// give the drivers a moment to send the goodbye message
+		awaitSessions(System.currentTimeMillis() + QueuedSocketOutputStream.LINGER_MILLIS);
+		return false;
+	}
+
+
+	/**
+	 * Called by the session when it is created
+	 * @param session
+	 */
+	void add(GameSession session) {
+		sessions.add(session);
+	}
+
+	/**
+	 * Called by the session once its connection is closed
+	 * @param session
+	 */
+	void remove(GameSession session) {
+		if (sessions.remove(session) && sessions.isEmpty()) {
+			synchronized (this) {
+				notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Helper method that waits until all sessions are closed
+	 *
+	 * @param deadline System.currentTimeMillis() to stop waiting at
+	 * @return false if there are still sessions at the deadline
+	 * @throws InterruptedException
+	 */
+	private synchronized boolean awaitSessions(long deadline) throws InterruptedException {
+		long remaining;
+		while (! sessions.isEmpty() && (remaining = deadline - System.currentTimeMillis()) > 0) {
+			wait(remaining);
+		}
+		return sessions.isEmpty();
+	}
+}
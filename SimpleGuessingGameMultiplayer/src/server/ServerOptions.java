@@ -0,0 +1,440 @@
+package server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import core.Game;
+import core.QueuedGameCallback;
+import core.SecretCodeGenerator;
+import core.SecretCodePool;
+import core.ShuffleCodeGenerator;
+
+/**
+ * Startup options of the {@link MultiPlayerServer}.
+ *
+ * <p>Options are passed as command line arguments in the form
+ * <pre>--name=value</pre> A single argument without the leading dashes
+ * is treated as the port number, eg. <pre>java server.MultiPlayerServer 15376 --transport=nio</pre>
+ *
+ * <p>Available options:<ul>
+ * <li>--port - Port number the server listens to. Defaults to 15376</li>
+ * <li>--transport - blocking (1 thread per client) or nio (event loops). Defaults to blocking</li>
+ * <li>--event-loops - Number of event loop threads used by the nio transport. Defaults to number of CPUs</li>
+ * <li>--acceptors - Number of threads accepting the connections, see {@link MultiPlayerServer}.
+ * Defaults to number of CPUs, at most 4</li>
+ * <li>--execution - thread (new thread per client) or virtual (virtual thread per client). 
+ * Only used by the blocking transport. Defaults to thread</li>
+ * <li>--protocol - object (serialized Response objects) or binary (length prefixed frames).
+ * Defaults to object</li>
+ * <li>--log-overflow - block, drop or sample. What happens to log records when the
+ * log writer cannot keep up, see {@link AsyncLogWriter.OverflowPolicy}. Defaults to block</li>
+ * <li>--secret-codes - fast (ThreadLocalRandom) or secure (SecureRandom, pre-generated in the background).
+ * Defaults to fast</li>
+ * <li>--callback-overflow - block or drop. What happens to game events when the game log callback
+ * cannot keep up, see {@link core.QueuedGameCallback.OverflowPolicy}. Defaults to block</li>
+ * <li>--metrics-port - Port of the metrics endpoint (http://localhost:port/metrics), see {@link metrics.MetricsHttpServer}.
+ * Only listens on the loopback address. Defaults to 0 (disabled). Metrics are always available through JMX</li>
+ * <li>--turn-timeout-s - Seconds a player has to enter a guess before forfeiting the round, see {@link SessionTimeouts}.
+ * Defaults to 120, 0 means no limit</li>
+ * <li>--idle-timeout-s - Seconds a client has to answer the other questions before being disconnected.
+ * Defaults to 300, 0 means no limit</li>
+ * <li>--outbound-kb - High watermark of the bytes waiting to be sent to each client, see {@link OutboundBuffer}.
+ * The low watermark is a quarter of it. Defaults to 256</li>
+ * <li>--slow-consumer - disconnect or drop. What happens to clients above the high watermark,
+ * see {@link OutboundBuffer.SlowConsumerPolicy}. Defaults to disconnect</li>
+ * <li>--resume-grace-s - Seconds a player whose connection dropped keeps its seat, see {@link ParkedSessions}.
+ * Defaults to 30, 0 disables resuming sessions</li>
+ * <li>--match-wait-s - Longest seconds a player waits for others that want the same number of digits,
+ * see {@link Matchmaker}. Defaults to 5</li>
+ * <li>--max-connections - Connections served at the same time, see {@link AdmissionControl}.
+ * Connections over the limit are rejected in the accept loop. Defaults to 10000</li>
+ * <li>--accept-backlog - Connections waiting to be accepted before the operating system refuses new ones.
+ * Defaults to 128</li>
+ * <li>--retry-after-s - Seconds a rejected client is told to wait before trying again. Defaults to 5</li>
+ * <li>--drain-timeout-s - Seconds a draining server waits for the running rounds before
+ * disconnecting the remaining players, see {@link ServerDrain}. Defaults to 120</li>
+ * <li>--bind-retry-s - Seconds the server waits for its port while another server is still listening,
+ * eg. the server it replaces until that one starts draining. Defaults to 0 (fail right away)</li>
+ * <li>--room-capacity - Seats per room, {@link core.Game#MIN_PLAYERS} - {@link core.Game#MAX_PLAYERS}.
+ * Defaults to 6</li>
+ * </ul>
+ *
+ * @author user
+ *
+ */
+public class ServerOptions {
+
+	/**
+	 * How client connections are driven
+	 */
+	public enum Transport {
+		/**
+		 * 1 thread per client, blocking reads and writes
+		 */
+		BLOCKING,
+
+		/**
+		 * Small fixed set of event loop threads using Selectors
+		 */
+		NIO
+	}
+
+	/**
+	 * What runs the client processes of the blocking transport
+	 */
+	public enum Execution {
+		/**
+		 * A new platform thread per client
+		 */
+		THREAD,
+
+		/**
+		 * A virtual thread per client, from an executor owned by the server
+		 */
+		VIRTUAL
+	}
+
+	/**
+	 * How messages are sent to the clients. The client detects the protocol by itself
+	 */
+	public enum Protocol {
+		/**
+		 * Serialized {@link Response} objects (legacy)
+		 */
+		OBJECT,
+
+		/**
+		 * Length prefixed binary frames, see {@link BinaryProtocol}
+		 */
+		BINARY;
+
+		/**
+		 * Creates the encoder of this protocol. This writes the header of the protocol to the client.
+		 *
+		 * @param out
+		 * @return
+		 * @throws IOException
+		 */
+		public ResponseEncoder newEncoder(OutputStream out) throws IOException {
+			if (this == BINARY) {
+				return new BinaryResponseEncoder(out);
+			}
+			return new ObjectResponseEncoder(out);
+		}
+	}
+
+	/**
+	 * How the secret codes of the rounds are created
+	 */
+	public enum SecretCodes {
+		/**
+		 * Shuffle using ThreadLocalRandom, see {@link ShuffleCodeGenerator}
+		 */
+		FAST,
+
+		/**
+		 * SecureRandom codes from a pool filled in the background, see {@link SecretCodePool}
+		 */
+		SECURE;
+
+		/**
+		 * Creates the generator. The generator is shared by all rooms
+		 * @return
+		 */
+		public SecretCodeGenerator newGenerator() {
+			if (this == SECURE) {
+				return new SecretCodePool();
+			}
+			return new ShuffleCodeGenerator();
+		}
+	}
+
+	private int port = MultiPlayerServer.DEFAULT_PORT;
+	private Transport transport = Transport.BLOCKING;
+	private int eventLoops = Runtime.getRuntime().availableProcessors();
+	private int acceptors = Math.min(4, Runtime.getRuntime().availableProcessors());
+	private Execution execution = Execution.THREAD;
+	private Protocol protocol = Protocol.OBJECT;
+	private AsyncLogWriter.OverflowPolicy logOverflow = AsyncLogWriter.OverflowPolicy.BLOCK;
+	private SecretCodes secretCodes = SecretCodes.FAST;
+	private int metricsPort = 0;
+	private QueuedGameCallback.OverflowPolicy callbackOverflow = QueuedGameCallback.OverflowPolicy.BLOCK;
+	private int turnTimeoutSeconds = SessionTimeouts.DEFAULT_TURN_SECONDS;
+	private int idleTimeoutSeconds = SessionTimeouts.DEFAULT_IDLE_SECONDS;
+	private int outboundKb = OutboundBuffer.DEFAULT_HIGH_WATERMARK / 1024;
+	private OutboundBuffer.SlowConsumerPolicy slowConsumer = OutboundBuffer.SlowConsumerPolicy.DISCONNECT;
+	private int resumeGraceSeconds = ParkedSessions.DEFAULT_GRACE_SECONDS;
+	private int matchWaitSeconds = Matchmaker.DEFAULT_WAIT_SECONDS;
+	private int maxConnections = AdmissionControl.DEFAULT_MAX_CONNECTIONS;
+	private int acceptBacklog = AdmissionControl.DEFAULT_ACCEPT_BACKLOG;
+	private int retryAfterSeconds = AdmissionControl.DEFAULT_RETRY_AFTER_SECONDS;
+	private int roomCapacity = Game.MAX_PLAYERS;
+	private int drainTimeoutSeconds = ServerDrain.DEFAULT_TIMEOUT_SECONDS;
+	private int bindRetrySeconds = 0;
+
+
+	/**
+	 * Parse options from the command line arguments.
+	 * Invalid values are reported and the default value is used instead.
+	 *
+	 * @param args
+	 * @return
+	 */
+	public static ServerOptions parse(String[] args) {
+		ServerOptions options = new ServerOptions();
+
+		for (String arg : args) {
+
+			// port number can be passed without the option name
+			if (! arg.startsWith("--")) {
+				options.port = parseInt(arg, options.port);
+				continue;
+			}
+
+			String[] pair = arg.substring(2).split("=", 2);
+			String name = pair[0];
+			String value = pair.length > 1 ? pair[1].trim() : "";
+
+			switch (name) {
+				case "port":
+					options.port = parseInt(value, options.port);
+					break;
+				case "transport":
+					options.transport = parseEnum(Transport.class, value, options.transport);
+					break;
+				case "event-loops":
+					options.eventLoops = Math.max(1, parseInt(value, options.eventLoops));
+					break;
+				case "acceptors":
+					options.acceptors = Math.max(1, parseInt(value, options.acceptors));
+					break;
+				case "execution":
+					options.execution = parseEnum(Execution.class, value, options.execution);
+					break;
+				case "protocol":
+					options.protocol = parseEnum(Protocol.class, value, options.protocol);
+					break;
+				case "log-overflow":
+					options.logOverflow = parseEnum(AsyncLogWriter.OverflowPolicy.class, value, options.logOverflow);
+					break;
+				case "secret-codes":
+					options.secretCodes = parseEnum(SecretCodes.class, value, options.secretCodes);
+					break;
+				case "callback-overflow":
+					options.callbackOverflow = parseEnum(QueuedGameCallback.OverflowPolicy.class, value, options.callbackOverflow);
+					break;
+				case "metrics-port":
+					options.metricsPort = Math.max(0, parseInt(value, options.metricsPort));
+					break;
+				case "turn-timeout-s":
+					options.turnTimeoutSeconds = Math.max(0, parseInt(value, options.turnTimeoutSeconds));
+					break;
+				case "idle-timeout-s":
+					options.idleTimeoutSeconds = Math.max(0, parseInt(value, options.idleTimeoutSeconds));
+					break;
+				case "outbound-kb":
+					options.outboundKb = Math.max(1, parseInt(value, options.outboundKb));
+					break;
+				case "slow-consumer":
+					options.slowConsumer = parseEnum(OutboundBuffer.SlowConsumerPolicy.class, value, options.slowConsumer);
+					break;
+				case "resume-grace-s":
+					options.resumeGraceSeconds = Math.max(0, parseInt(value, options.resumeGraceSeconds));
+					break;
+				case "match-wait-s":
+					options.matchWaitSeconds = Math.max(0, parseInt(value, options.matchWaitSeconds));
+					break;
+				case "max-connections":
+					options.maxConnections = Math.max(1, parseInt(value, options.maxConnections));
+					break;
+				case "accept-backlog":
+					options.acceptBacklog = Math.max(1, parseInt(value, options.acceptBacklog));
+					break;
+				case "retry-after-s":
+					options.retryAfterSeconds = Math.max(0, parseInt(value, options.retryAfterSeconds));
+					break;
+				case "drain-timeout-s":
+					options.drainTimeoutSeconds = Math.max(0, parseInt(value, options.drainTimeoutSeconds));
+					break;
+				case "bind-retry-s":
+					options.bindRetrySeconds = Math.max(0, parseInt(value, options.bindRetrySeconds));
+					break;
+				case "room-capacity":
+					options.roomCapacity = Math.min(Game.MAX_PLAYERS, Math.max(Game.MIN_PLAYERS, parseInt(value, options.roomCapacity)));
+					break;
+				default:
+					System.err.printf("%s is not a valid option\n", arg);
+					break;
+			}
+		}
+
+		return options;
+	}
+
+
+	/**
+	 * Helper method that parses a number. If value is not a number,
+	 * the default value is returned.
+	 *
+	 * @param value
+	 * @param defaultValue
+	 * @return
+	 */
+	static int parseInt(String value, int defaultValue) {
+		try {
+			return Integer.parseInt(value.trim());
+		}
+		catch (NumberFormatException e) {
+			System.err.printf("%s is not a valid number\n", value);
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * Helper method that parses enum names case insensitively. If value is not a valid name,
+	 * the default value is returned.
+	 *
+	 * @param type
+	 * @param value
+	 * @param defaultValue
+	 * @return
+	 */
+	static <T extends Enum<T>> T parseEnum(Class<T> type, String value, T defaultValue) {
+		try {
+			return Enum.valueOf(type, value.trim().toUpperCase().replace('-', '_'));
+		}
+		catch (IllegalArgumentException e) {
+			System.err.printf("%s is not a valid %s\n", value, type.getSimpleName().toLowerCase());
+			return defaultValue;
+		}
+	}
+
+
+	public int getPort() {
+		return port;
+	}
+
+	public Transport getTransport() {
+		return transport;
+	}
+
+	public int getEventLoops() {
+		return eventLoops;
+	}
+
+	public int getAcceptors() {
+		return acceptors;
+	}
+
+	public Execution getExecution() {
+		return execution;
+	}
+
+	public Protocol getProtocol() {
+		return protocol;
+	}
+
+	public AsyncLogWriter.OverflowPolicy getLogOverflow() {
+		return logOverflow;
+	}
+
+	public SecretCodes getSecretCodes() {
+		return secretCodes;
+	}
+
+	public QueuedGameCallback.OverflowPolicy getCallbackOverflow() {
+		return callbackOverflow;
+	}
+
+	/**
+	 * Gets the port of the metrics endpoint
+	 * @return 0 if the endpoint is disabled
+	 */
+	public int getMetricsPort() {
+		return metricsPort;
+	}
+
+	/**
+	 * Gets the seconds a player has to enter a guess
+	 * @return 0 if there is no limit
+	 */
+	public int getTurnTimeoutSeconds() {
+		return turnTimeoutSeconds;
+	}
+
+	/**
+	 * Gets the seconds a client has to answer the other questions
+	 * @return 0 if there is no limit
+	 */
+	public int getIdleTimeoutSeconds() {
+		return idleTimeoutSeconds;
+	}
+
+	/**
+	 * Gets the high watermark of the bytes waiting to be sent to each client
+	 * @return
+	 */
+	public int getOutboundKb() {
+		return outboundKb;
+	}
+
+	public OutboundBuffer.SlowConsumerPolicy getSlowConsumer() {
+		return slowConsumer;
+	}
+
+	/**
+	 * Gets the seconds a player whose connection dropped keeps its seat
+	 * @return 0 if sessions cannot be resumed
+	 */
+	public int getResumeGraceSeconds() {
+		return resumeGraceSeconds;
+	}
+
+	/**
+	 * Gets the longest seconds a player waits for others that want the same number of digits
+	 * @return
+	 */
+	public int getMatchWaitSeconds() {
+		return matchWaitSeconds;
+	}
+
+	/**
+	 * Gets the number of seats per room
+	 * @return
+	 */
+	public int getRoomCapacity() {
+		return roomCapacity;
+	}
+
+	/**
+	 * Gets the seconds a draining server waits for the running rounds
+	 * @return
+	 */
+	public int getDrainTimeoutSeconds() {
+		return drainTimeoutSeconds;
+	}
+
+	/**
+	 * Gets the seconds the server waits for its port to be free
+	 * @return 0 if the server fails right away
+	 */
+	public int getBindRetrySeconds() {
+		return bindRetrySeconds;
+	}
+
+	/**
+	 * Creates the admission control of the accept loop
+	 * @return
+	 */
+	public AdmissionControl newAdmissionControl() {
+		return new AdmissionControl(maxConnections, acceptBacklog, retryAfterSeconds, protocol);
+	}
+
+	/**
+	 * Creates the outbound buffer of a new client
+	 * @return
+	 */
+	public OutboundBuffer newOutboundBuffer() {
+		return new OutboundBuffer(outboundKb * 1024, slowConsumer);
+	}
+}
@@ -0,0 +1,60 @@
+package server;
+
+import java.net.Socket;
+
+/**
+ * Drives a {@link GameSession}: delivers the lines sent by the client and runs the
+ * tasks of the session (eg. other players have finished, lobby timeout, turn timeout).
+ *
+ * <p>Everything the session does happens one event at a time, never on 2 threads at once.
+ * The blocking transport uses {@link ServerProcess} (1 reading thread per client, tasks run
+ * on a shared executor under the lock of the process), the NIO transport uses {@link NioSession}
+ * (the event loop of the connection).
+ *
+ * @author user
+ *
+ */
+public interface SessionDriver {
+
+	/**
+	 * A task scheduled using schedule() that can be cancelled
+	 */
+	interface Timeout {
+		void cancel();
+	}
+
+	/**
+	 * Gets the socket of the connected client
+	 * @return
+	 */
+	Socket getSocket();
+
+	/**
+	 * Encoder used to send messages to the client
+	 * @return
+	 */
+	ResponseEncoder getEncoder();
+
+	/**
+	 * Runs the task as the next event of the session. Can be called from any thread.
+	 * @param task
+	 */
+	void execute(Runnable task);
+
+	/**
+	 * Runs the task as an event of the session after the delay. Can be called from any thread.
+	 * Delays are tracked by the {@link TimerWheel} of the server, so they are only accurate to 1 tick.
+	 *
+	 * @param task
+	 * @param delayMillis
+	 * @return
+	 */
+	Timeout schedule(Runnable task, long delayMillis);
+
+	boolean isClosed();
+
+	/**
+	 * Close the connection. The driver will tell the session using {@link GameSession#onClosed()}
+	 */
+	void close();
+}
@@ -0,0 +1,96 @@
+package server;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Helper class that creates the executors running the client processes.
+ *
+ * <p>Virtual threads are only available from Java 21. The project is
+ * compiled for older versions of Java, so the virtual thread executor
+ * is looked up at runtime. When it is not available, a cached thread
+ * pool with small stacks is used instead.
+ *
+ * <p>Work that only needs a thread for a moment, like sending the responses of a client,
+ * runs on a shared executor instead of a thread of its own (see newTaskExecutor()).
+ *
+ * @author user
+ *
+ */
+public class SessionExecutors {
+
+	/**
+	 * Stack size of the fallback threads. The game only needs a few frames per client.
+	 */
+	public static final long FALLBACK_STACK_SIZE = 256 * 1024;
+
+
+	/**
+	 * Creates an executor that starts a new virtual thread for each client process.
+	 *
+	 * @param name Prefix of the thread names, used when virtual threads are not available
+	 * @return
+	 */
+	public static ExecutorService newVirtualThreadPerTaskExecutor(String name) {
+		ExecutorService executor = lookupVirtualThreadPerTaskExecutor();
+		if (executor == null) {
+			System.err.println("Virtual threads are not available on this JVM, using a thread pool instead.");
+			return Executors.newCachedThreadPool(new SmallStackThreadFactory(name));
+		}
+		return executor;
+	}
+
+	/**
+	 * Creates an executor for short tasks shared by all clients. Uses virtual threads
+	 * when they are available. Otherwise pooled threads are only created while tasks are running,
+	 * so the number of threads does not grow with the number of clients.
+	 *
+	 * @param name Prefix of the thread names, used when virtual threads are not available
+	 * @return
+	 */
+	public static ExecutorService newTaskExecutor(String name) {
+		ExecutorService executor = lookupVirtualThreadPerTaskExecutor();
+		if (executor == null) {
+			return Executors.newCachedThreadPool(new SmallStackThreadFactory(name));
+		}
+		return executor;
+	}
+
+
+	/**
+	 * Helper method that looks up the virtual thread executor of Java 21
+	 * @return null if virtual threads are not available
+	 */
+	private static ExecutorService lookupVirtualThreadPerTaskExecutor() {
+		try {
+			Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) method.invoke(null);
+		}
+		catch (ReflectiveOperationException e) {
+			return null;
+		}
+	}
+
+
+	/**
+	 * Creates threads with small stacks so more clients fit in the same memory
+	 */
+	private static class SmallStackThreadFactory implements ThreadFactory {
+		private final String name;
+		private final AtomicInteger count = new AtomicInteger();
+
+		private SmallStackThreadFactory(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(null, r, name + "-" + count.incrementAndGet(), FALLBACK_STACK_SIZE);
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
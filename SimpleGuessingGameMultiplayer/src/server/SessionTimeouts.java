@@ -0,0 +1,59 @@
+package server;
+
+/**
+ * Time limits of the {@link GameSession}s, and the {@link TimerWheel} that tracks them.
+ * 1 instance is shared by all sessions of the server.
+ *
+ * <p>Limits:<ul>
+ * <li>turn - time a player has to enter a guess. When it runs out, the player forfeits the round
+ * so the others do not wait forever</li>
+ * <li>idle - time a client has to reply to any other question (name, digits, continue or quit).
+ * When it runs out, the client is disconnected</li>
+ * <li>lobby - see {@link GameSession#WAITING_TIME_SECONDS}</li>
+ * </ul>
+ * A limit of 0 means no limit.
+ *
+ * @author user
+ *
+ */
+public class SessionTimeouts {
+
+	public static final int DEFAULT_TURN_SECONDS = 120;
+	public static final int DEFAULT_IDLE_SECONDS = 300;
+
+	private final TimerWheel wheel;
+	private final long turnMillis;
+	private final long idleMillis;
+
+
+	/**
+	 * @param wheel
+	 * @param turnSeconds 0 for no limit
+	 * @param idleSeconds 0 for no limit
+	 */
+	public SessionTimeouts(TimerWheel wheel, int turnSeconds, int idleSeconds) {
+		this.wheel = wheel;
+		this.turnMillis = turnSeconds * 1000L;
+		this.idleMillis = idleSeconds * 1000L;
+	}
+
+	public TimerWheel getWheel() {
+		return wheel;
+	}
+
+	/**
+	 * Gets the time a player has to enter a guess
+	 * @return 0 if there is no limit
+	 */
+	public long getTurnMillis() {
+		return turnMillis;
+	}
+
+	/**
+	 * Gets the time a client has to reply to the other questions
+	 * @return 0 if there is no limit
+	 */
+	public long getIdleMillis() {
+		return idleMillis;
+	}
+}
@@ -0,0 +1,99 @@
+package server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * A message sent to many clients with the same content, eg. the summary of a round.
+ *
+ * <p>The message is encoded once for each protocol, the first time a client of that protocol
+ * needs it. The clients then write the same bytes (see {@link ResponseEncoder#writeShared(SharedMessage)})
+ * instead of building and encoding the message again. The bytes are never changed after they are encoded,
+ * so they can be shared by the threads of all clients.
+ *
+ * @author user
+ *
+ */
+public class SharedMessage {
+
+	/**
+	 * Writes the content of the message to an encoder
+	 */
+	private interface Content {
+		void writeTo(ResponseEncoder encoder) throws IOException;
+	}
+
+	private final Content content;
+
+	// encoded bytes by protocol. Guarded by this
+	private final byte[][] encoded = new byte[ServerOptions.Protocol.values().length][];
+
+
+	private SharedMessage(Content content) {
+		this.content = content;
+	}
+
+	/**
+	 * Creates a shared message, a prompt or a QUIT command
+	 * @param response
+	 * @return
+	 */
+	public static SharedMessage of(Response response) {
+		return new SharedMessage(encoder -> encoder.write(response));
+	}
+
+	/**
+	 * Creates a shared round summary
+	 * @param summary
+	 * @return
+	 */
+	public static SharedMessage of(RoundSummary summary) {
+		return new SharedMessage(encoder -> encoder.writeRoundSummary(summary));
+	}
+
+
+	/**
+	 * Gets the bytes of the message in the protocol, without the header of the protocol.
+	 * The array must not be modified.
+	 *
+	 * @param protocol
+	 * @return
+	 */
+	public synchronized byte[] getBytes(ServerOptions.Protocol protocol) {
+		byte[] bytes = encoded[protocol.ordinal()];
+		if (bytes == null) {
+			bytes = encode(protocol);
+			encoded[protocol.ordinal()] = bytes;
+		}
+		return bytes;
+	}
+
+
+	/**
+	 * Helper method that encodes the message with a new encoder of the protocol.
+	 * The header written by the encoder is left out.
+	 *
+	 * @param protocol
+	 * @return
+	 */
+	private byte[] encode(ServerOptions.Protocol protocol) {
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			ResponseEncoder encoder = protocol.newEncoder(out);
+			encoder.flush();
+			int headerLength = out.size();
+
+			content.writeTo(encoder);
+			encoder.flush();
+
+			byte[] bytes = out.toByteArray();
+			return Arrays.copyOfRange(bytes, headerLength, bytes.length);
+		}
+		// nothing can go wrong writing to memory
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
@@ -0,0 +1,279 @@
+package server;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs tasks after a delay, for all sessions of the server with a single thread
+ * (eg. lobby timeouts, players that take too long to guess, idle clients).
+ *
+ * <p>Time is cut into ticks. The wheel is an array of buckets, one per tick, that is
+ * reused every lap. A timer goes to the bucket of the tick it is due in, and remembers how many
+ * more laps to wait. Each tick, the thread only looks at the timers of 1 bucket. Timers are
+ * kept in linked lists, so scheduling and cancelling are O(1) however many timers are waiting.
+ *
+ * <p>Timers are due at the end of their tick, so they run up to 1 tick late, never early.
+ * Tasks run on the thread of the wheel and must be short: usually they only hand the real work
+ * over to the thread of a session (see {@link SessionDriver#execute(Runnable)}).
+ *
+ * @author user
+ *
+ */
+public class TimerWheel implements AutoCloseable {
+
+	public static final long DEFAULT_TICK_MILLIS = 100;
+	public static final int DEFAULT_WHEEL_SIZE = 512;
+
+	private final long tickNanos;
+	private final Bucket[] wheel;
+	private final int mask;
+
+	// timers added or cancelled by other threads, handled by the wheel thread every tick
+	private final Queue<Timer> added = new ConcurrentLinkedQueue<>();
+	private final Queue<Timer> cancelled = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger pending = new AtomicInteger();
+
+	private final long startTime = System.nanoTime();
+	private final Thread thread;
+	private volatile boolean closed = false;
+
+	// ticks passed since the start. Only used by the wheel thread
+	private long tick = 0;
+
+
+	public TimerWheel() {
+		this(DEFAULT_TICK_MILLIS, DEFAULT_WHEEL_SIZE);
+	}
+
+	/**
+	 * Creates the wheel and starts its thread
+	 *
+	 * @param tickMillis Accuracy of the timers
+	 * @param wheelSize Number of buckets, rounded up to the next power of 2
+	 */
+	public TimerWheel(long tickMillis, int wheelSize) {
+		if (tickMillis < 1 || wheelSize < 1 || wheelSize > (1 << 30)) {
+			throw new IllegalArgumentException("Invalid tick " + tickMillis + " or wheel size " + wheelSize);
+		}
+
+		int size = 1;
+		while (size < wheelSize) {
+			size <<= 1;
+		}
+
+		this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+		this.wheel = new Bucket[size];
+		this.mask = size - 1;
+		for (int i = 0; i < size; i++) {
+			wheel[i] = new Bucket();
+		}
+
+		this.thread = new Thread(this::run, "timer-wheel");
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+
+	/**
+	 * Runs the task on the thread of the wheel after the delay. Can be called from any thread.
+	 *
+	 * @param task
+	 * @param delayMillis
+	 * @return Handle that can be used to cancel the task
+	 */
+	public Timer schedule(Runnable task, long delayMillis) {
+		long deadline = System.nanoTime() - startTime + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis));
+		Timer timer = new Timer(task, deadline);
+
+		pending.incrementAndGet();
+		added.add(timer);
+		return timer;
+	}
+
+	/**
+	 * Gets the number of timers that have neither run nor been cancelled
+	 * @return
+	 */
+	public int getPending() {
+		return pending.get();
+	}
+
+	/**
+	 * Stops the thread. Timers that have not run yet never will
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		LockSupport.unpark(thread);
+	}
+
+
+	/**
+	 * Body of the wheel thread
+	 */
+	private void run() {
+		while (! closed) {
+			long deadline = (tick + 1) * tickNanos;
+			long wait = deadline - (System.nanoTime() - startTime);
+			if (wait > 0) {
+				LockSupport.parkNanos(wait);
+				continue;
+			}
+
+			removeCancelled();
+			addNew();
+
+			Bucket bucket = wheel[(int) (tick & mask)];
+			bucket.expire(deadline);
+			tick++;
+		}
+	}
+
+	/**
+	 * Helper method that puts the new timers in the bucket of the tick they are due in
+	 */
+	private void addNew() {
+		Timer timer;
+		while ((timer = added.poll()) != null) {
+			if (timer.state.get() != Timer.WAITING) {
+				continue;
+			}
+
+			// due in a tick that has already passed, run in the current one
+			long due = Math.max(timer.deadline / tickNanos, tick);
+			timer.laps = (due - tick) / wheel.length;
+			wheel[(int) (due & mask)].add(timer);
+		}
+	}
+
+	private void removeCancelled() {
+		Timer timer;
+		while ((timer = cancelled.poll()) != null) {
+			if (timer.bucket != null) {
+				timer.bucket.remove(timer);
+			}
+		}
+	}
+
+
+	/**
+	 * A task waiting in the wheel
+	 */
+	public class Timer implements SessionDriver.Timeout {
+		private static final int WAITING = 0;
+		private static final int CANCELLED = 1;
+		private static final int EXPIRED = 2;
+
+		private final Runnable task;
+		private final long deadline;
+		private final AtomicInteger state = new AtomicInteger(WAITING);
+
+		// only used by the wheel thread
+		private long laps;
+		private Bucket bucket;
+		private Timer previous;
+		private Timer next;
+
+		private Timer(Runnable task, long deadline) {
+			this.task = task;
+			this.deadline = deadline;
+		}
+
+		/**
+		 * Cancels the task if it has not run yet. Can be called from any thread
+		 */
+		@Override
+		public void cancel() {
+			if (state.compareAndSet(WAITING, CANCELLED)) {
+				pending.decrementAndGet();
+				cancelled.add(this);
+			}
+		}
+
+		public boolean isCancelled() {
+			return state.get() == CANCELLED;
+		}
+
+		public boolean isExpired() {
+			return state.get() == EXPIRED;
+		}
+
+		private void expire() {
+			if (! state.compareAndSet(WAITING, EXPIRED)) {
+				return;
+			}
+			pending.decrementAndGet();
+
+			// a broken task must not stop the other timers
+			try {
+				task.run();
+			} catch (RuntimeException e) {
+				System.err.println("Sorry something went wrong in a timer. " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Timers due in the same tick of a lap, in a doubly linked list
+	 */
+	private static class Bucket {
+		private Timer head;
+		private Timer tail;
+
+		private void add(Timer timer) {
+			timer.bucket = this;
+			if (head == null) {
+				head = tail = timer;
+			} else {
+				tail.next = timer;
+				timer.previous = tail;
+				tail = timer;
+			}
+		}
+
+		private void remove(Timer timer) {
+			if (timer.previous != null) {
+				timer.previous.next = timer.next;
+			} else {
+				head = timer.next;
+			}
+
+			if (timer.next != null) {
+				timer.next.previous = timer.previous;
+			} else {
+				tail = timer.previous;
+			}
+
+			timer.previous = null;
+			timer.next = null;
+			timer.bucket = null;
+		}
+
+		/**
+		 * Runs the timers due by the deadline. The others wait for another lap
+		 * @param deadline
+		 */
+		private void expire(long deadline) {
+			Timer timer = head;
+			while (timer != null) {
+				Timer next = timer.next;
+
+				if (timer.isCancelled()) {
+					remove(timer);
+				}
+				else if (timer.laps <= 0 && timer.deadline <= deadline) {
+					remove(timer);
+					timer.expire();
+				}
+				else {
+					timer.laps--;
+				}
+
+				timer = next;
+			}
+		}
+	}
+}
@@ -1,10 +1,14 @@
 package server;
 
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.logging.FileHandler;
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
 import java.util.logging.Level;
+import java.util.logging.LogRecord;
 import java.util.logging.Logger;
 import java.util.logging.SimpleFormatter;
+import java.util.logging.StreamHandler;
 
 /**
  * Helper class to provided utility methods such as logging.
@@ -18,35 +22,67 @@ public class Utils {
 	 * Create a logger object. The logger that is created will be file based. 
 	 * If the log file doesn't exist, it will create one.
 	 * 
+	 * <p>Records are written by the log writer in the background, to the log file
+	 * and to the console (eg. "GAME STARTED - Game started").
+	 * Loggers created here should be used with Logger.logp(), the method name
+	 * is the name of the event.
+	 * 
 	 * @param fileName
 	 * @param className
+	 * @param writer Writes the records in the background
 	 * @return
 	 */
-	public static <T> Logger createLogger(String fileName, Class<T> className) {
+	public static <T> Logger createLogger(String fileName, Class<T> className, AsyncLogWriter writer) {
 		Logger logger = Logger.getLogger(className.getName());
 		logger.setUseParentHandlers(false);
 		
+		Handler console = createConsoleEcho();
 		
-		FileHandler fileHandler = null;
 		try {
-			// handle logging through files. 'true' means append to existing log file
-			fileHandler = new FileHandler(fileName, true);
+			// handle logging through files. 'true' means append to existing log file.
+			// the writer flushes the file after each batch instead of after each record
+			StreamHandler fileHandler = new StreamHandler(new FileOutputStream(fileName, true), new SimpleFormatter());
 			fileHandler.setLevel(Level.INFO);
 			
-			// use SimpleFormatter instead of default XMLFormatter
-			fileHandler.setFormatter(new SimpleFormatter()); 
-			
-			logger.addHandler(fileHandler);
+			logger.addHandler(writer.newHandler(fileHandler, console));
 			return logger;
 		} 
 		catch (SecurityException e) {
+			logger.addHandler(writer.newHandler(console));
 			logger.log(Level.SEVERE, "Logger is not working. ", e.getMessage());
 		}
 		catch (IOException e) {
+			logger.addHandler(writer.newHandler(console));
 			logger.log(Level.SEVERE, "Logger is not working. ", e.getMessage());
 		}
 		
 		return logger;
 	}
 	
+	
+	/**
+	 * Helper method that creates the handler printing events to the console. 
+	 * Errors are not printed, they are already printed to System.err by the callbacks.
+	 * 
+	 * @return
+	 */
+	private static Handler createConsoleEcho() {
+		Handler console = new StreamHandler(System.out, new Formatter() {
+			@Override
+			public String format(LogRecord record) {
+				String event = record.getSourceMethodName() == null ? "" : record.getSourceMethodName().replace('_', ' ');
+				return event + " - " + formatMessage(record) + System.lineSeparator();
+			}
+		}) {
+			// System.out must stay open
+			@Override
+			public synchronized void close() {
+				flush();
+			}
+		};
+		console.setLevel(Level.INFO);
+		console.setFilter(record -> record.getLevel().intValue() <= Level.INFO.intValue());
+		return console;
+	}
+	
 }
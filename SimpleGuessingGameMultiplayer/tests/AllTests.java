@@ -2,13 +2,59 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 
+import clienttests.LoadGeneratorTests;
 import coretests.GameRoundTests;
 import coretests.GameTests;
+import coretests.GuessScorerTests;
+import coretests.PlayerRegistryTests;
+import coretests.QueuedGameCallbackTests;
+import coretests.RoundCoordinatorTests;
+import coretests.SecretCodeGeneratorTests;
+import metricstests.MetricsTests;
+import servertests.AdmissionControlTests;
+import servertests.AsyncLogWriterTests;
+import servertests.EventLoopTests;
+import servertests.GameSessionTests;
+import servertests.LineReaderTests;
+import servertests.LogRingBufferTests;
+import servertests.MatchmakerTests;
+import servertests.MultiPlayerServerTests;
+import servertests.OutboundBufferTests;
+import servertests.ParkedSessionsTests;
+import servertests.OutboxTests;
+import servertests.ResponseCodecTests;
+import servertests.RoomManagerTests;
+import servertests.ServerDrainTests;
+import servertests.ServerProcessTests;
+import servertests.TimerWheelTests;
 
 @RunWith(Suite.class)
 @SuiteClasses({
 	GameTests.class,
-	GameRoundTests.class
+	GameRoundTests.class,
+	GuessScorerTests.class,
+	PlayerRegistryTests.class,
+	QueuedGameCallbackTests.class,
+	RoundCoordinatorTests.class,
+	SecretCodeGeneratorTests.class,
+	ResponseCodecTests.class,
+	OutboxTests.class,
+	OutboundBufferTests.class,
+	LogRingBufferTests.class,
+	AsyncLogWriterTests.class,
+	TimerWheelTests.class,
+	LineReaderTests.class,
+	GameSessionTests.class,
+	ParkedSessionsTests.class,
+	RoomManagerTests.class,
+	MatchmakerTests.class,
+	AdmissionControlTests.class,
+	MultiPlayerServerTests.class,
+	EventLoopTests.class,
+	ServerProcessTests.class,
+	ServerDrainTests.class,
+	LoadGeneratorTests.class,
+	MetricsTests.class
 })
 public class AllTests {
 
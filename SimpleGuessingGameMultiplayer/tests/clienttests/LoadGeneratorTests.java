@@ -0,0 +1,47 @@
+package clienttests;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import client.GuessStrategy;
+
+public class LoadGeneratorTests {
+
+	@Test
+	public void test_strategic_guesses_find_the_code() {
+		Random random = new Random(3);
+		GuessStrategy secretCodes = new GuessStrategy(GuessStrategy.Mode.RANDOM, random);
+		secretCodes.reset(4);
+		int wins = 0;
+
+		for (int game = 0; game < 50; game++) {
+			String secretCode = secretCodes.next();
+			GuessStrategy strategy = new GuessStrategy(GuessStrategy.Mode.STRATEGIC, random);
+			strategy.reset(4);
+
+			for (int attempt = 0; attempt < 10; attempt++) {
+				String guess = strategy.next();
+				if (guess.equals(secretCode)) {
+					wins++;
+					break;
+				}
+
+				int correct = 0;
+				int incorrect = 0;
+				for (int i = 0; i < 4; i++) {
+					if (guess.charAt(i) == secretCode.charAt(i)) {
+						correct++;
+					} else if (secretCode.indexOf(guess.charAt(i)) >= 0) {
+						incorrect++;
+					}
+				}
+				strategy.onScore(correct, incorrect);
+			}
+		}
+
+		assertTrue("won " + wins, wins >= 45);
+	}
+}
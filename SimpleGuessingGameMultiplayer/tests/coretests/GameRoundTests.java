@@ -97,6 +97,79 @@ public class GameRoundTests {
 		
 		assertTrue(player.hasWon(round));
 	}
+	
+	@Test
+	public void test_end_makes_everyone_but_the_winners_lose() {
+		Player winner = round.getPlayerByName("Player 2");
+		Player forfeiter = round.getPlayerByName("Player 1");
+		
+		round.forfeit(forfeiter);
+		round.addGuess(winner, round.getSecretCode());
+		round.end();
+		
+		assertTrue(winner.hasWon(round));
+		assertFalse(winner.hasLost(round));
+		assertTrue(forfeiter.hasForfeited(round));
+		assertTrue(forfeiter.hasLost(round));
+		assertEquals(1, round.getWinners().size());
+		assertEquals(5, round.getLosers().size());
+		assertEquals(1, round.getForfeiters().size());
+		
+		// forfeiter lost first, the others in the order they joined
+		assertSame(forfeiter, round.getLosers().get(0));
+		assertSame(round.getPlayerByName("Player 3"), round.getLosers().get(1));
+	}
+	
+	@Test
+	public void test_outcome_of_players_not_in_round() {
+		Player stranger = new Player("Stranger");
+		round.addWinner(stranger);
+		round.forfeit(stranger);
+		
+		assertFalse(round.hasPlayer(stranger));
+		assertFalse(stranger.hasWon(round));
+		assertFalse(stranger.hasForfeited(round));
+		assertTrue(round.getWinners().isEmpty());
+	}
+	
+	@Test
+	public void test_round_counts_players_still_playing() {
+		assertEquals(6, round.getNumPlaying());
+		
+		round.addGuess(round.getPlayerByName("Player 1"), round.getSecretCode());
+		round.forfeit(round.getPlayerByName("Player 2"));
+		round.addLoser(round.getPlayerByName("Player 3"));
+		round.addLoser(round.getPlayerByName("Player 3"));
+		assertEquals(3, round.getNumPlaying());
+		assertFalse(round.isAllPlayersFinished());
+		
+		for (int i = 4; i <= 6; i++) {
+			round.forfeit(round.getPlayerByName("Player " + i));
+		}
+		assertTrue(round.isAllPlayersFinished());
+		
+		// players joining late have to finish too
+		round.addPlayer(new Player("Player 7"));
+		assertFalse(round.isAllPlayersFinished());
+	}
+	
+	@Test
+	public void test_round_ends_once() {
+		assertTrue(round.end());
+		assertFalse(round.end());
+		assertTrue(round.hasEnded());
+		assertEquals(0, round.getNumPlaying());
+		assertEquals(6, round.getLosers().size());
+	}
+	
+	@Test
+	public void test_player_added_twice_has_1_slot() {
+		Player player = round.getPlayerByName("Player 1");
+		round.addPlayer(player);
+		
+		assertEquals(6, round.getPlayers().size());
+		assertTrue(round.hasPlayer(player));
+	}
 }
 
 
@@ -0,0 +1,80 @@
+package coretests;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import core.GuessScorer;
+
+public class GuessScorerTests {
+
+	@Test
+	public void test_correct_and_incorrect_positions_are_counted() {
+		GuessScorer scorer = new GuessScorer("1234");
+		assertScore(scorer, "1234", 4, 0);
+		assertScore(scorer, "4321", 0, 4);
+		assertScore(scorer, "1243", 2, 2);
+		assertScore(scorer, "5678", 0, 0);
+	}
+
+	@Test
+	public void test_repeated_digits_are_counted_each_time() {
+		GuessScorer scorer = new GuessScorer("123");
+		assertScore(scorer, "222", 1, 2);
+		assertScore(scorer, "311", 0, 3);
+	}
+
+	@Test
+	public void test_only_positions_in_the_secret_code_are_compared() {
+		GuessScorer scorer = new GuessScorer("123");
+		assertScore(scorer, "12", 2, 0);
+		assertScore(scorer, "12345", 3, 0);
+		assertScore(scorer, "", 0, 0);
+	}
+
+	@Test
+	public void test_non_digits_are_never_found() {
+		GuessScorer scorer = new GuessScorer("0123");
+		assertScore(scorer, "abc/", 0, 0);
+		assertScore(scorer, "f", 0, 0);
+	}
+
+	@Test
+	public void test_same_result_as_comparing_strings() {
+		Random random = new Random(42);
+		for (int n = 0; n < 1000; n++) {
+			String code = randomDigits(random, 3 + random.nextInt(6));
+			String guess = randomDigits(random, 1 + random.nextInt(9));
+			GuessScorer scorer = new GuessScorer(code);
+
+			int correct = 0;
+			int incorrect = 0;
+			for (int i = 0; i < Math.min(code.length(), guess.length()); i++) {
+				if (guess.charAt(i) == code.charAt(i)) {
+					correct++;
+				} else if (code.indexOf(guess.charAt(i)) >= 0) {
+					incorrect++;
+				}
+			}
+
+			assertScore(scorer, guess, correct, incorrect);
+		}
+	}
+
+
+	private String randomDigits(Random random, int length) {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < length; i++) {
+			builder.append((char) ('0' + random.nextInt(10)));
+		}
+		return builder.toString();
+	}
+
+	private void assertScore(GuessScorer scorer, String guess, int correct, int incorrect) {
+		int score = scorer.score(guess);
+		assertEquals(correct, GuessScorer.getNumCorrect(score));
+		assertEquals(incorrect, GuessScorer.getNumIncorrect(score));
+	}
+}
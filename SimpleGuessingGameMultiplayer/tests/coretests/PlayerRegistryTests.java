@@ -0,0 +1,123 @@
+package coretests;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import core.Player;
+import core.PlayerRegistry;
+
+public class PlayerRegistryTests {
+
+	PlayerRegistry registry;
+
+	@Before
+	public void setUp() throws Exception {
+		registry = new PlayerRegistry();
+	}
+
+	@Test
+	public void test_players_are_found_by_id_and_name() {
+		Player player1 = registry.add("Player 1", 6);
+		Player player2 = registry.add("Player 2", 6);
+
+		assertNotEquals(player1.getId(), player2.getId());
+		assertSame(player2, registry.get(player2.getId()));
+		assertSame(player1, registry.findByName("Player 1"));
+		assertNull(registry.findByName("Player 3"));
+		assertTrue(registry.contains(player1));
+	}
+
+	@Test
+	public void test_registry_is_full() {
+		for (int i = 0; i < 3; i++) {
+			assertNotNull(registry.add("Player " + i, 3));
+		}
+		assertNull(registry.add("Player 4", 3));
+		assertEquals(3, registry.size());
+	}
+
+	@Test
+	public void test_players_keep_the_order_they_joined() {
+		Player player1 = registry.add("Player 1", 6);
+		Player player2 = registry.add("Player 2", 6);
+		Player player3 = registry.add("Player 3", 6);
+
+		assertSame(player1, registry.first());
+		assertTrue(registry.remove(player1));
+		assertFalse(registry.remove(player1));
+
+		assertSame(player2, registry.first());
+		assertEquals(2, registry.size());
+		assertSame(player3, registry.getPlayers().get(1));
+		assertNull(registry.get(player1.getId()));
+	}
+
+	@Test
+	public void test_same_name_finds_the_player_that_joined_first() {
+		Player first = registry.add("Bob", 6);
+		Player second = registry.add("Bob", 6);
+
+		assertSame(first, registry.findByName("Bob"));
+		registry.remove(first);
+		assertSame(second, registry.findByName("Bob"));
+		registry.remove(second);
+		assertNull(registry.findByName("Bob"));
+	}
+
+	@Test
+	public void test_snapshot_does_not_change() {
+		Player player1 = registry.add("Player 1", 6);
+		List<Player> snapshot = registry.getPlayers();
+
+		registry.add("Player 2", 6);
+		registry.remove(player1);
+
+		assertEquals(1, snapshot.size());
+		assertSame(player1, snapshot.get(0));
+		assertEquals("Player 2", registry.getPlayers().get(0).getName());
+	}
+
+	@Test
+	public void test_iterating_while_players_join_and_leave() throws Exception {
+		int rounds = 20000;
+		AtomicReference<Throwable> error = new AtomicReference<>();
+		CountDownLatch done = new CountDownLatch(1);
+
+		Thread writer = new Thread(() -> {
+			try {
+				for (int i = 0; i < rounds; i++) {
+					Player player = registry.add("Player " + i, 6);
+					if (player != null && i % 2 == 0) {
+						registry.remove(player);
+					}
+					if (registry.size() == 6) {
+						registry.remove(registry.first());
+					}
+				}
+			} catch (Throwable e) {
+				error.set(e);
+			} finally {
+				done.countDown();
+			}
+		});
+		writer.start();
+
+		while (done.getCount() > 0) {
+			int count = 0;
+			for (Player player : registry) {
+				assertNotNull(player);
+				count++;
+			}
+			assertTrue(count <= 6);
+		}
+
+		writer.join();
+		assertNull(error.get());
+	}
+}
@@ -0,0 +1,175 @@
+package coretests;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import core.Game;
+import core.GameCallback;
+import core.GameRound;
+import core.Player;
+import core.QueuedGameCallback;
+
+public class QueuedGameCallbackTests {
+
+	Player player = new Player("Player 1");
+
+	@Test
+	public void test_events_are_delivered_in_order() throws Exception {
+		RecordingCallback target = new RecordingCallback();
+		QueuedGameCallback callback = new QueuedGameCallback(target, 8, QueuedGameCallback.OverflowPolicy.BLOCK);
+
+		// more events than the queue holds, BLOCK waits for the callback
+		for (int i = 0; i < 100; i++) {
+			callback.onGuessAdded(null, player, "guess " + i);
+		}
+		callback.close();
+
+		assertEquals(100, target.events.size());
+		for (int i = 0; i < 100; i++) {
+			assertEquals("guess " + i, target.events.get(i));
+		}
+		assertEquals(0, callback.getDropped());
+	}
+
+	@Test
+	public void test_events_run_on_another_thread() throws Exception {
+		RecordingCallback target = new RecordingCallback();
+		target.blocked = new CountDownLatch(1);
+		QueuedGameCallback callback = new QueuedGameCallback(target, 8, QueuedGameCallback.OverflowPolicy.BLOCK);
+
+		// the callback is stuck, but the game does not wait for it
+		callback.onPlayerWon(null, player, 3);
+		callback.onPlayerQuited(null, player);
+		assertTrue(target.events.isEmpty());
+
+		target.blocked.countDown();
+		callback.close();
+		assertEquals(2, target.events.size());
+		assertNotEquals(Thread.currentThread(), target.thread);
+	}
+
+	@Test
+	public void test_drop_policy_drops_events_when_full() throws Exception {
+		RecordingCallback target = new RecordingCallback();
+		target.blocked = new CountDownLatch(1);
+		QueuedGameCallback callback = new QueuedGameCallback(target, 4, QueuedGameCallback.OverflowPolicy.DROP);
+
+		for (int i = 0; i < 50; i++) {
+			callback.onGuessAdded(null, player, "guess " + i);
+		}
+		assertTrue(callback.getDropped() > 0);
+
+		target.blocked.countDown();
+		callback.close();
+		assertEquals(50, target.events.size() + callback.getDropped());
+	}
+
+	@Test
+	public void test_events_after_close_are_delivered_directly() {
+		RecordingCallback target = new RecordingCallback();
+		QueuedGameCallback callback = new QueuedGameCallback(target, 4, QueuedGameCallback.OverflowPolicy.BLOCK);
+		callback.close();
+
+		callback.onGuessAdded(null, player, "late");
+		assertEquals(Collections.singletonList("late"), target.events);
+	}
+
+	@Test
+	public void test_round_keeps_attempts_after_next_round() throws Exception {
+		Game game = new Game();
+		game.setNumDigits(3);
+		Player player = game.signUpPlayer("Player 1");
+		GameRound round = game.startNextRound();
+
+		round.addGuess(player, "x");
+		round.addGuess(player, round.getSecretCode());
+		round.end();
+		game.startNextRound();
+
+		assertEquals(0, player.getNumGuesses());
+		assertEquals(2, round.getNumAttempts(player));
+	}
+
+
+	/**
+	 * Keeps the guesses and the names of the other events. Can block until released
+	 */
+	static class RecordingCallback implements GameCallback {
+		List<String> events = Collections.synchronizedList(new ArrayList<>());
+		CountDownLatch blocked;
+		volatile Thread thread;
+
+		private void record(String event) {
+			thread = Thread.currentThread();
+			if (blocked != null) {
+				try {
+					blocked.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			events.add(event);
+		}
+
+		@Override
+		public void onStart(Game game) {
+			record("start");
+		}
+
+		@Override
+		public void onSecretCodeCreated(Game game, String secretCode) {
+			record("secret code");
+		}
+
+		@Override
+		public void onRoundStarted(Game game, GameRound round, Player player) {
+			record("round started");
+		}
+
+		@Override
+		public void onPlayerSignedUp(Game game, GameRound round, Player player) {
+			record("signed up");
+		}
+
+		@Override
+		public void onGuessAdded(GameRound round, Player player, String guess) {
+			record(guess);
+		}
+
+		@Override
+		public void onIncorrectGuess(GameRound round, Player player, String guess) {
+			record("incorrect");
+		}
+
+		@Override
+		public void onPlayerWon(GameRound round, Player player, int numOfGuesses) {
+			record("won");
+		}
+
+		@Override
+		public void onPlayerLost(GameRound round, Player player, String secretCode) {
+			record("lost");
+		}
+
+		@Override
+		public void onRoundEnded(Game game, GameRound round) {
+			record("round ended");
+		}
+
+		@Override
+		public void onPlayerForfeited(Game game, GameRound round, Player player) {
+			record("forfeited");
+		}
+
+		@Override
+		public void onPlayerQuited(Game game, Player player) {
+			record("quited");
+		}
+	}
+}
@@ -0,0 +1,169 @@
+package coretests;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import core.*;
+
+public class RoundCoordinatorTests {
+
+	Game game;
+	RoundCoordinator coordinator;
+
+	GameManager manager1;
+	GameManager manager2;
+	GameManager manager3;
+
+	@Before
+	public void setUp() throws Exception {
+		game = new Game();
+		game.start();
+		coordinator = game.getCoordinator();
+
+		manager1 = new GameManager(game);
+		manager2 = new GameManager(game);
+		manager3 = new GameManager(game);
+	}
+
+	@Test
+	public void test_players_joined_completes_on_the_3rd_player() throws Exception {
+		CompletableFuture<Void> playersJoined = coordinator.whenPlayersJoined();
+
+		manager1.setCurrentPlayerName("Player 1");
+		manager2.setCurrentPlayerName("Player 2");
+		assertFalse(playersJoined.isDone());
+
+		manager3.setCurrentPlayerName("Player 3");
+		assertTrue(playersJoined.isDone());
+	}
+
+	@Test
+	public void test_players_have_to_wait_again_after_a_player_left() throws Exception {
+		signUp3Players();
+		assertTrue(coordinator.whenPlayersJoined().isDone());
+
+		manager3.quitPlayer();
+		assertFalse(coordinator.whenPlayersJoined().isDone());
+	}
+
+	@Test
+	public void test_digits_chosen_completes_when_first_player_sets_digits() throws Exception {
+		CompletableFuture<Void> digitsChosen = coordinator.whenDigitsChosen();
+		signUp3Players();
+		assertFalse(digitsChosen.isDone());
+
+		manager1.setNumDigits(4);
+		assertTrue(digitsChosen.isDone());
+	}
+
+	@Test
+	public void test_digits_chosen_completes_when_first_player_drops() throws Exception {
+		CompletableFuture<Void> digitsChosen = coordinator.whenDigitsChosen();
+		signUp3Players();
+
+		manager1.removeCurrentPlayer();
+		assertTrue(digitsChosen.isDone());
+		assertTrue(manager2.isCurrentPlayerFirst());
+	}
+
+	@Test
+	public void test_round_ends_when_remaining_player_drops() throws Exception {
+		GameRound round = startRound();
+
+		manager1.addGuess("f");
+		manager2.addGuess("f");
+		assertFalse(coordinator.whenRoundEnded(round).isDone());
+
+		// player 3 disconnects in the middle of the round
+		manager3.removeCurrentPlayer();
+		assertTrue(coordinator.whenRoundEnded(round).isDone());
+	}
+
+	@Test
+	public void test_all_players_chosen_completes_on_the_last_choice() throws Exception {
+		GameRound round = startRound();
+		manager1.addGuess("f");
+		manager2.addGuess("f");
+		manager3.addGuess("f");
+		assertTrue(round.hasEnded());
+
+		CompletableFuture<Void> allPlayersChosen = coordinator.whenAllPlayersChosen();
+		manager1.chooseToContinue();
+		manager2.quitPlayer();
+		assertFalse(allPlayersChosen.isDone());
+
+		manager3.chooseToContinue();
+		assertTrue(allPlayersChosen.isDone());
+	}
+
+	@Test
+	public void test_nobody_waits_for_a_player_that_dropped() throws Exception {
+		startRound();
+		manager1.addGuess("f");
+		manager2.addGuess("f");
+		manager3.addGuess("f");
+
+		CompletableFuture<Void> allPlayersChosen = coordinator.whenAllPlayersChosen();
+		manager1.chooseToContinue();
+		manager2.chooseToContinue();
+		manager3.removeCurrentPlayer();
+
+		assertTrue(allPlayersChosen.isDone());
+	}
+
+	@Test
+	public void test_players_can_join_a_round_that_has_not_ended() throws Exception {
+		startRound();
+		assertTrue(coordinator.whenRoundCanStart().isDone());
+	}
+
+	@Test
+	public void test_next_round_waits_for_the_choices_of_the_ended_round() throws Exception {
+		startRound();
+		manager1.addGuess("f");
+		manager2.addGuess("f");
+		manager3.addGuess("f");
+
+		CompletableFuture<Void> roundCanStart = coordinator.whenRoundCanStart();
+		manager1.chooseToContinue();
+		manager2.chooseToContinue();
+		assertFalse(roundCanStart.isDone());
+
+		manager3.chooseToContinue();
+		assertTrue(roundCanStart.isDone());
+	}
+
+	@Test
+	public void test_next_round_resets_the_choices() throws Exception {
+		assertTrue(coordinator.whenAllPlayersChosen().isDone());
+		startRound();
+		assertFalse(coordinator.whenAllPlayersChosen().isDone());
+	}
+
+
+	/**
+	 * Helper method that signs up 3 players
+	 * @throws Exception
+	 */
+	private void signUp3Players() throws Exception {
+		manager1.setCurrentPlayerName("Player 1");
+		manager2.setCurrentPlayerName("Player 2");
+		manager3.setCurrentPlayerName("Player 3");
+	}
+
+	/**
+	 * Helper method that signs up 3 players and starts the round
+	 * @return
+	 * @throws Exception
+	 */
+	private GameRound startRound() throws Exception {
+		signUp3Players();
+		manager1.setNumDigits(3);
+		manager1.startNextRound();
+		return game.getCurrentRound();
+	}
+}
@@ -0,0 +1,95 @@
+package coretests;
+
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import core.Game;
+import core.SecretCodeGenerator;
+import core.SecretCodePool;
+import core.ShuffleCodeGenerator;
+
+public class SecretCodeGeneratorTests {
+
+	@Test
+	public void test_shuffled_codes_have_no_duplicate_digits() {
+		SecretCodeGenerator generator = new ShuffleCodeGenerator();
+		for (int numDigits = 0; numDigits <= 10; numDigits++) {
+			for (int i = 0; i < 100; i++) {
+				assertValidCode(generator.generate(numDigits), numDigits);
+			}
+		}
+	}
+
+	@Test
+	public void test_every_digit_appears_in_every_position() {
+		Random random = new Random(7);
+		boolean[][] seen = new boolean[Game.MAX_DIGITS][10];
+		for (int i = 0; i < 2000; i++) {
+			String code = ShuffleCodeGenerator.shuffle(Game.MAX_DIGITS, random);
+			for (int p = 0; p < code.length(); p++) {
+				seen[p][code.charAt(p) - '0'] = true;
+			}
+		}
+
+		for (boolean[] position : seen) {
+			for (boolean digit : position) {
+				assertTrue(digit);
+			}
+		}
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void test_more_than_10_digits_is_invalid() {
+		new ShuffleCodeGenerator().generate(11);
+	}
+
+	@Test
+	public void test_pool_is_filled_in_the_background() throws Exception {
+		try (SecretCodePool pool = new SecretCodePool(8)) {
+			for (int numDigits = Game.MIN_DIGITS; numDigits <= Game.MAX_DIGITS; numDigits++) {
+				waitForCodes(pool, numDigits, 8);
+			}
+
+			// codes are still valid when taken faster than the refill
+			Set<String> codes = new HashSet<>();
+			for (int i = 0; i < 50; i++) {
+				String code = pool.generate(4);
+				assertValidCode(code, 4);
+				codes.add(code);
+			}
+			assertTrue(codes.size() > 1);
+
+			// pool is refilled once half empty
+			waitForCodes(pool, 4, 8);
+		}
+	}
+
+	@Test
+	public void test_game_uses_its_generator() {
+		Game game = new Game(numDigits -> "0123456789".substring(0, numDigits));
+		assertEquals("012", game.createSecretCode(3));
+	}
+
+
+	private void waitForCodes(SecretCodePool pool, int numDigits, int count) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (pool.getAvailable(numDigits) < count && System.currentTimeMillis() < deadline) {
+			Thread.sleep(5);
+		}
+		assertEquals(count, pool.getAvailable(numDigits));
+	}
+
+	private void assertValidCode(String code, int numDigits) {
+		assertEquals(numDigits, code.length());
+		Set<Character> digits = new HashSet<>();
+		for (char digit : code.toCharArray()) {
+			assertTrue(digit >= '0' && digit <= '9');
+			assertTrue(digits.add(digit));
+		}
+	}
+}
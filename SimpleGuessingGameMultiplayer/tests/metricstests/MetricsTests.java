@@ -0,0 +1,152 @@
+package metricstests;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import metrics.Counter;
+import metrics.Gauge;
+import metrics.Histogram;
+import metrics.MetricsHttpServer;
+import metrics.MetricsMBean;
+import metrics.MetricsRegistry;
+
+public class MetricsTests {
+
+	MetricsRegistry registry;
+
+	@Before
+	public void setUp() throws Exception {
+		registry = new MetricsRegistry();
+	}
+
+	@Test
+	public void test_histogram_percentiles() {
+		Histogram histogram = new Histogram();
+		for (int i = 1; i <= 1000; i++) {
+			histogram.record(i * 1000);
+		}
+
+		assertEquals(1000, histogram.getCount());
+		assertEquals(1000000, histogram.getMax());
+		assertEquals(500500, histogram.getMean(), 0.01);
+
+		// buckets are accurate to about 6%
+		assertEquals(500000, histogram.getPercentile(0.50), 500000 * 0.07);
+		assertEquals(990000, histogram.getPercentile(0.99), 990000 * 0.07);
+		assertEquals(1000000, histogram.getPercentile(1.0));
+	}
+
+	@Test
+	public void test_histogram_small_values_are_exact() {
+		Histogram histogram = new Histogram();
+		histogram.record(3);
+		histogram.record(7);
+		histogram.record(-5);
+
+		assertEquals(0, histogram.getPercentile(0.1));
+		assertEquals(3, histogram.getPercentile(0.5));
+		assertEquals(7, histogram.getPercentile(0.99));
+	}
+
+	@Test
+	public void test_empty_histogram() {
+		assertEquals(0, new Histogram().getPercentile(0.99));
+	}
+
+	@Test
+	public void test_same_name_returns_same_metric() {
+		Counter counter = registry.counter("guesses_total", "Guesses");
+		counter.increment();
+		registry.counter("guesses_total", "Guesses").add(2);
+
+		assertEquals(3, counter.get());
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void test_same_name_with_other_type_is_rejected() {
+		registry.counter("players", "Players");
+		registry.gauge("players", "Players");
+	}
+
+	@Test
+	public void test_text_format() {
+		registry.counter("b_total", "Counter").add(5);
+		Gauge gauge = registry.gauge("a_active", "Gauge");
+		gauge.increment();
+		gauge.increment();
+		gauge.decrement();
+		registry.gauge("c_supplied", "Supplied", () -> 42);
+		registry.latency("d_seconds", "Latency").record(2_000_000_000L);
+
+		String text = registry.writeText();
+
+		// sorted by name
+		assertTrue(text.startsWith("# HELP a_active Gauge\n# TYPE a_active gauge\na_active 1\n"));
+		assertTrue(text.contains("# TYPE b_total counter\nb_total 5\n"));
+		assertTrue(text.contains("c_supplied 42\n"));
+		assertTrue(text.contains("# TYPE d_seconds summary\n"));
+		assertTrue(text.contains("d_seconds_sum 2.0\n"));
+		assertTrue(text.contains("d_seconds_count 1\n"));
+		assertTrue(text.contains("d_seconds{quantile=\"0.99\"} "));
+	}
+
+	@Test
+	public void test_mbean_attributes() throws Exception {
+		registry.counter("guesses_total", "Guesses").add(7);
+		Histogram latency = registry.latency("guess_seconds", "Latency");
+		latency.record(1000);
+
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName("metricstests:type=Metrics");
+		server.registerMBean(new MetricsMBean(registry), name);
+		try {
+			assertEquals(7L, server.getAttribute(name, "guesses_total"));
+			assertEquals(1000 * 1e-9, (Double) server.getAttribute(name, "guess_seconds"), 1e-12);
+			assertEquals(2, server.getMBeanInfo(name).getAttributes().length);
+		} finally {
+			server.unregisterMBean(name);
+		}
+	}
+
+	@Test
+	public void test_http_endpoint() throws Exception {
+		registry.counter("guesses_total", "Guesses").increment();
+
+		MetricsHttpServer server = new MetricsHttpServer(registry);
+		server.start(0);
+		try {
+			URL url = new URL("http://127.0.0.1:" + server.getPort() + MetricsHttpServer.PATH);
+			HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+
+			assertEquals(200, connection.getResponseCode());
+			assertTrue(connection.getContentType().startsWith("text/plain; version=0.0.4"));
+			assertEquals(registry.writeText(), read(connection.getInputStream()));
+		} finally {
+			server.stop();
+		}
+	}
+
+
+	private String read(InputStream in) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[1024];
+		int length;
+		while ((length = in.read(buffer)) != -1) {
+			out.write(buffer, 0, length);
+		}
+		in.close();
+		return new String(out.toByteArray(), StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,61 @@
+package servertests;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import org.junit.Test;
+
+import client.BinaryResponseDecoder;
+import client.ObjectResponseDecoder;
+import server.AdmissionControl;
+import server.Response;
+import server.ServerOptions;
+
+public class AdmissionControlTests {
+
+	@Test
+	public void test_connections_over_the_limit_are_not_admitted() {
+		AdmissionControl admission = new AdmissionControl(2, 10, 5, ServerOptions.Protocol.BINARY);
+
+		assertTrue(admission.tryAdmit());
+		assertTrue(admission.tryAdmit());
+		assertFalse(admission.tryAdmit());
+		assertEquals(2, admission.getOpen());
+
+		// a client left, the next one gets its slot
+		admission.release();
+		assertTrue(admission.tryAdmit());
+		assertFalse(admission.tryAdmit());
+	}
+
+	@Test
+	public void test_rejection_is_a_quit_with_retry_after() throws Exception {
+		AdmissionControl binary = new AdmissionControl(1, 10, 7, ServerOptions.Protocol.BINARY);
+		Response response = new BinaryResponseDecoder(new ByteArrayInputStream(binary.getRejection())).read();
+		assertEquals(Response.QUIT, response.getType());
+		assertEquals("Server is full, please try again in 7 seconds.", response.getMessage());
+
+		AdmissionControl object = new AdmissionControl(1, 10, 7, ServerOptions.Protocol.OBJECT);
+		response = new ObjectResponseDecoder(new ByteArrayInputStream(object.getRejection())).read();
+		assertEquals(Response.QUIT, response.getType());
+	}
+
+	@Test
+	public void test_rejected_client_is_told_and_disconnected() throws Exception {
+		AdmissionControl admission = new AdmissionControl(1, 10, 5, ServerOptions.Protocol.BINARY);
+
+		try (ServerSocket server = new ServerSocket(0, 10, InetAddress.getLoopbackAddress());
+				Socket client = new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort())) {
+
+			admission.reject(server.accept());
+
+			BinaryResponseDecoder decoder = new BinaryResponseDecoder(client.getInputStream());
+			assertEquals(Response.QUIT, decoder.read().getType());
+			assertEquals(-1, client.getInputStream().read());
+		}
+	}
+}
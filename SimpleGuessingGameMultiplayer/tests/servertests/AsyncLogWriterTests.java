@@ -0,0 +1,103 @@
+package servertests;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import org.junit.Test;
+
+import server.AsyncLogWriter;
+
+public class AsyncLogWriterTests {
+
+	@Test
+	public void test_records_are_written_in_order() throws Exception {
+		AsyncLogWriter writer = new AsyncLogWriter(16, AsyncLogWriter.OverflowPolicy.BLOCK);
+		RecordingHandler target = new RecordingHandler();
+		Handler handler = writer.newHandler(target);
+
+		// more records than the buffer holds, BLOCK waits for the writer
+		for (int i = 0; i < 100; i++) {
+			handler.publish(new LogRecord(Level.INFO, "message " + i));
+		}
+		writer.close();
+
+		assertEquals(100, target.messages.size());
+		for (int i = 0; i < 100; i++) {
+			assertEquals("message " + i, target.messages.get(i));
+		}
+		assertTrue(target.flushes > 0);
+		assertEquals(0, writer.getDropped());
+	}
+
+	@Test
+	public void test_drop_policy_drops_records_when_full() throws Exception {
+		AsyncLogWriter writer = new AsyncLogWriter(4, AsyncLogWriter.OverflowPolicy.DROP);
+		RecordingHandler target = new RecordingHandler();
+		target.blocked = new CountDownLatch(1);
+		Handler handler = writer.newHandler(target);
+
+		for (int i = 0; i < 50; i++) {
+			handler.publish(new LogRecord(Level.INFO, "message " + i));
+		}
+
+		assertTrue(writer.getDropped() > 0);
+
+		// errors are never dropped, they wait until the writer is free again
+		Thread logger = new Thread(() -> handler.publish(new LogRecord(Level.SEVERE, "error")));
+		logger.start();
+		target.blocked.countDown();
+		logger.join();
+		writer.close();
+
+		assertEquals(51, target.messages.size() + writer.getDropped());
+		assertEquals("error", target.messages.get(target.messages.size() - 1));
+	}
+
+	@Test
+	public void test_records_after_close_are_written_directly() {
+		AsyncLogWriter writer = new AsyncLogWriter(4, AsyncLogWriter.OverflowPolicy.BLOCK);
+		RecordingHandler target = new RecordingHandler();
+		Handler handler = writer.newHandler(target);
+		writer.close();
+
+		handler.publish(new LogRecord(Level.INFO, "late"));
+		assertEquals(1, target.messages.size());
+	}
+
+
+	/**
+	 * Keeps the messages. Can block the writer thread until released
+	 */
+	static class RecordingHandler extends Handler {
+		List<String> messages = new ArrayList<>();
+		int flushes = 0;
+		CountDownLatch blocked;
+
+		@Override
+		public void publish(LogRecord record) {
+			if (blocked != null) {
+				try {
+					blocked.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			messages.add(record.getMessage());
+		}
+
+		@Override
+		public void flush() {
+			flushes++;
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+}
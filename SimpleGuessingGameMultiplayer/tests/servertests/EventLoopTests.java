@@ -0,0 +1,85 @@
+package servertests;
+
+import static org.junit.Assert.*;
+
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import server.EventLoop;
+import server.NioConnection;
+import server.OutboundBuffer;
+
+public class EventLoopTests {
+
+	@Test
+	public void test_failing_session_only_closes_its_own_connection() throws Exception {
+		EventLoop loop = new EventLoop("test-loop");
+		loop.start();
+
+		BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+
+		try (ServerSocketChannel server = ServerSocketChannel.open()) {
+			server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+
+			try (Socket failing = new Socket(InetAddress.getLoopbackAddress(), server.socket().getLocalPort());
+					Socket healthy = new Socket(InetAddress.getLoopbackAddress(), server.socket().getLocalPort())) {
+
+				register(server.accept(), loop, new LineHandler() {
+					@Override
+					public void onLine(String line) {
+						throw new IllegalStateException("Bug in the session");
+					}
+				});
+				register(server.accept(), loop, new LineHandler() {
+					@Override
+					public void onLine(String line) {
+						lines.add(line);
+					}
+				});
+
+				send(failing, "boom");
+				failing.setSoTimeout(5000);
+				assertEquals(-1, failing.getInputStream().read());
+
+				// the loop is still running
+				send(healthy, "hello");
+				assertEquals("hello", lines.poll(5, TimeUnit.SECONDS));
+			}
+		} finally {
+			loop.shutdown();
+		}
+	}
+
+
+	/**
+	 * Helper method that hands the accepted channel over to the loop
+	 */
+	private void register(SocketChannel channel, EventLoop loop, NioConnection.Handler handler) throws Exception {
+		channel.configureBlocking(false);
+		NioConnection connection = new NioConnection(channel, loop, new OutboundBuffer(1024, OutboundBuffer.SlowConsumerPolicy.DISCONNECT));
+		connection.setHandler(handler);
+		loop.register(connection);
+	}
+
+	private void send(Socket socket, String line) throws Exception {
+		OutputStream out = socket.getOutputStream();
+		out.write((line + "\n").getBytes("UTF-8"));
+		out.flush();
+	}
+
+
+	private abstract static class LineHandler implements NioConnection.Handler {
+		@Override
+		public void onClosed() {
+		}
+	}
+}
@@ -0,0 +1,154 @@
+package servertests;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Test;
+
+import core.Game;
+import core.GameCallbackImpl;
+import server.GameSession;
+import server.GameSession.State;
+import server.Matchmaker;
+import server.ParkedSessions;
+import server.RoomManager;
+import server.ServerDrain;
+import server.SessionTimeouts;
+import server.TimerWheel;
+import servertests.SessionFixtures.FakeDriver;
+import servertests.SessionFixtures.NoOpServerCallback;
+
+public class GameSessionTests {
+
+	private static final String SECRET_CODE = "123";
+
+	private TimerWheel wheel = new TimerWheel(10, 8);
+	private SessionTimeouts timeouts = new SessionTimeouts(wheel, 0, 0);
+	private ParkedSessions parked = new ParkedSessions(wheel, 0);
+	private Matchmaker matchmaker = new Matchmaker(new RoomManager(Game.MAX_PLAYERS, numDigits -> SECRET_CODE), wheel, 30);
+	private ServerDrain drain = new ServerDrain(parked, 1);
+
+	@After
+	public void tearDown() {
+		wheel.close();
+	}
+
+	@Test
+	public void test_name_is_asked_again_until_valid() throws Exception {
+		FakeDriver driver = new FakeDriver();
+		GameSession session = newSession(driver);
+		session.begin();
+		assertEquals(State.ENTER_NAME, session.getState());
+		assertTrue(driver.sent().contains("Enter your name: "));
+
+		session.onLine("   ");
+		assertEquals(State.ENTER_NAME, session.getState());
+		assertTrue(driver.sent().contains("ERROR: Please enter non empty input."));
+
+		StringBuilder longName = new StringBuilder();
+		for (int i = 0; i <= GameSession.MAX_NAME_LENGTH; i++) {
+			longName.append('a');
+		}
+		session.onLine(longName.toString());
+		assertEquals(State.ENTER_NAME, session.getState());
+		assertTrue(driver.sent().contains("at most " + GameSession.MAX_NAME_LENGTH + " characters"));
+
+		session.onLine("alice");
+		assertEquals(State.ENTER_DIGITS, session.getState());
+		assertTrue(driver.sent().contains("Enter number of digits: "));
+	}
+
+	@Test
+	public void test_digits_are_asked_again_until_valid() throws Exception {
+		FakeDriver driver = new FakeDriver();
+		GameSession session = newSession(driver);
+		session.begin();
+		session.onLine("alice");
+
+		session.onLine("three");
+		assertEquals(State.ENTER_DIGITS, session.getState());
+		assertTrue(driver.sent().contains("ERROR: three is not a valid number"));
+
+		session.onLine(String.valueOf(Game.MAX_DIGITS + 1));
+		assertEquals(State.ENTER_DIGITS, session.getState());
+		assertTrue(driver.sent().contains("ERROR: Number of digits must be"));
+
+		// first of its group, waits for the others
+		session.onLine("3");
+		assertEquals(State.WAIT_FOR_MATCH, session.getState());
+		assertTrue(driver.sent().contains("Looking for players that want 3 digits..."));
+	}
+
+	@Test
+	public void test_round_is_played_until_players_continue_or_quit() throws Exception {
+		FakeDriver aliceDriver = new FakeDriver();
+		FakeDriver bobDriver = new FakeDriver();
+		FakeDriver carolDriver = new FakeDriver();
+		GameSession alice = signUp(aliceDriver, "alice");
+		GameSession bob = signUp(bobDriver, "bob");
+		assertEquals(State.WAIT_FOR_MATCH, alice.getState());
+
+		// the 3rd player completes the group, the round starts for everyone
+		GameSession carol = signUp(carolDriver, "carol");
+		assertEquals(State.ENTER_GUESS, alice.getState());
+		assertEquals(State.ENTER_GUESS, bob.getState());
+		assertEquals(State.ENTER_GUESS, carol.getState());
+		assertSame(alice.getRoom(), carol.getRoom());
+
+		// a wrong guess asks for the next one
+		alice.onLine("456");
+		assertEquals(State.ENTER_GUESS, alice.getState());
+		assertEquals(1, alice.getGameManager().getCurrentPlayer().getNumGuesses());
+
+		// the right one waits for the others
+		alice.onLine(SECRET_CODE);
+		assertEquals(State.WAIT_FOR_ROUND_END, alice.getState());
+		assertTrue(aliceDriver.sent().contains("Wait for other players to finish..."));
+
+		bob.onLine("f");
+		assertEquals(State.WAIT_FOR_ROUND_END, bob.getState());
+		assertEquals(State.WAIT_FOR_ROUND_END, alice.getState());
+
+		// the last player ends the round, everyone is asked to continue
+		carol.onLine("f");
+		assertEquals(State.CONTINUE_OR_QUIT, alice.getState());
+		assertEquals(State.CONTINUE_OR_QUIT, bob.getState());
+		assertEquals(State.CONTINUE_OR_QUIT, carol.getState());
+		assertTrue(bobDriver.sent().contains("Press (p) to continue to play, or (q) to quit: "));
+
+		alice.onLine("maybe");
+		assertEquals(State.CONTINUE_OR_QUIT, alice.getState());
+		assertTrue(aliceDriver.sent().contains("ERROR: Please enter 'p' or 'q'."));
+
+		// the others still have to choose
+		alice.onLine("p");
+		assertEquals(State.WAIT_FOR_NEXT_ROUND, alice.getState());
+
+		bob.onLine("q");
+		assertTrue(bobDriver.isClosed());
+		bob.onClosed();
+		assertEquals(State.CLOSED, bob.getState());
+
+		// the last player to choose starts the next round
+		carol.onLine("p");
+		assertEquals(State.ENTER_GUESS, alice.getState());
+		assertEquals(State.ENTER_GUESS, carol.getState());
+		assertEquals(2, alice.getRoom().getNumSeatsTaken());
+	}
+
+
+	/**
+	 * Helper method that signs up a player that wants 3 digits
+	 */
+	private GameSession signUp(FakeDriver driver, String name) {
+		GameSession session = newSession(driver);
+		session.begin();
+		session.onLine(name);
+		session.onLine("3");
+		return session;
+	}
+
+	private GameSession newSession(FakeDriver driver) {
+		return new GameSession(driver, new NoOpServerCallback(), new GameCallbackImpl(driver.getEncoder()), timeouts, parked, matchmaker, drain);
+	}
+}
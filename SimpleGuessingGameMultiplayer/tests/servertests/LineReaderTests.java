@@ -0,0 +1,58 @@
+package servertests;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import server.LineReader;
+import server.NioConnection;
+
+public class LineReaderTests {
+
+	@Test
+	public void test_lines_are_split_without_carriage_return() throws Exception {
+		LineReader reader = new LineReader(new ByteArrayInputStream("alice\r\n3\n\n".getBytes()));
+
+		assertEquals("alice", reader.readLine());
+		assertEquals("3", reader.readLine());
+		assertEquals("", reader.readLine());
+		assertNull(reader.readLine());
+	}
+
+	@Test
+	public void test_line_split_over_several_reads() throws Exception {
+		// the client sends 1 byte at a time
+		InputStream in = new ByteArrayInputStream("1234\nf\n".getBytes()) {
+			@Override
+			public synchronized int read(byte[] b, int off, int len) {
+				return super.read(b, off, Math.min(len, 1));
+			}
+		};
+
+		LineReader reader = new LineReader(in);
+		assertEquals("1234", reader.readLine());
+		assertEquals("f", reader.readLine());
+		assertNull(reader.readLine());
+	}
+
+	@Test
+	public void test_unfinished_line_is_dropped_on_disconnect() throws Exception {
+		LineReader reader = new LineReader(new ByteArrayInputStream("bob\n12".getBytes()));
+
+		assertEquals("bob", reader.readLine());
+		assertNull(reader.readLine());
+	}
+
+	@Test(expected = IOException.class)
+	public void test_line_too_long() throws Exception {
+		byte[] bytes = new byte[NioConnection.MAX_LINE_LENGTH + 1];
+		Arrays.fill(bytes, (byte) 'a');
+
+		new LineReader(new ByteArrayInputStream(bytes)).readLine();
+	}
+}
@@ -0,0 +1,93 @@
+package servertests;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import server.LogRingBuffer;
+
+public class LogRingBufferTests {
+
+	@Test
+	public void test_capacity_is_rounded_to_power_of_two() {
+		assertEquals(1, new LogRingBuffer<String>(1).capacity());
+		assertEquals(8, new LogRingBuffer<String>(8).capacity());
+		assertEquals(16, new LogRingBuffer<String>(9).capacity());
+	}
+
+	@Test
+	public void test_elements_are_taken_in_order() {
+		LogRingBuffer<Integer> buffer = new LogRingBuffer<>(4);
+
+		// more than 1 lap around the buffer
+		for (int i = 0; i < 10; i++) {
+			assertTrue(buffer.offer(i));
+			assertEquals(1, buffer.size());
+			assertEquals(Integer.valueOf(i), buffer.poll());
+		}
+		assertNull(buffer.poll());
+		assertTrue(buffer.isEmpty());
+	}
+
+	@Test
+	public void test_full_buffer_rejects_elements() {
+		LogRingBuffer<String> buffer = new LogRingBuffer<>(2);
+		assertTrue(buffer.offer("a"));
+		assertTrue(buffer.offer("b"));
+		assertFalse(buffer.offer("c"));
+
+		assertEquals("a", buffer.poll());
+		assertTrue(buffer.offer("c"));
+		assertEquals("b", buffer.poll());
+		assertEquals("c", buffer.poll());
+	}
+
+	@Test
+	public void test_no_elements_are_lost_with_many_producers() throws Exception {
+		LogRingBuffer<Integer> buffer = new LogRingBuffer<>(64);
+		int numProducers = 4;
+		int perProducer = 20000;
+
+		List<Thread> producers = new ArrayList<>();
+		for (int p = 0; p < numProducers; p++) {
+			int first = p * perProducer;
+			Thread producer = new Thread(() -> {
+				for (int i = first; i < first + perProducer; i++) {
+					while (! buffer.offer(i)) {
+						Thread.yield();
+					}
+				}
+			});
+			producers.add(producer);
+			producer.start();
+		}
+
+		// each producer's elements must arrive in the order they were added
+		int[] last = new int[numProducers];
+		for (int p = 0; p < numProducers; p++) {
+			last[p] = p * perProducer - 1;
+		}
+
+		int received = 0;
+		while (received < numProducers * perProducer) {
+			Integer value = buffer.poll();
+			if (value == null) {
+				Thread.yield();
+				continue;
+			}
+
+			int p = value / perProducer;
+			assertEquals(last[p] + 1, value.intValue());
+			last[p] = value;
+			received++;
+		}
+
+		for (Thread producer : producers) {
+			producer.join();
+		}
+		assertNull(buffer.poll());
+	}
+}
@@ -0,0 +1,117 @@
+package servertests;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import core.Game;
+import server.Matchmaker;
+import server.Room;
+import server.RoomManager;
+import server.TimerWheel;
+
+public class MatchmakerTests {
+
+	private TimerWheel wheel = new TimerWheel(10, 8);
+	private RoomManager rooms = new RoomManager();
+
+	@After
+	public void tearDown() {
+		wheel.close();
+	}
+
+	@Test
+	public void test_room_is_formed_when_enough_players_are_queued() {
+		Matchmaker matchmaker = new Matchmaker(rooms, wheel, 30);
+
+		Matchmaker.Ticket first = matchmaker.enqueue(3);
+		Matchmaker.Ticket second = matchmaker.enqueue(3);
+		assertFalse(first.getFuture().isDone());
+		assertNull(first.getRoom());
+		assertEquals(2, matchmaker.getQueued());
+
+		Matchmaker.Ticket third = matchmaker.enqueue(3);
+		assertTrue(first.getFuture().isDone());
+		assertTrue(second.getFuture().isDone());
+		assertTrue(third.getFuture().isDone());
+		assertEquals(0, matchmaker.getQueued());
+
+		Room room = third.getRoom();
+		assertSame(room, first.getRoom());
+		assertSame(room, second.getRoom());
+		assertEquals(Game.MIN_PLAYERS, third.getGroupSize());
+		assertEquals(Game.MIN_PLAYERS, room.getNumSeatsTaken());
+		assertEquals(3, room.getGame().getNumDigits());
+	}
+
+	@Test
+	public void test_players_are_queued_by_digits() {
+		Matchmaker matchmaker = new Matchmaker(rooms, wheel, 30);
+
+		for (int i = 0; i < Game.MIN_PLAYERS - 1; i++) {
+			assertFalse(matchmaker.enqueue(3).getFuture().isDone());
+			assertFalse(matchmaker.enqueue(4).getFuture().isDone());
+		}
+		assertEquals(2 * (Game.MIN_PLAYERS - 1), matchmaker.getQueued());
+		assertTrue(rooms.getRooms().isEmpty());
+	}
+
+	@Test
+	public void test_player_joins_room_with_free_seat() {
+		Matchmaker matchmaker = new Matchmaker(rooms, wheel, 30);
+
+		Matchmaker.Ticket ticket = null;
+		for (int i = 0; i < Game.MIN_PLAYERS; i++) {
+			ticket = matchmaker.enqueue(4);
+		}
+		Room room = ticket.getRoom();
+
+		// the room is already playing, no need to wait for others
+		Matchmaker.Ticket late = matchmaker.enqueue(4);
+		assertTrue(late.getFuture().isDone());
+		assertSame(room, late.getRoom());
+		assertEquals(1, late.getGroupSize());
+		assertEquals(Game.MIN_PLAYERS + 1, room.getNumSeatsTaken());
+
+		// other number of digits, other room
+		assertFalse(matchmaker.enqueue(5).getFuture().isDone());
+	}
+
+	@Test
+	public void test_fallback_merges_players_after_wait() throws Exception {
+		Matchmaker matchmaker = new Matchmaker(rooms, wheel, 0);
+
+		Matchmaker.Ticket first = matchmaker.enqueue(5);
+		Matchmaker.Ticket second = matchmaker.enqueue(3);
+
+		first.getFuture().get(2, TimeUnit.SECONDS);
+		second.getFuture().get(2, TimeUnit.SECONDS);
+
+		// the oldest player decides the number of digits
+		assertSame(first.getRoom(), second.getRoom());
+		assertEquals(5, first.getRoom().getGame().getNumDigits());
+		assertEquals(2, second.getGroupSize());
+		assertEquals(0, matchmaker.getQueued());
+	}
+
+	@Test
+	public void test_cancelled_player_is_not_matched() {
+		Matchmaker matchmaker = new Matchmaker(rooms, wheel, 30);
+
+		Matchmaker.Ticket gone = matchmaker.enqueue(3);
+		assertNull(matchmaker.cancel(gone));
+		assertEquals(0, matchmaker.getQueued());
+
+		matchmaker.enqueue(3);
+		Matchmaker.Ticket second = matchmaker.enqueue(3);
+		assertFalse(second.getFuture().isDone());
+		assertFalse(gone.getFuture().isDone());
+
+		// already matched, the seat must be given back by the caller
+		Matchmaker.Ticket third = matchmaker.enqueue(3);
+		assertSame(third.getRoom(), matchmaker.cancel(third));
+	}
+}
@@ -0,0 +1,65 @@
+package servertests;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import server.AdmissionControl;
+import server.MultiPlayerServer;
+import server.RoomManager;
+import server.ServerOptions;
+
+public class MultiPlayerServerTests {
+
+	@Test
+	public void test_connections_are_set_up_off_the_acceptors() throws Exception {
+		AdmissionControl admission = new AdmissionControl(100, 50, 5, ServerOptions.Protocol.BINARY);
+		MultiPlayerServer server = new MultiPlayerServer(0, new RoomManager(), admission);
+		server.start();
+		int port = server.getServerSocket().getLocalPort();
+
+		int numClients = 20;
+		CountDownLatch opened = new CountDownLatch(numClients);
+		Set<String> threads = ConcurrentHashMap.newKeySet();
+
+		Thread acceptLoop = new Thread(() -> {
+			try {
+				server.acceptLoop(3, socket -> {
+					threads.add(Thread.currentThread().getName());
+					opened.countDown();
+
+					// the connection is closed and its slot given back
+					throw new IOException("Not a real client");
+				});
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		acceptLoop.start();
+
+		for (int i = 0; i < numClients; i++) {
+			try (Socket client = new Socket(InetAddress.getLoopbackAddress(), port)) {
+				assertEquals(-1, client.getInputStream().read());
+			}
+		}
+
+		assertTrue(opened.await(5, TimeUnit.SECONDS));
+		for (String thread : threads) {
+			assertFalse(thread.startsWith("acceptor-"));
+		}
+
+		// all acceptors stop once the server is closed
+		server.close();
+		acceptLoop.join(5000);
+		assertFalse(acceptLoop.isAlive());
+		assertEquals(0, admission.getOpen());
+	}
+}
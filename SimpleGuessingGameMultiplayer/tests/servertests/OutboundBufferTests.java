@@ -0,0 +1,179 @@
+package servertests;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import server.OutboundBuffer;
+import server.QueuedSocketOutputStream;
+import server.SessionExecutors;
+
+public class OutboundBufferTests {
+
+	private ExecutorService writers = SessionExecutors.newTaskExecutor("test-writer");
+
+	@After
+	public void tearDown() {
+		writers.shutdown();
+	}
+
+	@Test
+	public void test_batches_are_sent_in_order() {
+		OutboundBuffer buffer = new OutboundBuffer(100, OutboundBuffer.SlowConsumerPolicy.DISCONNECT);
+		assertTrue(buffer.add("hello ".getBytes(), 0, 6));
+		assertTrue(buffer.add("xworldx".getBytes(), 1, 5));
+		assertEquals(11, buffer.size());
+
+		// the socket only accepts part of the first batch
+		ByteBuffer first = buffer.peek();
+		first.position(first.position() + 4);
+		buffer.sent(4);
+		assertSame(first, buffer.peek());
+		assertEquals(7, buffer.size());
+
+		first.position(first.limit());
+		buffer.sent(2);
+		ByteBuffer second = buffer.peek();
+		assertEquals("world", new String(second.array(), second.position(), second.remaining()));
+
+		second.position(second.limit());
+		buffer.sent(5);
+		assertNull(buffer.peek());
+		assertTrue(buffer.isEmpty());
+	}
+
+	@Test
+	public void test_disconnect_policy_above_high_watermark() {
+		OutboundBuffer buffer = new OutboundBuffer(10, OutboundBuffer.SlowConsumerPolicy.DISCONNECT);
+		assertTrue(buffer.add(new byte[10], 0, 10));
+		assertFalse(buffer.isSlow());
+
+		assertFalse(buffer.add(new byte[1], 0, 1));
+		assertTrue(buffer.isSlow());
+	}
+
+	@Test
+	public void test_drop_policy_drops_until_low_watermark() {
+		OutboundBuffer buffer = new OutboundBuffer(4, 10, OutboundBuffer.SlowConsumerPolicy.DROP);
+
+		// the batch that goes above the high watermark is kept, the next ones are dropped
+		assertTrue(buffer.add(new byte[8], 0, 8));
+		assertTrue(buffer.add(new byte[8], 0, 8));
+		assertTrue(buffer.isSlow());
+		assertTrue(buffer.add(new byte[8], 0, 8));
+		assertEquals(16, buffer.size());
+
+		// client reads the first batch, still above the low watermark
+		buffer.peek().position(8);
+		buffer.sent(8);
+		assertTrue(buffer.isSlow());
+
+		buffer.peek().position(8);
+		buffer.sent(8);
+		assertFalse(buffer.isSlow());
+
+		assertTrue(buffer.add(new byte[3], 0, 3));
+		assertEquals(3, buffer.size());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void test_low_watermark_above_high_watermark() {
+		new OutboundBuffer(20, 10, OutboundBuffer.SlowConsumerPolicy.DROP);
+	}
+
+	@Test
+	public void test_queued_stream_sends_in_background() throws Exception {
+		ByteArrayOutputStream socket = new ByteArrayOutputStream();
+		OutboundBuffer buffer = new OutboundBuffer(1024, OutboundBuffer.SlowConsumerPolicy.DISCONNECT);
+		QueuedSocketOutputStream stream = new QueuedSocketOutputStream(socket, buffer, writers);
+
+		stream.write("Enter your guess: ".getBytes());
+		stream.write("Time is up".getBytes());
+		stream.close();
+
+		assertEquals("Enter your guess: Time is up", socket.toString());
+		assertTrue(buffer.isEmpty());
+	}
+
+	@Test
+	public void test_clients_do_not_hold_a_thread_each() throws Exception {
+		int numClients = 200;
+		int threadsBefore = Thread.getAllStackTraces().size();
+
+		ByteArrayOutputStream[] sockets = new ByteArrayOutputStream[numClients];
+		QueuedSocketOutputStream[] streams = new QueuedSocketOutputStream[numClients];
+		for (int i = 0; i < numClients; i++) {
+			sockets[i] = new ByteArrayOutputStream();
+			streams[i] = new QueuedSocketOutputStream(sockets[i], new OutboundBuffer(1024, OutboundBuffer.SlowConsumerPolicy.DISCONNECT), writers);
+		}
+
+		// idle clients cost no thread at all
+		assertTrue(Thread.getAllStackTraces().size() <= threadsBefore);
+
+		for (QueuedSocketOutputStream stream : streams) {
+			stream.write("Enter your guess: ".getBytes());
+			long deadline = System.currentTimeMillis() + 2000;
+			while (stream.getPendingBytes() > 0 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(1);
+			}
+		}
+
+		// the writer tasks share a few threads
+		assertTrue(Thread.getAllStackTraces().size() - threadsBefore < numClients / 10);
+
+		for (int i = 0; i < numClients; i++) {
+			streams[i].close();
+			assertEquals("Enter your guess: ", sockets[i].toString());
+		}
+	}
+
+	@Test
+	public void test_queued_stream_never_blocks_on_slow_client() throws Exception {
+		// client that stopped reading, the writer thread is stuck in the first write
+		CountDownLatch stuck = new CountDownLatch(1);
+		CountDownLatch closed = new CountDownLatch(1);
+		OutputStream socket = new OutputStream() {
+			@Override
+			public void write(int b) throws IOException {
+				stuck.countDown();
+				try {
+					closed.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				throw new IOException("Socket closed");
+			}
+
+			@Override
+			public void close() {
+				closed.countDown();
+			}
+		};
+
+		OutboundBuffer buffer = new OutboundBuffer(100, OutboundBuffer.SlowConsumerPolicy.DISCONNECT);
+		QueuedSocketOutputStream stream = new QueuedSocketOutputStream(socket, buffer, writers);
+
+		stream.write(new byte[60]);
+		assertTrue(stuck.await(2, TimeUnit.SECONDS));
+		stream.write(new byte[30]);
+
+		try {
+			stream.write(new byte[30]);
+			fail("Slow client should have been reported");
+		} catch (IOException e) {
+			// the session closes the connection
+		}
+
+		stream.close();
+		assertEquals(0, buffer.size());
+	}
+}
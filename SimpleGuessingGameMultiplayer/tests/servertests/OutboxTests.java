@@ -0,0 +1,92 @@
+package servertests;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import server.*;
+
+public class OutboxTests {
+
+	CountingOutputStream socket;
+	Outbox outbox;
+
+	@Before
+	public void setUp() throws Exception {
+		socket = new CountingOutputStream();
+		outbox = new Outbox(socket);
+	}
+
+	@Test
+	public void test_nothing_is_sent_before_flush() throws Exception {
+		ResponseEncoder encoder = new BinaryResponseEncoder(outbox);
+		encoder.write(Response.message("Hello"));
+		encoder.writeScore(new Score(1, 2));
+
+		assertEquals(0, socket.writes);
+		assertEquals(0, socket.size());
+		assertTrue(outbox.size() > 0);
+	}
+
+	@Test
+	public void test_responses_of_an_event_are_sent_with_one_write() throws Exception {
+		ResponseEncoder encoder = new ObjectResponseEncoder(outbox);
+		encoder.write(Response.message("Your guess: 1234"));
+		encoder.writeScore(new Score(2, 1));
+		encoder.write(Response.readLine("Enter your guess: "));
+		encoder.flush();
+
+		assertEquals(1, socket.writes);
+		assertEquals(0, outbox.size());
+	}
+
+	@Test
+	public void test_buffer_grows_for_large_events() throws Exception {
+		byte[] data = new byte[Outbox.INITIAL_CAPACITY * 3];
+		data[data.length - 1] = 7;
+		outbox.write(1);
+		outbox.write(data);
+		outbox.flush();
+
+		assertEquals(data.length + 1, socket.size());
+		assertEquals(7, socket.toByteArray()[data.length]);
+		assertEquals(1, socket.writes);
+	}
+
+	@Test
+	public void test_close_sends_the_rest() throws Exception {
+		outbox.write(new byte[] { 1, 2, 3 });
+		outbox.close();
+		assertEquals(3, socket.size());
+	}
+
+	@Test(expected=IOException.class)
+	public void test_write_after_close_fails() throws Exception {
+		outbox.close();
+		outbox.write(1);
+	}
+
+
+	/**
+	 * Counts the writes, like the number of writes to a socket
+	 */
+	static class CountingOutputStream extends ByteArrayOutputStream {
+		int writes = 0;
+
+		@Override
+		public synchronized void write(int b) {
+			writes++;
+			super.write(b);
+		}
+
+		@Override
+		public synchronized void write(byte[] b, int off, int len) {
+			writes++;
+			super.write(b, off, len);
+		}
+	}
+}
@@ -0,0 +1,131 @@
+package servertests;
+
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Test;
+
+import core.GameCallbackImpl;
+import server.GameSession;
+import server.Matchmaker;
+import server.ParkedSessions;
+import server.Room;
+import server.RoomManager;
+import server.ServerDrain;
+import server.SessionTimeouts;
+import server.TimerWheel;
+import servertests.SessionFixtures.FakeDriver;
+import servertests.SessionFixtures.NoOpServerCallback;
+
+public class ParkedSessionsTests {
+
+	private TimerWheel wheel = new TimerWheel(10, 8);
+	private SessionTimeouts timeouts = new SessionTimeouts(wheel, 0, 0);
+	private RoomManager rooms = new RoomManager();
+	private Matchmaker matchmaker = new Matchmaker(rooms, wheel, 30);
+	private ServerDrain drain = new ServerDrain(new ParkedSessions(wheel, 0), 1);
+
+	@After
+	public void tearDown() {
+		wheel.close();
+	}
+
+	@Test
+	public void test_tokens_are_unique() {
+		ParkedSessions parked = new ParkedSessions(wheel, 30);
+		Set<String> tokens = new HashSet<>();
+
+		for (int i = 0; i < 1000; i++) {
+			String token = parked.newToken();
+			assertTrue(token.matches("[A-Za-z0-9_-]{24}"));
+			tokens.add(token);
+		}
+		assertEquals(1000, tokens.size());
+	}
+
+	@Test
+	public void test_unknown_token_cannot_be_resumed() {
+		ParkedSessions parked = new ParkedSessions(wheel, 30);
+		assertNull(parked.resume("nope"));
+		assertTrue(parked.isEnabled());
+		assertFalse(new ParkedSessions(wheel, 0).isEnabled());
+	}
+
+	@Test
+	public void test_dropped_player_resumes_same_seat() throws Exception {
+		ParkedSessions parked = new ParkedSessions(wheel, 30);
+
+		FakeDriver first = new FakeDriver();
+		GameSession session = signUp(first, "alice", parked);
+		signUp(new FakeDriver(), "bob", parked);
+		signUp(new FakeDriver(), "carol", parked);
+		Room room = session.getRoom();
+		assertNotNull(session.getToken());
+		assertEquals(GameSession.State.ENTER_GUESS, session.getState());
+
+		// connection drops, the player keeps its seat
+		first.close();
+		session.onClosed();
+		assertEquals(1, parked.size());
+		assertEquals(3, room.getNumSeatsTaken());
+		assertEquals(3, room.getGame().getNumPlayers());
+
+		FakeDriver second = new FakeDriver();
+		GameSession resumed = new GameSession(second, new NoOpServerCallback(), new GameCallbackImpl(second.getEncoder()), timeouts, parked, matchmaker, drain);
+		resumed.begin();
+		resumed.onLine(ParkedSessions.RESUME_COMMAND + " " + session.getToken());
+
+		assertEquals(0, parked.size());
+		assertSame(room, resumed.getRoom());
+		assertEquals(3, room.getNumSeatsTaken());
+		assertTrue(room.getMembers().contains(resumed));
+		assertFalse(room.getMembers().contains(session));
+		assertEquals("alice", resumed.getGameManager().getCurrentPlayer().getName());
+		assertEquals(GameSession.State.ENTER_GUESS, resumed.getState());
+		assertTrue(second.sent().contains("Welcome back alice!"));
+
+		// token can only be used once
+		assertNull(parked.resume(session.getToken()));
+	}
+
+	@Test
+	public void test_parked_player_is_removed_after_grace_period() throws Exception {
+		ParkedSessions parked = new ParkedSessions(wheel, 1);
+
+		FakeDriver driver = new FakeDriver();
+		GameSession session = signUp(driver, "bob", parked);
+		signUp(new FakeDriver(), "alice", parked);
+		signUp(new FakeDriver(), "carol", parked);
+		Room room = session.getRoom();
+
+		driver.close();
+		session.onClosed();
+		assertEquals(3, room.getGame().getNumPlayers());
+
+		// the session leaves the game on the timer thread, right after it is taken out of the map
+		long deadline = System.currentTimeMillis() + 3000;
+		while ((parked.size() > 0 || room.getNumSeatsTaken() > 2) && System.currentTimeMillis() < deadline) {
+			Thread.sleep(20);
+		}
+
+		assertEquals(0, parked.size());
+		assertEquals(2, room.getGame().getNumPlayers());
+		assertEquals(2, room.getNumSeatsTaken());
+		assertFalse(room.isClosed());
+	}
+
+
+	/**
+	 * Helper method that signs up a player that wants 3 digits. The 3rd player completes the room
+	 */
+	private GameSession signUp(FakeDriver driver, String name, ParkedSessions parked) {
+		GameSession session = new GameSession(driver, new NoOpServerCallback(), new GameCallbackImpl(driver.getEncoder()), timeouts, parked, matchmaker, drain);
+		session.begin();
+		session.onLine(name);
+		session.onLine("3");
+		return session;
+	}
+}
@@ -0,0 +1,198 @@
+package servertests;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import client.BinaryResponseDecoder;
+import client.ObjectResponseDecoder;
+import client.ResponseDecoder;
+import server.*;
+
+public class ResponseCodecTests {
+
+	ByteArrayOutputStream out;
+	RoundSummary summary;
+
+	@Before
+	public void setUp() throws Exception {
+		out = new ByteArrayOutputStream();
+		summary = new RoundSummary(
+			Arrays.asList(new RoundSummary.Winner("Player 1", 4), new RoundSummary.Winner("Pl\u0103yer 2", 10)),
+			Arrays.asList("Player 3"),
+			Collections.<String>emptyList()
+		);
+	}
+
+	@Test
+	public void test_client_detects_binary_protocol() throws Exception {
+		new BinaryResponseEncoder(out);
+		assertTrue(decoder() instanceof BinaryResponseDecoder);
+	}
+
+	@Test
+	public void test_client_detects_object_protocol() throws Exception {
+		new ObjectResponseEncoder(out).flush();
+		assertTrue(decoder() instanceof ObjectResponseDecoder);
+	}
+
+	@Test
+	public void test_binary_messages_are_decoded() throws Exception {
+		ResponseEncoder encoder = new BinaryResponseEncoder(out);
+		encoder.write(Response.message("Hello"));
+		encoder.write(Response.readLine("Enter your guess: "));
+		encoder.write(Response.quit(""));
+
+		ResponseDecoder decoder = decoder();
+		assertResponse(decoder.read(), "Hello", Response.PRINTMESSAGE);
+		assertResponse(decoder.read(), "Enter your guess: ", Response.READLINE);
+		assertResponse(decoder.read(), "", Response.QUIT);
+	}
+
+	@Test
+	public void test_binary_score_and_summary_print_same_text_as_object_protocol() throws Exception {
+		ResponseEncoder encoder = new BinaryResponseEncoder(out);
+		encoder.writeScore(new Score(1, 2));
+		encoder.writeRoundSummary(summary);
+
+		ResponseDecoder decoder = decoder();
+		assertResponse(decoder.read(), new Score(1, 2).toString(), Response.PRINTMESSAGE);
+		assertResponse(decoder.read(), summary.toString(), Response.PRINTMESSAGE);
+	}
+
+	@Test
+	public void test_object_score_and_summary_are_sent_as_messages() throws Exception {
+		ResponseEncoder encoder = new ObjectResponseEncoder(out);
+		encoder.writeScore(new Score(3, 0));
+		encoder.writeRoundSummary(summary);
+		encoder.flush();
+
+		ResponseDecoder decoder = decoder();
+		assertResponse(decoder.read(), new Score(3, 0).toString(), Response.PRINTMESSAGE);
+		assertResponse(decoder.read(), summary.toString(), Response.PRINTMESSAGE);
+	}
+
+	@Test
+	public void test_binary_message_is_smaller_than_serialized_response() throws Exception {
+		new BinaryResponseEncoder(out).write(Response.readLine("Enter your guess: "));
+		int binarySize = out.size();
+
+		ByteArrayOutputStream objectOut = new ByteArrayOutputStream();
+		ResponseEncoder encoder = new ObjectResponseEncoder(objectOut);
+		encoder.write(Response.readLine("Enter your guess: "));
+		encoder.flush();
+
+		assertTrue(binarySize < objectOut.size() / 2);
+	}
+
+	@Test
+	public void test_shared_message_between_other_messages_binary() throws Exception {
+		assertSharedMessageIsDecoded(new BinaryResponseEncoder(out));
+	}
+
+	@Test
+	public void test_shared_message_between_other_messages_object() throws Exception {
+		assertSharedMessageIsDecoded(new ObjectResponseEncoder(out));
+	}
+
+	@Test
+	public void test_shared_message_is_encoded_once() throws Exception {
+		SharedMessage message = SharedMessage.of(summary);
+		byte[] bytes = message.getBytes(ServerOptions.Protocol.OBJECT);
+
+		assertSame(bytes, message.getBytes(ServerOptions.Protocol.OBJECT));
+		assertNotSame(bytes, message.getBytes(ServerOptions.Protocol.BINARY));
+	}
+
+	@Test
+	public void test_long_text_is_cut_on_a_character_boundary() throws Exception {
+		// 2 bytes per character, the frame ends in the middle of one
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < BinaryProtocol.MAX_FRAME_LENGTH; i++) {
+			text.append('\u0103');
+		}
+		new BinaryResponseEncoder(out).write(Response.message(text.toString()));
+
+		Response response = decoder().read();
+		assertEquals(text.substring(0, (BinaryProtocol.MAX_FRAME_LENGTH - 1) / 2), response.getMessage());
+	}
+
+	@Test
+	public void test_large_round_summary_fits_in_a_frame() throws Exception {
+		StringBuilder name = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			name.append('\u0103');
+		}
+		String[] losers = new String[1000];
+		Arrays.fill(losers, name.toString());
+		RoundSummary large = new RoundSummary(
+			Arrays.asList(new RoundSummary.Winner("Player 1", 4)),
+			Arrays.asList(losers),
+			Arrays.asList("Player 2")
+		);
+
+		ResponseEncoder encoder = new BinaryResponseEncoder(out);
+		encoder.writeRoundSummary(large);
+		encoder.write(Response.message("Next"));
+
+		// the names that do not fit are left out, the stream can still be read
+		ResponseDecoder decoder = decoder();
+		String text = decoder.read().getMessage();
+		assertTrue(text.contains("Player 1"));
+		assertTrue(text.contains(name));
+		assertResponse(decoder.read(), "Next", Response.PRINTMESSAGE);
+	}
+
+	@Test(expected=IOException.class)
+	public void test_invalid_frame_length_is_rejected() throws Exception {
+		out.write(BinaryProtocol.MAGIC);
+		out.write(new byte[] { 0x7F, 0, 0, 0 });
+		decoder().read();
+	}
+
+	@Test(expected=EOFException.class)
+	public void test_closed_connection_throws_eof() throws Exception {
+		new BinaryResponseEncoder(out);
+		decoder().read();
+	}
+
+
+	/**
+	 * The same shared bytes are written twice, like 2 players of a room,
+	 * with messages of the client before, between and after them
+	 */
+	private void assertSharedMessageIsDecoded(ResponseEncoder encoder) throws Exception {
+		SharedMessage message = SharedMessage.of(summary);
+
+		encoder.write(Response.message("Hello"));
+		encoder.writeShared(message);
+		encoder.write(Response.message("Between"));
+		encoder.writeShared(message);
+		encoder.write(Response.readLine("Enter your guess: "));
+		encoder.flush();
+
+		ResponseDecoder decoder = decoder();
+		assertResponse(decoder.read(), "Hello", Response.PRINTMESSAGE);
+		assertResponse(decoder.read(), summary.toString(), Response.PRINTMESSAGE);
+		assertResponse(decoder.read(), "Between", Response.PRINTMESSAGE);
+		assertResponse(decoder.read(), summary.toString(), Response.PRINTMESSAGE);
+		assertResponse(decoder.read(), "Enter your guess: ", Response.READLINE);
+	}
+
+	private ResponseDecoder decoder() throws IOException {
+		return ResponseDecoder.open(new ByteArrayInputStream(out.toByteArray()));
+	}
+
+	private void assertResponse(Response response, String message, int type) {
+		assertEquals(message, response.getMessage());
+		assertEquals(type, response.getType());
+	}
+}
@@ -0,0 +1,121 @@
+package servertests;
+
+import static org.junit.Assert.*;
+
+import java.net.Socket;
+
+import org.junit.Test;
+
+import core.Game;
+import core.GameManager;
+import server.ClientSession;
+import server.Room;
+import server.RoomManager;
+
+public class RoomManagerTests {
+
+	private RoomManager rooms = new RoomManager(4);
+
+	@Test
+	public void test_created_room_has_the_seats_of_its_group() {
+		Room room = rooms.create(3, 3);
+
+		assertEquals(3, room.getNumSeatsTaken());
+		assertEquals(3, room.getGame().getNumDigits());
+		assertTrue(room.hasFreeSeat());
+		assertSame(room, rooms.getRoom(room.getId()));
+		assertEquals(1, rooms.getRooms().size());
+	}
+
+	@Test
+	public void test_join_takes_free_seat_of_same_digits() {
+		Room room = rooms.create(3, 3);
+
+		assertNull(rooms.join(4, 1));
+		assertNull(rooms.join(3, 2));
+		assertSame(room, rooms.join(3, 1));
+		assertEquals(4, room.getNumSeatsTaken());
+		assertFalse(room.hasFreeSeat());
+	}
+
+	@Test
+	public void test_full_room_is_not_listed() {
+		Room full = rooms.create(3, 4);
+		assertNull(rooms.join(3, 1));
+		assertNull(rooms.joinAny(1));
+
+		// the next group gets a room of its own
+		Room other = rooms.create(3, 3);
+		assertNotSame(full, other);
+		assertSame(other, rooms.join(3, 1));
+	}
+
+	@Test
+	public void test_join_any_takes_oldest_room_with_enough_seats() {
+		Room fewerDigits = rooms.create(3, 3);
+		rooms.create(5, 2);
+
+		assertSame(fewerDigits, rooms.joinAny(1));
+		assertNotSame(fewerDigits, rooms.joinAny(2));
+	}
+
+	@Test
+	public void test_seat_given_back_lists_room_again() {
+		Room room = rooms.create(3, 4);
+		ClientSession session = new FakeSession();
+		room.enter(session);
+		assertNull(rooms.join(3, 1));
+
+		room.leave(session);
+		assertEquals(3, room.getNumSeatsTaken());
+		assertFalse(room.getMembers().contains(session));
+		assertSame(room, rooms.join(3, 1));
+	}
+
+	@Test
+	public void test_last_client_leaving_closes_room() {
+		Room room = rooms.create(4, 2);
+		ClientSession first = new FakeSession();
+		ClientSession second = new FakeSession();
+		room.enter(first);
+		room.enter(second);
+
+		room.leave(first);
+		assertFalse(room.isClosed());
+
+		room.leave(second);
+		assertTrue(room.isClosed());
+		assertNull(rooms.getRoom(room.getId()));
+		assertTrue(rooms.getRooms().isEmpty());
+		assertNull(rooms.join(4, 1));
+
+		// leaving twice does not give back another seat
+		room.leave(second);
+		assertTrue(room.isClosed());
+	}
+
+
+	/**
+	 * Only used as a member of a room
+	 */
+	private static class FakeSession implements ClientSession {
+		@Override
+		public Socket getSocket() {
+			return null;
+		}
+
+		@Override
+		public Game getGame() {
+			return null;
+		}
+
+		@Override
+		public GameManager getGameManager() {
+			return null;
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+}
@@ -0,0 +1,92 @@
+package servertests;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Test;
+
+import core.GameCallbackImpl;
+import server.GameSession;
+import server.Matchmaker;
+import server.ParkedSessions;
+import server.RoomManager;
+import server.ServerDrain;
+import server.SessionTimeouts;
+import server.TimerWheel;
+import servertests.SessionFixtures.FakeDriver;
+import servertests.SessionFixtures.NoOpServerCallback;
+
+public class ServerDrainTests {
+
+	private TimerWheel wheel = new TimerWheel(10, 8);
+	private SessionTimeouts timeouts = new SessionTimeouts(wheel, 0, 0);
+	private Matchmaker matchmaker = new Matchmaker(new RoomManager(), wheel, 30);
+	private ParkedSessions parked = new ParkedSessions(wheel, 30);
+
+	@After
+	public void tearDown() {
+		wheel.close();
+	}
+
+	@Test
+	public void test_player_signing_up_is_told_to_reconnect() throws Exception {
+		ServerDrain drain = new ServerDrain(parked, 5);
+		FakeDriver driver = new FakeDriver();
+		GameSession session = newSession(driver, drain);
+		session.begin();
+		assertEquals(1, drain.getRemaining());
+
+		drain.start();
+		assertTrue(drain.isDraining());
+		assertTrue(driver.isClosed());
+		assertTrue(driver.sent().contains("The server is restarting"));
+
+		session.onClosed();
+		assertEquals(0, drain.getRemaining());
+		assertTrue(drain.await());
+	}
+
+	@Test
+	public void test_players_in_a_round_can_finish_it() throws Exception {
+		ServerDrain drain = new ServerDrain(parked, 1);
+		FakeDriver[] drivers = new FakeDriver[3];
+		for (int i = 0; i < drivers.length; i++) {
+			drivers[i] = new FakeDriver();
+			GameSession session = newSession(drivers[i], drain);
+			session.begin();
+			session.onLine("player" + i);
+			session.onLine("3");
+		}
+
+		drain.start();
+		for (FakeDriver driver : drivers) {
+			assertFalse(driver.isClosed());
+			assertTrue(driver.sent().contains("You can finish this round"));
+		}
+
+		// nobody finished the round in time
+		assertFalse(drain.await());
+		for (FakeDriver driver : drivers) {
+			assertTrue(driver.isClosed());
+		}
+	}
+
+	@Test
+	public void test_new_session_on_draining_server_is_told_to_reconnect() throws Exception {
+		ServerDrain drain = new ServerDrain(parked, 5);
+		drain.start();
+
+		FakeDriver driver = new FakeDriver();
+		newSession(driver, drain).begin();
+		assertTrue(driver.isClosed());
+		assertTrue(driver.sent().contains("The server is restarting"));
+	}
+
+
+	/**
+	 * Helper method that creates a session sharing the drain of the test
+	 */
+	private GameSession newSession(FakeDriver driver, ServerDrain drain) {
+		return new GameSession(driver, new NoOpServerCallback(), new GameCallbackImpl(driver.getEncoder()), timeouts, parked, matchmaker, drain);
+	}
+}
@@ -0,0 +1,85 @@
+package servertests;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Test;
+
+import client.BinaryResponseDecoder;
+import core.GameCallbackImpl;
+import server.BinaryResponseEncoder;
+import server.Matchmaker;
+import server.OutboundBuffer;
+import server.ParkedSessions;
+import server.Response;
+import server.RoomManager;
+import server.ServerDrain;
+import server.ServerOptions;
+import server.ServerProcess;
+import server.SessionExecutors;
+import server.SessionTimeouts;
+import server.TimerWheel;
+import servertests.SessionFixtures.NoOpServerCallback;
+
+public class ServerProcessTests {
+
+	private TimerWheel wheel = new TimerWheel(10, 8);
+	private ExecutorService executor = SessionExecutors.newTaskExecutor("test-task");
+
+	@After
+	public void tearDown() {
+		wheel.close();
+		executor.shutdown();
+	}
+
+	@Test
+	public void test_tasks_do_not_wait_for_the_client() throws Exception {
+		try (ServerSocket server = new ServerSocket(0, 10, InetAddress.getLoopbackAddress());
+				Socket client = new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort())) {
+
+			ParkedSessions parked = new ParkedSessions(wheel, 0);
+			ServerProcess process = new ServerProcess(server.accept(), ServerOptions.Protocol.BINARY, new NoOpServerCallback(),
+				new GameCallbackImpl(new BinaryResponseEncoder(new ByteArrayOutputStream())), new SessionTimeouts(wheel, 0, 0),
+				new OutboundBuffer(1024, OutboundBuffer.SlowConsumerPolicy.DISCONNECT), executor,
+				parked, new Matchmaker(new RoomManager(), wheel, 30), new ServerDrain(parked, 1));
+
+			Thread thread = new Thread(process, "test-process");
+			thread.start();
+
+			// the process is now reading, the client does not send anything
+			BinaryResponseDecoder decoder = new BinaryResponseDecoder(client.getInputStream());
+			assertEquals(Response.READLINE, decoder.read().getType());
+
+			CountDownLatch ran = new CountDownLatch(1);
+			AtomicReference<Thread> runner = new AtomicReference<>();
+			process.execute(() -> {
+				runner.set(Thread.currentThread());
+				ran.countDown();
+			});
+
+			assertTrue(ran.await(500, TimeUnit.MILLISECONDS));
+			assertNotSame(thread, runner.get());
+
+			// closing the process also stops the thread reading
+			process.execute(process::close);
+			thread.join(2000);
+			assertFalse(thread.isAlive());
+
+			// then the session is told
+			long deadline = System.currentTimeMillis() + 2000;
+			while (! process.getSession().isClosed() && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+			assertTrue(process.getSession().isClosed());
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package servertests;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+
+import server.BinaryResponseEncoder;
+import server.ClientSession;
+import server.MultiPlayerServer;
+import server.Response;
+import server.ResponseEncoder;
+import server.ServerCallback;
+import server.SessionDriver;
+
+/**
+ * Fakes shared by the tests that drive a GameSession without a connection
+ */
+final class SessionFixtures {
+
+	private SessionFixtures() {
+
+	}
+
+
+	/**
+	 * Driver that runs everything on the test thread and keeps what was sent
+	 */
+	static class FakeDriver implements SessionDriver {
+		private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		private final ResponseEncoder encoder;
+		private boolean closed = false;
+
+		FakeDriver() throws IOException {
+			encoder = new BinaryResponseEncoder(out);
+		}
+
+		/**
+		 * Gets everything sent so far, the binary frames included
+		 */
+		String sent() throws IOException {
+			encoder.flush();
+			return new String(out.toByteArray(), "UTF-8");
+		}
+
+		@Override
+		public Socket getSocket() {
+			return null;
+		}
+
+		@Override
+		public ResponseEncoder getEncoder() {
+			return encoder;
+		}
+
+		@Override
+		public void execute(Runnable task) {
+			task.run();
+		}
+
+		@Override
+		public Timeout schedule(Runnable task, long delayMillis) {
+			return () -> { };
+		}
+
+		@Override
+		public boolean isClosed() {
+			return closed;
+		}
+
+		@Override
+		public void close() {
+			closed = true;
+		}
+	}
+
+	static class NoOpServerCallback implements ServerCallback {
+		@Override
+		public void onServerStarted(MultiPlayerServer server, int port) {
+		}
+
+		@Override
+		public void onClientConnected(MultiPlayerServer server, Socket socket) {
+		}
+
+		@Override
+		public void onSendResponse(ClientSession process, Response response) {
+		}
+
+		@Override
+		public void onClientReply(ClientSession process, String clientReply) {
+		}
+
+		@Override
+		public void onClientDisconnected(MultiPlayerServer server, Socket socket, ClientSession process) {
+		}
+
+		@Override
+		public void onException(ClientSession process, Exception e) {
+			throw new AssertionError(e);
+		}
+	}
+}
@@ -0,0 +1,101 @@
+package servertests;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import server.TimerWheel;
+
+public class TimerWheelTests {
+
+	@Test
+	public void test_timer_runs_after_delay() throws Exception {
+		try (TimerWheel wheel = new TimerWheel(10, 8)) {
+			CountDownLatch done = new CountDownLatch(1);
+			long start = System.nanoTime();
+			TimerWheel.Timer timer = wheel.schedule(done::countDown, 50);
+
+			assertTrue(done.await(2, TimeUnit.SECONDS));
+			assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+			assertTrue(timer.isExpired());
+			assertEquals(0, wheel.getPending());
+		}
+	}
+
+	@Test
+	public void test_timer_longer_than_1_lap() throws Exception {
+		// 8 buckets of 10ms, so the timer waits for 3 laps
+		try (TimerWheel wheel = new TimerWheel(10, 8)) {
+			CountDownLatch done = new CountDownLatch(1);
+			long start = System.nanoTime();
+			wheel.schedule(done::countDown, 250);
+
+			assertTrue(done.await(2, TimeUnit.SECONDS));
+			assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(250));
+		}
+	}
+
+	@Test
+	public void test_cancelled_timer_never_runs() throws Exception {
+		try (TimerWheel wheel = new TimerWheel(10, 8)) {
+			AtomicInteger runs = new AtomicInteger();
+			CountDownLatch done = new CountDownLatch(1);
+
+			TimerWheel.Timer timer = wheel.schedule(runs::incrementAndGet, 30);
+			wheel.schedule(done::countDown, 80);
+			timer.cancel();
+
+			assertTrue(timer.isCancelled());
+			assertTrue(done.await(2, TimeUnit.SECONDS));
+			assertEquals(0, runs.get());
+			assertEquals(0, wheel.getPending());
+		}
+	}
+
+	@Test
+	public void test_timers_run_in_order_of_deadline() throws Exception {
+		try (TimerWheel wheel = new TimerWheel(10, 8)) {
+			List<Integer> order = new ArrayList<>();
+			CountDownLatch done = new CountDownLatch(3);
+
+			wheel.schedule(() -> { order.add(3); done.countDown(); }, 150);
+			wheel.schedule(() -> { order.add(1); done.countDown(); }, 20);
+			wheel.schedule(() -> { order.add(2); done.countDown(); }, 90);
+
+			assertTrue(done.await(2, TimeUnit.SECONDS));
+			assertEquals(3, order.size());
+			assertEquals(Integer.valueOf(1), order.get(0));
+			assertEquals(Integer.valueOf(2), order.get(1));
+			assertEquals(Integer.valueOf(3), order.get(2));
+		}
+	}
+
+	@Test
+	public void test_100k_timers() throws Exception {
+		try (TimerWheel wheel = new TimerWheel(10, 512)) {
+			int count = 100_000;
+			CountDownLatch done = new CountDownLatch(count / 2);
+			List<TimerWheel.Timer> timers = new ArrayList<>(count);
+
+			for (int i = 0; i < count; i++) {
+				timers.add(wheel.schedule(done::countDown, 2000 + i % 200));
+			}
+			assertEquals(count, wheel.getPending());
+
+			// half of the players replied in time
+			for (int i = 0; i < count; i += 2) {
+				timers.get(i).cancel();
+			}
+			assertEquals(count / 2, wheel.getPending());
+
+			assertTrue(done.await(10, TimeUnit.SECONDS));
+			assertEquals(0, wheel.getPending());
+		}
+	}
+}
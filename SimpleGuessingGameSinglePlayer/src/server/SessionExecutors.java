@@ -0,0 +1,64 @@
+package server;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Helper class that creates the executors running the client processes.
+ *
+ * <p>Virtual threads are only available from Java 21. The project is
+ * compiled for older versions of Java, so the virtual thread executor
+ * is looked up at runtime. When it is not available, a cached thread
+ * pool with small stacks is used instead.
+ *
+ * @author user
+ *
+ */
+public class SessionExecutors {
+
+	/**
+	 * Stack size of the fallback threads. The game only needs a few frames per client.
+	 */
+	public static final long FALLBACK_STACK_SIZE = 256 * 1024;
+
+
+	/**
+	 * Creates an executor that starts a new virtual thread for each client process.
+	 *
+	 * @param name Prefix of the thread names, used when virtual threads are not available
+	 * @return
+	 */
+	public static ExecutorService newVirtualThreadPerTaskExecutor(String name) {
+		try {
+			Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) method.invoke(null);
+		}
+		catch (ReflectiveOperationException e) {
+			System.err.println("Virtual threads are not available on this JVM, using a thread pool instead.");
+			return Executors.newCachedThreadPool(new SmallStackThreadFactory(name));
+		}
+	}
+
+
+	/**
+	 * Creates threads with small stacks so more clients fit in the same memory
+	 */
+	private static class SmallStackThreadFactory implements ThreadFactory {
+		private final String name;
+		private final AtomicInteger count = new AtomicInteger();
+
+		private SmallStackThreadFactory(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(null, r, name + "-" + count.incrementAndGet(), FALLBACK_STACK_SIZE);
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
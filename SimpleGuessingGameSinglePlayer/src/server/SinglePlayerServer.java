@@ -1,11 +1,16 @@
 package server;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketOptions;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 
 import core.Game;
@@ -26,6 +31,14 @@ import core.GameCallbackLoggerImpl;
  * 'p' or quit the game by sending 'q'. New secret codes will be created for 
  * each round.
  * 
+ * <p>By default the game runs in the thread accepting the connections (1 client at a time). 
+ * If "virtual" is passed as the second argument, each client plays its own game in a 
+ * virtual thread from the executor of this server, so many clients can play at the same time.
+ * 
+ * <p>Clients over the limit of the server are rejected as soon as they are accepted: they are 
+ * sent a QUIT response telling them when to try again, and never get a thread or a name prompt. 
+ * Connections the server has not accepted yet wait in the accept backlog of the server socket.
+ * 
  * @author user
  *
  */
@@ -35,6 +48,36 @@ public class SinglePlayerServer {
 	public static final String GAME_LOG = "game.log";
 	public static final String COMMUNICATIONS_LOG = "communications.log";
 	
+	/**
+	 * Clients playing at the same time in virtual mode. In inline mode only 1 client plays at a time
+	 */
+	public static final int DEFAULT_MAX_CLIENTS = 1000;
+	
+	/**
+	 * Connections waiting to be accepted before the operating system refuses new ones
+	 */
+	public static final int ACCEPT_BACKLOG = 50;
+	
+	/**
+	 * Seconds a rejected client is told to wait before trying again
+	 */
+	public static final int RETRY_AFTER_SECONDS = 5;
+	
+	/**
+	 * What runs the client processes
+	 */
+	public enum Execution {
+		/**
+		 * The process runs in the thread accepting the connections. Only 1 client at a time
+		 */
+		INLINE,
+		
+		/**
+		 * Each process runs in a virtual thread from the executor of this server
+		 */
+		VIRTUAL
+	}
+	
 	private int port;
 	private Game game;
 	
@@ -45,9 +88,20 @@ public class SinglePlayerServer {
 	// this will still be null after you instantiated this class
 	private ServerSocket serverSocket;
 	
+	// runs the client processes. If null, processes run in the accepting thread
+	private ExecutorService executor;
+	
+	// clients being served, see tryAdmit()
+	private int maxClients = DEFAULT_MAX_CLIENTS;
+	private AtomicInteger clients = new AtomicInteger(0);
+	
+	// QUIT response sent to rejected clients, serialized once
+	private byte[] rejection;
+	
 	public SinglePlayerServer(int port, Game game) {
 		this.port = port;
 		this.game = game;
+		this.rejection = serializeRejection();
 	}
 	
 	/**
@@ -56,7 +110,7 @@ public class SinglePlayerServer {
 	 * @throws IOException
 	 */
 	public void start() throws IOException {
-		serverSocket = new ServerSocket(port);
+		serverSocket = new ServerSocket(port, ACCEPT_BACKLOG);
 		serverCallbacks.forEach(c -> c.onServerStarted(this, port));
 	}
 	
@@ -70,6 +124,109 @@ public class SinglePlayerServer {
 	}
 	
 	
+	/**
+	 * Sets the executor that runs the client processes
+	 * 
+	 * @param executor
+	 */
+	public void setExecutor(ExecutorService executor) {
+		this.executor = executor;
+	}
+	
+	/**
+	 * Sets the number of clients served at the same time
+	 * 
+	 * @param maxClients
+	 */
+	public void setMaxClients(int maxClients) {
+		this.maxClients = maxClients;
+	}
+	
+	/**
+	 * Runs the client process. If there is no executor, 
+	 * this will return only after the client quits.
+	 * The client is no longer counted once the process ends.
+	 * 
+	 * @param process
+	 */
+	public void execute(ServerProcess process) {
+		Runnable task = () -> {
+			try {
+				process.begin();
+			} finally {
+				release();
+			}
+		};
+		
+		if (executor != null) {
+			executor.execute(task);
+		} else {
+			task.run();
+		}
+	}
+	
+	/**
+	 * Counts a new client, unless the server is full
+	 * 
+	 * @return false if the client must be rejected
+	 */
+	public boolean tryAdmit() {
+		while (true) {
+			int count = clients.get();
+			if (count >= maxClients) {
+				return false;
+			}
+			if (clients.compareAndSet(count, count + 1)) {
+				return true;
+			}
+		}
+	}
+	
+	/**
+	 * Gives back the place of an admitted client
+	 */
+	private void release() {
+		clients.decrementAndGet();
+	}
+	
+	/**
+	 * Tells the client the server is full and closes the connection.
+	 * This is a single small write, it does not wait for the client
+	 * 
+	 * @param socket
+	 */
+	public void reject(Socket socket) {
+		try {
+			socket.getOutputStream().write(rejection);
+		} catch (IOException e) {
+			// client is gone already
+		}
+		
+		try {
+			socket.close();
+		} catch (IOException e) {
+			serverCallbacks.forEach(c -> c.onException(null, e));
+		}
+	}
+	
+	/**
+	 * Helper method that serializes the QUIT response sent to rejected clients,
+	 * including the header of the ObjectOutputStream
+	 * 
+	 * @return
+	 */
+	private static byte[] serializeRejection() {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(Response.quit(String.format("Server is full, please try again in %d seconds.", RETRY_AFTER_SECONDS)));
+		} catch (IOException e) {
+			// only written to memory
+			throw new UncheckedIOException(e);
+		}
+		return bytes.toByteArray();
+	}
+	
+	
 	// GETTERS
 	
 	
@@ -101,19 +258,27 @@ public class SinglePlayerServer {
 		} catch (IOException e) {
 			serverCallbacks.forEach(c -> c.onException(null, e));
 		}
+		
+		if (executor != null) {
+			executor.shutdown();
+		}
 	}
 	
 	
 	/**
 	 * Program entry point
 	 * 
-	 * @param args You can pass a optional custom port number as the first parameter. Port defaults to 15376
+	 * @param args You can pass a optional custom port number as the first parameter. Port defaults to 15376. 
+	 * The second optional parameter is the execution mode (inline or virtual). Defaults to inline. 
+	 * The third optional parameter is the number of clients playing at the same time in virtual mode. Defaults to 1000
 	 */
 	public static void main(String[] args) {
 		
 		// You can optionally pass the first argument as the port number
 		// port number defaults to port 15376
 		int port = getPortNumber(args);
+		Execution execution = getExecution(args);
+		int maxClients = getMaxClients(args);
 		
 		Game game = new Game();
 		
@@ -132,6 +297,11 @@ public class SinglePlayerServer {
 		SinglePlayerServer singlePlayerServer = new SinglePlayerServer(port, game);
 		singlePlayerServer.addServerCallback(serverCallback);
 		
+		if (execution == Execution.VIRTUAL) {
+			singlePlayerServer.setExecutor(SessionExecutors.newVirtualThreadPerTaskExecutor("server-process"));
+			singlePlayerServer.setMaxClients(maxClients);
+		}
+		
 		try {
 			// start a server socket
 			singlePlayerServer.start();
@@ -143,14 +313,28 @@ public class SinglePlayerServer {
 				
 				Socket socket = serverSocket.accept();
 				
+				// the server is full, the client is told to come back later
+				if (! singlePlayerServer.tryAdmit()) {
+					singlePlayerServer.reject(socket);
+					continue;
+				}
+				
 				// keep alive
 				socket.setKeepAlive(true);
 				
 				serverCallback.onClientConnected(singlePlayerServer, socket);
 				
-				// launch the game handler
-				ServerProcess process = new ServerProcess(game, socket, serverCallback, gameCallbackLogger);
-				process.begin();
+				// launch the game handler. Game only has 1 player, 
+				// so clients playing at the same time need their own game
+				Game clientGame = execution == Execution.VIRTUAL ? new Game() : game;
+				ServerProcess process;
+				try {
+					process = new ServerProcess(clientGame, socket, serverCallback, gameCallbackLogger);
+				} catch (IOException e) {
+					singlePlayerServer.release();
+					throw e;
+				}
+				singlePlayerServer.execute(process);
 				
 			} while (true);
 			
@@ -190,5 +374,51 @@ public class SinglePlayerServer {
 		
 		return portNumber;
 	}
+	
+	
+	/**
+	 * Gets the execution mode from command line arguments.<br/>
+	 * The execution mode must be the second command line argument
+	 * 
+	 * @param args
+	 * @return
+	 */
+	public static Execution getExecution(String[] args) {
+		if (args.length < 2) {
+			return Execution.INLINE;
+		}
+		
+		try {
+			return Execution.valueOf(args[1].trim().toUpperCase());
+		}
+		catch (IllegalArgumentException e) {
+			System.err.printf("%s is not a valid execution mode", args[1]);
+		}
+		
+		return Execution.INLINE;
+	}
+	
+	
+	/**
+	 * Gets the number of clients playing at the same time from command line arguments.<br/>
+	 * The number of clients must be the third command line argument
+	 * 
+	 * @param args
+	 * @return
+	 */
+	public static int getMaxClients(String[] args) {
+		if (args.length < 3) {
+			return DEFAULT_MAX_CLIENTS;
+		}
+		
+		try {
+			return Math.max(1, Integer.parseInt(args[2].trim()));
+		}
+		catch (NumberFormatException e) {
+			System.err.printf("%s is not a valid number of clients", args[2]);
+		}
+		
+		return DEFAULT_MAX_CLIENTS;
+	}
 
 }